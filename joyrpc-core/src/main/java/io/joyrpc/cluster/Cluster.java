@@ -149,6 +149,10 @@ public class Cluster {
      * 当前集群的指标
      */
     protected Dashboard dashboard;
+    /**
+     * 节点的权重版本，任意节点的权重发生变化都会递增
+     */
+    protected final AtomicLong weightVersion = new AtomicLong();
     /**
      * 打开的次数
      */
@@ -212,14 +216,10 @@ public class Cluster {
         this.dashboard = dashboardFactory != null ? dashboardFactory.create(url, DashboardType.Cluster) : null;
         //构建事件发布器
         this.clusterPublisher = clusterPublisher != null ? clusterPublisher : EVENT_BUS.get().getPublisher(EVENT_PUBLISHER_CLUSTER, this.name, EVENT_PUBLISHER_CLUSTER_CONF);
-        //额外的指标监听器
-        if (dashboard != null || metricHandlers != null) {
-            Iterator<? extends MetricHandler> it = metricHandlers.iterator();
-            if (it.hasNext() || dashboard != null) {
-                this.metricPublisher = EVENT_BUS.get().getPublisher(EVENT_PUBLISHER_METRIC, String.valueOf(idCounter.incrementAndGet()), EVENT_PUBLISHER_METRIC_CONF);
-                this.metricPublisher.addHandler(dashboard);
-                this.metricPublisher.addHandler(metricHandlers);
-            }
+        //额外的指标监听器，面板在调用线程里面直接记录，不再通过事件分发
+        if (metricHandlers != null && metricHandlers.iterator().hasNext()) {
+            this.metricPublisher = EVENT_BUS.get().getPublisher(EVENT_PUBLISHER_METRIC, String.valueOf(idCounter.incrementAndGet()), EVENT_PUBLISHER_METRIC_CONF);
+            this.metricPublisher.addHandler(metricHandlers);
         }
     }
 
@@ -410,7 +410,9 @@ public class Cluster {
                 authentication,
                 handler,
                 dashboardFactory == null ? null : dashboardFactory.create(url, DashboardType.Node),
-                metricPublisher);
+                dashboard,
+                metricPublisher,
+                weightVersion);
     }
 
     /**
@@ -462,6 +464,15 @@ public class Cluster {
         return dashboard;
     }
 
+    /**
+     * 获取节点的权重版本
+     *
+     * @return 权重版本
+     */
+    public long getWeightVersion() {
+        return weightVersion.get();
+    }
+
     public URL getUrl() {
         return url;
     }
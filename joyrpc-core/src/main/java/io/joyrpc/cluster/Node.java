@@ -64,8 +64,10 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Consumer;
@@ -128,6 +130,10 @@ public class Node implements Shard {
      * 仪表盘
      */
     protected Dashboard dashboard;
+    /**
+     * 集群仪表盘
+     */
+    protected Dashboard clusterDashboard;
     /**
      * 原始权重
      */
@@ -176,10 +182,6 @@ public class Node implements Shard {
      * 心跳连续失败次数
      */
     protected AtomicLong successiveHeartbeatFails = new AtomicLong();
-    /**
-     * 指标事件处理器
-     */
-    protected EventHandler<MetricEvent> handler;
     /**
      * 前置条件
      */
@@ -209,6 +211,10 @@ public class Node implements Shard {
      * 关闭的结果
      */
     protected volatile CompletableFuture<Node> closeFuture;
+    /**
+     * 权重版本，同一个集群的节点共享，任意节点的权重发生变化都会递增，用于判断加权随机的别名表是否需要重建
+     */
+    protected final AtomicLong weightVersion;
 
     /**
      * 构造函数
@@ -240,6 +246,56 @@ public class Node implements Shard {
                 final NodeHandler nodeHandler,
                 final Dashboard dashboard,
                 final Publisher<MetricEvent> publisher) {
+        this(clusterName, clusterUrl, shard, factory, authentication, nodeHandler, dashboard, null, publisher);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param clusterName      集群名称
+     * @param clusterUrl       集群URL
+     * @param shard            分片
+     * @param factory          连接工程
+     * @param authentication   授权
+     * @param nodeHandler      节点事件处理器
+     * @param dashboard        当前节点指标面板
+     * @param clusterDashboard 集群指标面板
+     * @param publisher        额外的指标事件监听器
+     */
+    public Node(final String clusterName, final URL clusterUrl,
+                final Shard shard,
+                final EndpointFactory factory,
+                final Function<URL, Message> authentication,
+                final NodeHandler nodeHandler,
+                final Dashboard dashboard,
+                final Dashboard clusterDashboard,
+                final Publisher<MetricEvent> publisher) {
+        this(clusterName, clusterUrl, shard, factory, authentication, nodeHandler, dashboard, clusterDashboard, publisher, null);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param clusterName      集群名称
+     * @param clusterUrl       集群URL
+     * @param shard            分片
+     * @param factory          连接工程
+     * @param authentication   授权
+     * @param nodeHandler      节点事件处理器
+     * @param dashboard        当前节点指标面板
+     * @param clusterDashboard 集群指标面板
+     * @param publisher        额外的指标事件监听器
+     * @param weightVersion    权重版本，同一个集群的节点共享
+     */
+    public Node(final String clusterName, final URL clusterUrl,
+                final Shard shard,
+                final EndpointFactory factory,
+                final Function<URL, Message> authentication,
+                final NodeHandler nodeHandler,
+                final Dashboard dashboard,
+                final Dashboard clusterDashboard,
+                final Publisher<MetricEvent> publisher,
+                final AtomicLong weightVersion) {
         Objects.requireNonNull(clusterUrl, "clusterUrl can not be null.");
         Objects.requireNonNull(shard, "shard can not be null.");
         Objects.requireNonNull(factory, "factory can not be null.");
@@ -258,12 +314,9 @@ public class Node implements Shard {
         this.nodeHandler = nodeHandler;
         //仪表盘
         this.dashboard = dashboard;
+        this.clusterDashboard = clusterDashboard;
         this.publisher = publisher;
-        if (publisher != null && dashboard != null) {
-            //节点的Dashboard应该只能收到本节点的指标事件
-            this.handler = dashboard.wrap(o -> o.getSource() == this);
-            this.publisher.addHandler(handler);
-        }
+        this.weightVersion = weightVersion == null ? new AtomicLong() : weightVersion;
         this.disconnectWhenHeartbeatFails = clusterUrl.getInteger(DISCONNECT_WHEN_HEARTBEAT_FAILS, 3);
         this.sessionbeatInterval = estimateSessionbeat(sessionTimeout);
         //原始的URL
@@ -365,10 +418,10 @@ public class Node implements Shard {
         } else {
             //提供函数，减少一层包装
             final Client c = factory.createClient(url,
-                    t -> publisher == null ?
+                    t -> publisher == null && dashboard == null && clusterDashboard == null ?
                             new NodeClient(url, t, v -> new MyEventHandler<>(this, v)) :
                             new MetricClient(url, t, v -> new MyEventHandler<>(this, v),
-                                    this, clusterUrl, clusterName, publisher));
+                                    this, clusterUrl, clusterName, clusterDashboard, publisher));
             if (c == null) {
                 consumer.accept(new AsyncResult<>(this, new ProtocolException(
                         String.format("transport factory plugin %s is not found.",
@@ -395,7 +448,7 @@ public class Node implements Shard {
                             //若startTime为0，在session中获取远程启动时间
                             startTime = startTime == 0 ? c.session().getRemoteStartTime() : startTime;
                             //每次连接后，获取目标节点的启动的时间戳，并初始化计算一次权重
-                            weight = warmup();
+                            setWeight(warmup());
                             client = c;
                             //心跳定时任务
                             timer().add(new SessionbeatTask(this, c));
@@ -464,8 +517,6 @@ public class Node implements Shard {
      */
     protected void doClose(final Consumer<AsyncResult<Node>> consumer) {
         if (state.initial(this::setState)) {
-            //移除Dashboard的监听器
-            Optional.ofNullable(publisher).ifPresent(o -> o.removeHandler(handler));
             //不设置client为null，防止潜在的空指针异常
             //client = null;
             precondition = null;
@@ -515,6 +566,16 @@ public class Node implements Shard {
         return client;
     }
 
+    /**
+     * 当前在途的请求数
+     *
+     * @return 在途的请求数
+     */
+    public int getRequests() {
+        Client c = client;
+        return c == null ? 0 : c.getRequests();
+    }
+
     @Override
     public String getName() {
         return shard.getName();
@@ -557,7 +618,10 @@ public class Node implements Shard {
     }
 
     protected void setWeight(int weight) {
-        this.weight = weight;
+        if (this.weight != weight) {
+            this.weight = weight;
+            weightVersion.incrementAndGet();
+        }
     }
 
     @Override
@@ -1007,7 +1071,7 @@ public class Node implements Shard {
     }
 
     /**
-     * 包装指标
+     * 包装指标，在调用完成的线程里面直接记录到节点和集群的面板，额外的指标事件按照采样率发布
      */
     protected static class MetricClient extends NodeClient {
 
@@ -1023,10 +1087,22 @@ public class Node implements Shard {
          * 集群名称
          */
         protected final String clusterName;
+        /**
+         * 节点面板
+         */
+        protected final Dashboard dashboard;
+        /**
+         * 集群面板
+         */
+        protected final Dashboard clusterDashboard;
         /**
          * 统计指标事件发布器
          */
         protected final Publisher<MetricEvent> publisher;
+        /**
+         * 指标事件采样率，每N次发布一次
+         */
+        protected final int sample;
 
         /**
          * 构造函数
@@ -1037,45 +1113,66 @@ public class Node implements Shard {
          * @param node
          * @param clusterUrl
          * @param clusterName
+         * @param clusterDashboard
          * @param publisher
          */
         public MetricClient(final URL url, final ClientTransport transport,
                             final Function<Client, EventHandler<? extends TransportEvent>> handlerFunction,
-                            final Node node, final URL clusterUrl, final String clusterName, final Publisher<MetricEvent> publisher) {
+                            final Node node, final URL clusterUrl, final String clusterName,
+                            final Dashboard clusterDashboard, final Publisher<MetricEvent> publisher) {
             super(url, transport, handlerFunction);
             this.node = node;
             this.clusterUrl = clusterUrl;
             this.clusterName = clusterName;
+            this.dashboard = node.dashboard;
+            this.clusterDashboard = clusterDashboard;
             this.publisher = publisher;
+            this.sample = clusterUrl.getInteger(METRIC_EVENT_SAMPLE_OPTION);
         }
 
         @Override
         public CompletableFuture<Message> async(final Message message, final int timeoutMillis) {
             //判空,验证是否需要统计
             final long startTime = SystemClock.now();
+            final long startNanos = System.nanoTime();
             try {
-                return transport.async(message, timeoutMillis).whenComplete((r, t) ->
-                        publish(message, r, startTime, SystemClock.now(), t));
+                CompletableFuture<Message> future = transport.async(message, timeoutMillis);
+                return Futures.chainCancel(future, future.whenComplete((r, t) -> {
+                    //主动取消的请求不计入指标
+                    if (!(t instanceof CancellationException)) {
+                        record(message, r, startTime, System.nanoTime() - startNanos, t);
+                    }
+                }));
             } catch (Exception e) {
-                publish(message, null, startTime, SystemClock.now(), e);
+                record(message, null, startTime, System.nanoTime() - startNanos, e);
                 throw e;
             }
         }
 
         /**
-         * 根据请求,返回值,异常,开始时间,结束时间,发送统计事件
+         * 根据请求,返回值,异常,开始时间,耗时,记录指标
          *
          * @param request
          * @param response
          * @param startTime
-         * @param endTime
+         * @param elapsedNanos
          * @param throwable
          */
-        protected void publish(final Message request, final Message response,
-                               final long startTime, final long endTime, Throwable throwable) {
-            publisher.offer(new MetricEvent(node, null, clusterUrl, clusterName, url,
-                    request, response, throwable, getRequests(),
-                    startTime, endTime));
+        protected void record(final Message request, final Message response,
+                              final long startTime, final long elapsedNanos,
+                              final Throwable throwable) {
+            int concurrency = getRequests();
+            if (dashboard != null) {
+                dashboard.record(request, response, throwable, concurrency, elapsedNanos);
+            }
+            if (clusterDashboard != null) {
+                clusterDashboard.record(request, response, throwable, concurrency, elapsedNanos);
+            }
+            if (publisher != null && sample > 0 && (sample == 1 || ThreadLocalRandom.current().nextInt(sample) == 0)) {
+                publisher.offer(new MetricEvent(node, null, clusterUrl, clusterName, url,
+                        request, response, throwable, concurrency,
+                        startTime, startTime + TimeUnit.NANOSECONDS.toMillis(elapsedNanos), elapsedNanos));
+            }
         }
     }
 
@@ -1344,7 +1441,10 @@ public class Node implements Shard {
 
         @Override
         protected void doRun() {
-            if (node.warmup() != node.originWeight) {
+            //更新预热权重
+            int weight = node.warmup();
+            node.setWeight(weight);
+            if (weight != node.originWeight) {
                 timer().add(this);
             }
         }
@@ -0,0 +1,71 @@
+package io.joyrpc.cluster.distribution;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.Result;
+import io.joyrpc.exception.LafException;
+
+/**
+ * 并发限流器，获取许可后需要在调用完成时释放，并反馈耗时用于调整并发数
+ */
+public interface ConcurrencyLimiter extends RateLimiter {
+
+    /**
+     * 释放许可
+     *
+     * @param elapsedNanos 调用耗时(纳秒)
+     * @param dropped      是否是系统异常
+     */
+    void release(long elapsedNanos, boolean dropped);
+
+    /**
+     * 当前并发限制
+     *
+     * @return 并发限制
+     */
+    int getLimit();
+
+    /**
+     * 当前并发数
+     *
+     * @return 并发数
+     */
+    int getInflight();
+
+    /**
+     * 判断调用是否是系统异常，业务异常说明服务能正常处理，不用于收缩并发数
+     *
+     * @param result    结果
+     * @param throwable 异常
+     * @return 系统异常标识
+     */
+    static boolean isDropped(final Result result, final Throwable throwable) {
+        if (throwable != null) {
+            return true;
+        } else if (result == null || !result.isException()) {
+            return false;
+        }
+        //结果中携带的框架异常(例如超时、过载)或者错误
+        Throwable e = result.getException();
+        return e instanceof LafException || e instanceof Error;
+    }
+}
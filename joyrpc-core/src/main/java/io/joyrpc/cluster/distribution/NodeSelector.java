@@ -44,4 +44,14 @@ public interface NodeSelector extends InvokerAware, Prototype {
      * @return List<Node>  路由结果
      */
     List<Node> select(Candidate candidate, RequestMessage<Invocation> request);
+
+    /**
+     * 获取选择结果的缓存键，相同方法相同缓存键的请求在集群节点不变时选择结果相同，返回null表示不能缓存
+     *
+     * @param request 请求
+     * @return 缓存键
+     */
+    default Object getCacheKey(final RequestMessage<Invocation> request) {
+        return null;
+    }
 }
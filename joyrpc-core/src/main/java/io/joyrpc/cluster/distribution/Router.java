@@ -57,6 +57,10 @@ public interface Router extends Prototype {
      * 并行模式
      */
     String FORKING = "forking";
+    /**
+     * 对冲模式
+     */
+    String HEDGING = "hedging";
 
     /**
      * 快速失败插件顺序
@@ -82,6 +86,11 @@ public interface Router extends Prototype {
      */
     int ORDER_FORKING = 140;
 
+    /**
+     * 对冲调用模式插件顺序
+     */
+    int ORDER_HEDGING = 150;
+
     /**
      * 进行路由操作，不能修改候选者节点列表
      *
@@ -0,0 +1,234 @@
+package io.joyrpc.cluster.distribution.limiter;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.distribution.ConcurrencyLimiter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 梯度自适应并发限流器，参考Netflix的Gradient算法。<br/>
+ * 按照窗口统计平均耗时，和最小耗时比较得到梯度，耗时上升则减少并发限制，耗时平稳则以并发限制的平方根作为排队余量逐步增加。<br/>
+ * 定期减半并发限制重新探测最小耗时，避免最小耗时被拥塞时的耗时抬高后并发限制逐步上涨
+ */
+public class GradientRateLimiter implements ConcurrencyLimiter {
+
+    /**
+     * 统计窗口
+     */
+    protected static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    /**
+     * 窗口最少样本数
+     */
+    protected static final int MIN_SAMPLES = 10;
+    /**
+     * 重新探测最小耗时的窗口数，约1分钟
+     */
+    protected static final int PROBE_WINDOWS = 600;
+    /**
+     * 并发限制的平滑系数
+     */
+    protected static final double SMOOTHING = 0.2;
+    /**
+     * 系统异常时的退避系数
+     */
+    protected static final double BACKOFF = 0.9;
+
+    /**
+     * 最小并发限制
+     */
+    protected volatile int minLimit;
+    /**
+     * 最大并发限制
+     */
+    protected volatile int maxLimit;
+    /**
+     * 耗时容忍度，平均耗时超过最小耗时的倍数才减少并发限制
+     */
+    protected volatile double tolerance;
+    /**
+     * 当前并发限制
+     */
+    protected volatile double limit;
+    /**
+     * 当前并发数
+     */
+    protected final AtomicInteger inflight = new AtomicInteger();
+    /**
+     * 窗口耗时之和
+     */
+    protected final AtomicLong rttSum = new AtomicLong();
+    /**
+     * 窗口样本数
+     */
+    protected final AtomicLong samples = new AtomicLong();
+    /**
+     * 窗口开始时间
+     */
+    protected final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    /**
+     * 窗口内的最大并发数
+     */
+    protected volatile int maxInflight;
+    /**
+     * 窗口内是否出现系统异常
+     */
+    protected volatile boolean dropped;
+    /**
+     * 最小耗时
+     */
+    protected double minRtt;
+    /**
+     * 距离下次探测的窗口数
+     */
+    protected int probeCountdown = PROBE_WINDOWS;
+    /**
+     * 探测后跳过的窗口数，等待探测前进入的请求完成
+     */
+    protected int skipWindows;
+
+    /**
+     * 构造函数
+     */
+    public GradientRateLimiter() {
+        this(20, 5, 1000, 1.5);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param initial   初始并发限制
+     * @param minLimit  最小并发限制
+     * @param maxLimit  最大并发限制
+     * @param tolerance 耗时容忍度
+     */
+    public GradientRateLimiter(final int initial, final int minLimit, final int maxLimit, final double tolerance) {
+        this.minLimit = Math.max(minLimit, 1);
+        this.maxLimit = Math.max(maxLimit, this.minLimit);
+        this.tolerance = Math.max(tolerance, 1.0);
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, initial));
+    }
+
+    @Override
+    public String type() {
+        return "gradient";
+    }
+
+    @Override
+    public boolean getPermission() {
+        int current;
+        do {
+            current = inflight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+        } while (!inflight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    @Override
+    public void release(final long elapsedNanos, final boolean dropped) {
+        int current = inflight.getAndDecrement();
+        if (current > maxInflight) {
+            maxInflight = current;
+        }
+        if (dropped) {
+            this.dropped = true;
+        }
+        rttSum.addAndGet(elapsedNanos);
+        long count = samples.incrementAndGet();
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= WINDOW_NANOS && count >= MIN_SAMPLES && windowStart.compareAndSet(start, now)) {
+            update();
+        }
+    }
+
+    /**
+     * 窗口结束，调整并发限制
+     */
+    protected synchronized void update() {
+        long count = samples.getAndSet(0);
+        long sum = rttSum.getAndSet(0);
+        int inflightMax = maxInflight;
+        maxInflight = 0;
+        boolean drop = dropped;
+        dropped = false;
+        if (count <= 0 || sum <= 0) {
+            return;
+        }
+        double rtt = (double) sum / count;
+        double current = limit;
+        if (--probeCountdown <= 0) {
+            //减半并发限制，重新探测最小耗时
+            probeCountdown = PROBE_WINDOWS;
+            skipWindows = 1;
+            minRtt = 0;
+            limit = Math.max(minLimit, current / 2);
+            return;
+        } else if (skipWindows > 0) {
+            skipWindows--;
+            return;
+        }
+        if (minRtt <= 0 || rtt < minRtt) {
+            minRtt = rtt;
+        }
+        if (!drop && inflightMax * 2 < current) {
+            //并发没有用到一半，不需要调整，避免空闲时无限增长
+            return;
+        }
+        double target;
+        if (drop) {
+            target = current * BACKOFF;
+        } else {
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * minRtt / rtt));
+            target = current * gradient + Math.sqrt(current);
+        }
+        target = current * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, target));
+    }
+
+    @Override
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    @Override
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    @Override
+    public boolean reload(final RateLimiterConfig config) {
+        if (config == null) {
+            return false;
+        }
+        //动态配置的限流数作为最大并发限制
+        maxLimit = Math.max(config.getLimitCount(), minLimit);
+        if (limit > maxLimit) {
+            limit = maxLimit;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,161 @@
+package io.joyrpc.cluster.distribution.loadbalance;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Weighter;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 加权随机的别名表(Vose算法)，构建的时间复杂度为O(N)，选择的时间复杂度为O(1)。<br/>
+ * 不可变对象，节点列表或权重变化后需要重新构建
+ *
+ * @param <T>
+ */
+public class AliasTable<T extends Weighter> {
+
+    /**
+     * 构建该表的节点列表
+     */
+    protected final List<T> source;
+    /**
+     * 构建时的权重版本
+     */
+    protected final long version;
+    /**
+     * 节点
+     */
+    protected final Object[] items;
+    /**
+     * 选中本槽位节点的概率
+     */
+    protected final double[] probabilities;
+    /**
+     * 未选中本槽位节点时选择的别名
+     */
+    protected final int[] aliases;
+
+    /**
+     * 构造函数
+     *
+     * @param source  节点列表
+     * @param version 权重版本
+     */
+    public AliasTable(final List<T> source, final long version) {
+        this.source = source;
+        this.version = version;
+        int size = source == null ? 0 : source.size();
+        this.items = new Object[size];
+        this.probabilities = new double[size];
+        this.aliases = new int[size];
+        if (size == 0) {
+            return;
+        }
+        long total = 0;
+        int[] weights = new int[size];
+        int i = 0;
+        for (T item : source) {
+            items[i] = item;
+            //权重快照，避免构建过程中权重变化
+            weights[i] = Math.max(item.getWeight(), 0);
+            total += weights[i++];
+        }
+        if (total <= 0) {
+            //权重和不大于零,直接退化为随机
+            for (i = 0; i < size; i++) {
+                probabilities[i] = 1.0;
+                aliases[i] = i;
+            }
+            return;
+        }
+        //按照平均权重为1进行缩放，小于1的进入small栈，其余进入large栈
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smalls = 0;
+        int larges = 0;
+        for (i = 0; i < size; i++) {
+            scaled[i] = (double) weights[i] * size / total;
+            if (scaled[i] < 1.0) {
+                small[smalls++] = i;
+            } else {
+                large[larges++] = i;
+            }
+        }
+        int less;
+        int more;
+        while (smalls > 0 && larges > 0) {
+            less = small[--smalls];
+            more = large[--larges];
+            probabilities[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smalls++] = more;
+            } else {
+                large[larges++] = more;
+            }
+        }
+        //剩余的槽位概率为1(浮点误差)
+        while (larges > 0) {
+            more = large[--larges];
+            probabilities[more] = 1.0;
+            aliases[more] = more;
+        }
+        while (smalls > 0) {
+            less = small[--smalls];
+            probabilities[less] = 1.0;
+            aliases[less] = less;
+        }
+    }
+
+    /**
+     * 判断是否和节点列表及权重版本一致
+     *
+     * @param nodes   节点列表
+     * @param version 权重版本
+     * @return 一致标识
+     */
+    public boolean matches(final List<T> nodes, final long version) {
+        return source == nodes && this.version == version;
+    }
+
+    /**
+     * 随机选择
+     *
+     * @return 节点
+     */
+    public T select() {
+        int size = items.length;
+        switch (size) {
+            case 0:
+                return null;
+            case 1:
+                return (T) items[0];
+            default:
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int index = random.nextInt(size);
+                return (T) items[random.nextDouble() < probabilities[index] ? index : aliases[index]];
+        }
+    }
+}
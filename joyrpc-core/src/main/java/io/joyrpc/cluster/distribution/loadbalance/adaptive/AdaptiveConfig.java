@@ -59,9 +59,13 @@ public class AdaptiveConfig implements Serializable, Cloneable {
      */
     protected RankScore<Long> qpsScore;
     /**
-     * TP评分基线
+     * TP评分基线，配置的单位为毫秒
      */
     protected RankScore<Integer> tpScore;
+    /**
+     * 根据集群指标计算的TP评分基线，单位微秒，亚毫秒的服务也能区分快慢
+     */
+    protected RankScore<Long> tpMicrosScore;
     /**
      * 可用率评分基线
      */
@@ -134,6 +138,7 @@ public class AdaptiveConfig implements Serializable, Cloneable {
             this.concurrencyScore = source.concurrencyScore;
             this.qpsScore = source.qpsScore;
             this.tpScore = source.tpScore;
+            this.tpMicrosScore = source.tpMicrosScore;
             this.availabilityScore = source.availabilityScore;
             this.decubation = source.decubation;
             this.exclusionRooms = source.exclusionRooms;
@@ -221,6 +226,14 @@ public class AdaptiveConfig implements Serializable, Cloneable {
         this.tpScore = tpScore;
     }
 
+    public RankScore<Long> getTpMicrosScore() {
+        return tpMicrosScore;
+    }
+
+    public void setTpMicrosScore(RankScore<Long> tpMicrosScore) {
+        this.tpMicrosScore = tpMicrosScore;
+    }
+
     public RankScore<Double> getAvailabilityScore() {
         return availabilityScore;
     }
@@ -307,6 +320,7 @@ public class AdaptiveConfig implements Serializable, Cloneable {
         concurrencyScore = config.concurrencyScore == null ? concurrencyScore : config.concurrencyScore;
         qpsScore = config.qpsScore == null ? qpsScore : config.qpsScore;
         tpScore = config.tpScore == null ? tpScore : config.tpScore;
+        tpMicrosScore = config.tpMicrosScore == null ? tpMicrosScore : config.tpMicrosScore;
         availabilityScore = config.availabilityScore == null ? availabilityScore : config.availabilityScore;
         exclusionRooms = config.exclusionRooms == null ? exclusionRooms : config.exclusionRooms;
         ratios = config.ratios == null ? ratios : config.ratios;
@@ -335,6 +349,42 @@ public class AdaptiveConfig implements Serializable, Cloneable {
         }
     }
 
+    /**
+     * 根据集群TP计算评分，单位微秒。<br/>
+     * 1毫秒以上沿用毫秒的评分区间，亚毫秒按照1毫秒的区间等比缩小，最小以100微秒为基准，避免抖动；
+     * 没有数据的时候沿用毫秒的默认区间
+     *
+     * @param fair 集群TP(微秒)
+     */
+    public static RankScore<Long> computeTpMicrosScore(final long fair) {
+        if (fair > 0 && fair < 1000) {
+            long base = Math.max(fair, 100);
+            return new RankScore<>(base * 4, base * 8, base * 12);
+        }
+        RankScore<Integer> score = computeTpScore((int) Math.min(Integer.MAX_VALUE, fair / 1000));
+        return toMicros(score);
+    }
+
+    /**
+     * 把毫秒的TP评分转换成微秒
+     *
+     * @param score 毫秒的TP评分
+     * @return 微秒的TP评分
+     */
+    public static RankScore<Long> toMicros(final RankScore<Integer> score) {
+        return score == null ? null : new RankScore<>(toMicros(score.getFair()), toMicros(score.getPoor()), toMicros(score.getDisable()));
+    }
+
+    /**
+     * 毫秒转换成微秒
+     *
+     * @param millis 毫秒
+     * @return 微秒
+     */
+    protected static Long toMicros(final Integer millis) {
+        return millis == null ? null : millis * 1000L;
+    }
+
     /**
      * 计算TP评分
      *
@@ -32,14 +32,19 @@ import io.joyrpc.extension.URL;
 import io.joyrpc.metric.*;
 import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.util.SystemClock;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
-import static io.joyrpc.constants.Constants.ADAPTIVE_CLUSTER_TP;
-import static io.joyrpc.constants.Constants.ADAPTIVE_NODE_TP;
+import static io.joyrpc.constants.Constants.*;
+import static io.joyrpc.util.Timer.timer;
 
 /**
  * 自适应负载均衡
@@ -47,12 +52,12 @@ import static io.joyrpc.constants.Constants.ADAPTIVE_NODE_TP;
 @Extension(value = "adaptive")
 public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, DashboardAware, AdaptiveScorer {
 
-    public static final Function<TPSnapshot, Integer> TP30_FUNCTION = TPSnapshot::getTp30;
-    public static final Function<TPSnapshot, Integer> TP50_FUNCTION = TPSnapshot::getTp50;
-    public static final Function<TPSnapshot, Integer> TP90_FUNCTION = TPSnapshot::getTp90;
-    public static final Function<TPSnapshot, Integer> TP99_FUNCTION = TPSnapshot::getTp99;
-    public static final Function<TPSnapshot, Integer> TP999_FUNCTION = TPSnapshot::getTp999;
-    public static final Function<TPSnapshot, Integer> TPAVG_FUNCTION = TPSnapshot::getAvg;
+    public static final Function<TPSnapshot, Long> TP30_FUNCTION = TPSnapshot::getTp30Micros;
+    public static final Function<TPSnapshot, Long> TP50_FUNCTION = TPSnapshot::getTp50Micros;
+    public static final Function<TPSnapshot, Long> TP90_FUNCTION = TPSnapshot::getTp90Micros;
+    public static final Function<TPSnapshot, Long> TP99_FUNCTION = TPSnapshot::getTp99Micros;
+    public static final Function<TPSnapshot, Long> TP999_FUNCTION = TPSnapshot::getTp999Micros;
+    public static final Function<TPSnapshot, Long> TPAVG_FUNCTION = TPSnapshot::getAvgMicros;
 
     /**
      * URL
@@ -63,13 +68,22 @@ public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, Dashboard
      */
     protected Consumer<List<NodeRank>> recorder;
     /**
-     * 集群TP函数
+     * 集群TP函数(微秒)
      */
-    protected Function<TPSnapshot, Integer> clusterFunction;
+    protected Function<TPSnapshot, Long> clusterFunction;
     /**
-     * 节点TP函数
+     * 节点TP函数(微秒)
      */
-    protected Function<TPSnapshot, Integer> nodeFunction;
+    protected Function<TPSnapshot, Long> nodeFunction;
+
+    /**
+     * 是否预先计算评分
+     */
+    protected boolean precompute;
+    /**
+     * 方法的预先计算评分表
+     */
+    protected Map<String, ScoreTable> tables = new ConcurrentHashMap<>();
 
     /**
      * 接口
@@ -91,9 +105,10 @@ public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, Dashboard
     public void setup() {
         clusterFunction = getTpFunction(url.getString(ADAPTIVE_CLUSTER_TP), TP30_FUNCTION);
         nodeFunction = getTpFunction(url.getString(ADAPTIVE_NODE_TP), TP90_FUNCTION);
+        precompute = url.getBoolean(ADAPTIVE_PRECOMPUTE);
     }
 
-    protected Function<TPSnapshot, Integer> getTpFunction(final String type, final Function<TPSnapshot, Integer> def) {
+    protected Function<TPSnapshot, Long> getTpFunction(final String type, final Function<TPSnapshot, Long> def) {
         switch (type) {
             case "avg":
                 return TPAVG_FUNCTION;
@@ -152,7 +167,7 @@ public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, Dashboard
             result.setAvailabilityScore(AdaptiveConfig.computeAvailabilityScore(actives));
         }
         if (config.tpScore == null) {
-            result.setTpScore(AdaptiveConfig.computeTpScore(clusterFunction.apply(
+            result.setTpMicrosScore(AdaptiveConfig.computeTpMicrosScore(clusterFunction.apply(
                     cluster.getDashboard().getMethod(method).getSnapshot().getSnapshot())));
         }
         return result;
@@ -165,11 +180,21 @@ public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, Dashboard
         if (candidates == null || candidates.isEmpty()) {
             return null;
         }
-        //得到指标获取函数，增对不同的场景可能是节点或方法的
-        Function<Dashboard, TPWindow> metricFunction = apply(request);
-
         ConsumerMethodOption option = (ConsumerMethodOption) request.getOption();
         AdaptivePolicy policy = option.getAdaptivePolicy();
+        if (precompute) {
+            ScoreTable table = getTable(candidate, request, policy);
+            if (table != null) {
+                NodeRank rank = table.select();
+                if (rank != null) {
+                    rank.distribution();
+                    return rank.getNode();
+                }
+                return null;
+            }
+        }
+        //得到指标获取函数，增对不同的场景可能是节点或方法的
+        Function<Dashboard, TPWindow> metricFunction = apply(request);
         ClusterRank clusterRank = new ClusterRank(candidate.getCluster(), policy, metricFunction, nodeFunction);
         int size = candidates.size();
         //抽样随机打散，避免每次都拿到固定的节点
@@ -203,6 +228,85 @@ public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, Dashboard
         return null;
     }
 
+    /**
+     * 获取预先计算的评分表，评分表在集群的指标快照更新或者集群节点变更后在后台重新计算
+     *
+     * @param candidate 候选者
+     * @param request   请求
+     * @param policy    策略
+     * @return 评分表，候选者和评分表的节点不一致时(例如重试排除了节点，或者节点变更后正在重新计算)返回null，实时评分
+     */
+    protected ScoreTable getTable(final Candidate candidate, final RequestMessage<Invocation> request, final AdaptivePolicy policy) {
+        String method = request.getPayLoad().getMethodName();
+        List<Node> candidates = candidate.getNodes();
+        ScoreTable table = tables.get(method);
+        if (table == null || table.policy != policy) {
+            //首次或者策略变更，同步计算
+            table = build(candidate.getCluster(), candidates, request, policy);
+            tables.put(method, table);
+            return table;
+        } else if (!table.match(candidates)) {
+            //重试等场景从完整的候选者中排除了部分节点，其数量小于原始候选者数量，只是临时子集，不需要重新计算
+            if (candidates.size() >= candidate.getSize()) {
+                //集群节点变更，后台重新计算，当前请求实时评分
+                refresh(table, method, candidate, request, policy);
+            }
+            return null;
+        } else if (table.clusterMetric != table.clusterWindow.getSnapshot()) {
+            //指标快照已经更新，后台重新计算，当前请求继续使用旧的评分表
+            refresh(table, method, candidate, request, policy);
+        }
+        return table;
+    }
+
+    /**
+     * 后台重新计算评分表，同一个评分表只会触发一次重新计算
+     *
+     * @param table     当前评分表
+     * @param method    方法
+     * @param candidate 候选者
+     * @param request   请求
+     * @param policy    策略
+     */
+    protected void refresh(final ScoreTable table, final String method, final Candidate candidate,
+                           final RequestMessage<Invocation> request, final AdaptivePolicy policy) {
+        if (table.refreshing.compareAndSet(false, true)) {
+            List<Node> candidates = candidate.getNodes();
+            timer().add("AdaptiveScoreTable-" + method, SystemClock.now(), () -> {
+                try {
+                    tables.put(method, build(candidate.getCluster(), candidates, request, policy));
+                } catch (Throwable e) {
+                    //计算失败，允许后续请求再次触发
+                    table.refreshing.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * 对候选者全量评分，构建评分表
+     *
+     * @param cluster    集群
+     * @param candidates 候选者
+     * @param request    请求
+     * @param policy     策略
+     * @return 评分表
+     */
+    protected ScoreTable build(final Cluster cluster, final List<Node> candidates,
+                               final RequestMessage<Invocation> request, final AdaptivePolicy policy) {
+        Function<Dashboard, TPWindow> metricFunction = apply(request);
+        //先获取集群窗口的快照，确保评分之后发生的快照更新能触发重新计算
+        TPWindow clusterWindow = metricFunction.apply(cluster.getDashboard());
+        TPMetric clusterMetric = clusterWindow.getSnapshot();
+        ClusterRank clusterRank = new ClusterRank(cluster, policy, metricFunction, nodeFunction);
+        clusterRank.enoughGoods = 0;
+        clusterRank.score(candidates);
+        if (recorder != null) {
+            recorder.accept(clusterRank.ranks);
+        }
+        return new ScoreTable(candidates, policy, clusterWindow, clusterMetric, clusterRank.bestRanks);
+    }
+
     /**
      * 生成请求的指标，例如可以获取方法的指标
      *
@@ -236,7 +340,7 @@ public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, Dashboard
         /**
          * 节点TP函数
          */
-        protected Function<TPSnapshot, Integer> nodeFunction;
+        protected Function<TPSnapshot, Long> nodeFunction;
 
         /**
          * 构造函数
@@ -248,7 +352,7 @@ public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, Dashboard
          */
         public ClusterRank(final Cluster cluster, final AdaptivePolicy policy,
                            final Function<Dashboard, TPWindow> metricFunction,
-                           final Function<TPSnapshot, Integer> nodeFunction) {
+                           final Function<TPSnapshot, Long> nodeFunction) {
             this.cluster = cluster;
             this.policy = policy;
             this.metricFunction = metricFunction;
@@ -324,4 +428,107 @@ public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, Dashboard
 
     }
 
+    /**
+     * 预先计算的评分表，不可变，按照最佳评分节点的权重进行二分查找
+     */
+    protected static class ScoreTable {
+        //评分的候选者
+        protected final List<Node> candidates;
+        //策略
+        protected final AdaptivePolicy policy;
+        //集群窗口
+        protected final TPWindow clusterWindow;
+        //评分时集群窗口的快照
+        protected final TPMetric clusterMetric;
+        //最佳评分节点
+        protected final NodeRank[] ranks;
+        //累计权重
+        protected final int[] weights;
+        //总权重
+        protected final int totalWeight;
+        //是否在重新计算
+        protected final AtomicBoolean refreshing = new AtomicBoolean();
+
+        /**
+         * 构造函数
+         *
+         * @param candidates    评分的候选者
+         * @param policy        策略
+         * @param clusterWindow 集群窗口
+         * @param clusterMetric 评分时集群窗口的快照
+         * @param bestRanks     最佳评分节点
+         */
+        public ScoreTable(final List<Node> candidates, final AdaptivePolicy policy,
+                          final TPWindow clusterWindow, final TPMetric clusterMetric,
+                          final List<NodeRank> bestRanks) {
+            this.candidates = candidates;
+            this.policy = policy;
+            this.clusterWindow = clusterWindow;
+            this.clusterMetric = clusterMetric;
+            this.ranks = bestRanks.toArray(new NodeRank[0]);
+            this.weights = new int[ranks.length];
+            int total = 0;
+            for (int i = 0; i < ranks.length; i++) {
+                total += Math.max(ranks[i].getWeight(), 0);
+                weights[i] = total;
+            }
+            this.totalWeight = total;
+        }
+
+        /**
+         * 判断候选者是否和评分的候选者一致
+         *
+         * @param nodes 候选者
+         * @return 一致标识
+         */
+        public boolean match(final List<Node> nodes) {
+            if (nodes == candidates) {
+                return true;
+            } else if (nodes.size() != candidates.size()) {
+                return false;
+            }
+            //按照下标比较，避免创建迭代器
+            for (int i = 0; i < nodes.size(); i++) {
+                if (nodes.get(i) != candidates.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 加权随机选择
+         *
+         * @return 节点评分
+         */
+        public NodeRank select() {
+            switch (ranks.length) {
+                case 0:
+                    return null;
+                case 1:
+                    return ranks[0];
+                default:
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    if (totalWeight <= 0) {
+                        //权重和不大于零,直接退化为随机
+                        return ranks[random.nextInt(ranks.length)];
+                    }
+                    int value = random.nextInt(totalWeight);
+                    //二分查找第一个累计权重大于随机数的节点
+                    int low = 0;
+                    int high = weights.length - 1;
+                    int mid;
+                    while (low < high) {
+                        mid = (low + high) >>> 1;
+                        if (weights[mid] > value) {
+                            high = mid;
+                        } else {
+                            low = mid + 1;
+                        }
+                    }
+                    return ranks[low];
+            }
+        }
+    }
+
 }
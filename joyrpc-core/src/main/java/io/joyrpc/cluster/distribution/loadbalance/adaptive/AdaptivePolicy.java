@@ -53,9 +53,9 @@ public class AdaptivePolicy {
      */
     protected RankScore<Long> qpsScore;
     /**
-     * TP评分基线
+     * TP评分基线，单位微秒
      */
-    protected RankScore<Integer> tpScore;
+    protected RankScore<Long> tpScore;
     /**
      * 可用率评分基线
      */
@@ -94,7 +94,8 @@ public class AdaptivePolicy {
         this.enoughGoods = config.getEnoughGoods();
         this.concurrencyScore = config.getConcurrencyScore();
         this.qpsScore = config.getQpsScore();
-        this.tpScore = config.getTpScore();
+        //优先使用配置的毫秒评分，否则使用计算的微秒评分
+        this.tpScore = config.getTpScore() != null ? AdaptiveConfig.toMicros(config.getTpScore()) : config.getTpMicrosScore();
         this.availabilityScore = config.getAvailabilityScore();
         this.decubation = config.getDecubation();
         this.exclusionRooms = config.getExclusionRooms();
@@ -134,7 +135,7 @@ public class AdaptivePolicy {
         return qpsScore;
     }
 
-    public RankScore<Integer> getTpScore() {
+    public RankScore<Long> getTpScore() {
         return tpScore;
     }
 
@@ -56,7 +56,7 @@ public class NodeRank extends NodeMetric {
      */
     public NodeRank(Node node, Cluster cluster,
                     Function<Dashboard, TPWindow> function,
-                    Function<TPSnapshot, Integer> nodeFunction) {
+                    Function<TPSnapshot, Long> nodeFunction) {
         super(node, cluster, function, nodeFunction);
     }
 
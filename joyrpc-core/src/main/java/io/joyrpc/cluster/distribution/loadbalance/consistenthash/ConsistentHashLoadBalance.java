@@ -0,0 +1,402 @@
+package io.joyrpc.cluster.distribution.loadbalance.consistenthash;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Cluster;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.distribution.LoadBalance;
+import io.joyrpc.expression.Expression;
+import io.joyrpc.expression.ExpressionProvider;
+import io.joyrpc.extension.Extension;
+import io.joyrpc.extension.URL;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static io.joyrpc.Plugin.EXPRESSION_PROVIDER;
+import static io.joyrpc.constants.Constants.*;
+
+/**
+ * 一致性哈希负载均衡，按照参数表达式计算哈希键，每个节点映射多个虚拟节点。<br/>
+ * 支持有界负载，节点在途请求数超过平均值的(1+系数)倍时顺时针溢出到下一个节点；<br/>
+ * 哈希环按照集群的全部可用节点构建，集群节点变化时只增删变化节点的虚拟节点，不重新计算整个哈希环；<br/>
+ * 候选者是子集(例如重试排除了节点)时，顺时针跳过不在候选者中的节点，不重建哈希环
+ */
+@Extension("consistentHash")
+public class ConsistentHashLoadBalance implements LoadBalance {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsistentHashLoadBalance.class);
+
+    /**
+     * MD5摘要，用于计算虚拟节点位置
+     */
+    protected static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    /**
+     * URL
+     */
+    protected URL url;
+    /**
+     * 哈希键表达式
+     */
+    protected Expression expression;
+    /**
+     * 每个节点的虚拟节点数
+     */
+    protected int virtualNodes;
+    /**
+     * 有界负载系数
+     */
+    protected double loadFactor;
+    /**
+     * 哈希环
+     */
+    protected volatile Ring ring = new Ring(Collections.emptyList(), new HashMap<>(), new int[0], new Node[0]);
+
+    @Override
+    public void setUrl(final URL url) {
+        this.url = url;
+    }
+
+    @Override
+    public void setup() {
+        virtualNodes = Math.max(1, url == null ? CONSISTENT_HASH_VIRTUAL_NODES.getValue() : url.getPositiveInt(CONSISTENT_HASH_VIRTUAL_NODES));
+        //MD5每次摘要生成4个位置
+        virtualNodes = (virtualNodes + 3) / 4 * 4;
+        loadFactor = url == null ? CONSISTENT_HASH_LOAD_FACTOR.getValue() : url.getDouble(CONSISTENT_HASH_LOAD_FACTOR);
+        String el = url == null ? null : url.getString(CONSISTENT_HASH_EXPRESSION);
+        el = el == null ? null : el.trim();
+        if (el != null && !el.isEmpty()) {
+            String engine = url.getString(CONSISTENT_HASH_ENGINE);
+            try {
+                ExpressionProvider provider = engine == null || engine.isEmpty() ? EXPRESSION_PROVIDER.get() : EXPRESSION_PROVIDER.get(engine);
+                expression = provider == null ? null : provider.build(el);
+            } catch (Exception e) {
+                logger.error(String.format("Error occurs while build expression for %s", el), e);
+            }
+        }
+    }
+
+    @Override
+    public Node select(final Candidate candidate, final RequestMessage<Invocation> request) {
+        List<Node> nodes = candidate.getNodes();
+        int size = nodes == null ? 0 : nodes.size();
+        switch (size) {
+            case 0:
+                return null;
+            case 1:
+                return nodes.get(0);
+            default:
+                //哈希环和集群的节点保持一致，避免重试等临时子集导致哈希环来回重建
+                Cluster cluster = candidate.getCluster();
+                Node result = getRing(cluster == null ? nodes : cluster.getNodes())
+                        .select(hash(key(request.getPayLoad())), loadFactor, nodes);
+                return result == null ? nodes.get(0) : result;
+        }
+    }
+
+    /**
+     * 获取哈希环，集群节点发生变化则增量更新
+     *
+     * @param nodes 集群节点
+     * @return 哈希环
+     */
+    protected Ring getRing(final List<Node> nodes) {
+        Ring result = ring;
+        if (!result.matches(nodes)) {
+            result = result.update(nodes, this::points);
+            ring = result;
+        }
+        return result;
+    }
+
+    /**
+     * 计算节点的虚拟节点位置
+     *
+     * @param node 节点
+     * @return 虚拟节点位置
+     */
+    protected int[] points(final Node node) {
+        int[] result = new int[virtualNodes];
+        MessageDigest md5 = MD5.get();
+        String name = node.getName();
+        for (int i = 0; i < virtualNodes / 4; i++) {
+            md5.reset();
+            byte[] digest = md5.digest((name + "#" + i).getBytes(StandardCharsets.UTF_8));
+            for (int j = 0; j < 4; j++) {
+                result[i * 4 + j] = (digest[j * 4 + 3] & 0xFF) << 24
+                        | (digest[j * 4 + 2] & 0xFF) << 16
+                        | (digest[j * 4 + 1] & 0xFF) << 8
+                        | (digest[j * 4] & 0xFF);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 计算哈希键，没有配置表达式或表达式计算出错则使用第一个参数，无参则使用方法名
+     *
+     * @param invocation 调用
+     * @return 哈希键
+     */
+    protected Object key(final Invocation invocation) {
+        Object[] args = invocation.getArgs();
+        Object def = args == null || args.length == 0 ? invocation.getMethodName() : args[0];
+        if (expression == null) {
+            return def;
+        }
+        Method method = invocation.getMethod();
+        Map<String, Object> context = new HashMap<>();
+        if (method != null && args != null) {
+            Parameter[] parameters = method.getParameters();
+            for (int i = 0; i < parameters.length && i < args.length; i++) {
+                context.put(parameters[i].getName(), args[i]);
+            }
+        }
+        context.put("args", args);
+        try {
+            return expression.evaluate(context);
+        } catch (Exception e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug(String.format("Error occurs while evaluate hash key of %s.%s", invocation.getClassName(), invocation.getMethodName()), e);
+            }
+            return def;
+        }
+    }
+
+    /**
+     * 计算哈希值，与equals保持一致，数组按元素计算，再做一次混合使其在环上分布均匀
+     *
+     * @param key 哈希键
+     * @return 哈希值
+     */
+    protected int hash(final Object key) {
+        //基本类型数组包装一层，由deepHashCode按元素计算
+        int h = key == null ? 0 : (key.getClass().isArray() ? Arrays.deepHashCode(new Object[]{key}) : key.hashCode());
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * 哈希环，不可变对象，节点变化时生成新的哈希环
+     */
+    protected static class Ring {
+        /**
+         * 构建该环的节点列表
+         */
+        protected final List<Node> source;
+        /**
+         * 节点名称和节点映射
+         */
+        protected final Map<String, Node> members;
+        /**
+         * 有序的虚拟节点位置
+         */
+        protected final int[] points;
+        /**
+         * 虚拟节点对应的节点
+         */
+        protected final Node[] owners;
+        /**
+         * 最近一次校验过和该环节点一致的候选者列表，减少重复比较
+         */
+        protected volatile List<Node> alias;
+
+        public Ring(final List<Node> source, final Map<String, Node> members, final int[] points, final Node[] owners) {
+            this.source = source;
+            this.members = members;
+            this.points = points;
+            this.owners = owners;
+        }
+
+        /**
+         * 判断节点是否和哈希环一致
+         *
+         * @param nodes 节点
+         * @return 一致标识
+         */
+        public boolean matches(final List<Node> nodes) {
+            if (nodes == source) {
+                return true;
+            } else if (nodes.size() != members.size()) {
+                return false;
+            }
+            for (Node node : nodes) {
+                if (members.get(node.getName()) != node) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 增量更新，保留未变化节点的虚拟节点，删除下线节点，合并新增节点
+         *
+         * @param nodes    最新节点
+         * @param function 虚拟节点位置函数
+         * @return 新的哈希环
+         */
+        public Ring update(final List<Node> nodes, final Function<Node, int[]> function) {
+            Map<String, Node> current = new HashMap<>(nodes.size() * 4 / 3 + 1);
+            List<Node> added = new LinkedList<>();
+            for (Node node : nodes) {
+                current.put(node.getName(), node);
+                if (!members.containsKey(node.getName())) {
+                    added.add(node);
+                }
+            }
+            //保留的虚拟节点，节点对象替换为最新实例
+            int kept = 0;
+            int[] keptPoints = new int[points.length];
+            Node[] keptOwners = new Node[points.length];
+            Node node;
+            for (int i = 0; i < points.length; i++) {
+                node = current.get(owners[i].getName());
+                if (node != null) {
+                    keptPoints[kept] = points[i];
+                    keptOwners[kept++] = node;
+                }
+            }
+            //新增节点的虚拟节点排序，高32位为位置，低32位为新增节点索引
+            Node[] addedNodes = added.toArray(new Node[0]);
+            long[] addedPoints = new long[0];
+            if (addedNodes.length > 0) {
+                int[][] values = new int[addedNodes.length][];
+                int count = 0;
+                for (int i = 0; i < addedNodes.length; i++) {
+                    values[i] = function.apply(addedNodes[i]);
+                    count += values[i].length;
+                }
+                addedPoints = new long[count];
+                int pos = 0;
+                for (int i = 0; i < values.length; i++) {
+                    for (int value : values[i]) {
+                        addedPoints[pos++] = ((long) value << 32) | i;
+                    }
+                }
+                Arrays.sort(addedPoints);
+            }
+            //归并
+            int total = kept + addedPoints.length;
+            int[] newPoints = new int[total];
+            Node[] newOwners = new Node[total];
+            int i = 0, j = 0, k = 0;
+            while (i < kept || j < addedPoints.length) {
+                if (j >= addedPoints.length || (i < kept && keptPoints[i] <= (int) (addedPoints[j] >> 32))) {
+                    newPoints[k] = keptPoints[i];
+                    newOwners[k++] = keptOwners[i++];
+                } else {
+                    newPoints[k] = (int) (addedPoints[j] >> 32);
+                    newOwners[k++] = addedNodes[(int) addedPoints[j++]];
+                }
+            }
+            return new Ring(nodes, current, newPoints, newOwners);
+        }
+
+        /**
+         * 构建候选者过滤器，候选者和哈希环的节点一致时返回null
+         *
+         * @param candidates 候选者
+         * @return 过滤器
+         */
+        protected Predicate<Node> filter(final List<Node> candidates) {
+            if (candidates == source || candidates == alias) {
+                return null;
+            } else if (matches(candidates)) {
+                alias = candidates;
+                return null;
+            }
+            Set<String> names = new HashSet<>(candidates.size() * 4 / 3 + 1);
+            for (Node node : candidates) {
+                names.add(node.getName());
+            }
+            return o -> names.contains(o.getName());
+        }
+
+        /**
+         * 选择节点，从哈希值顺时针查找第一个在候选者中并且未超过负载上限的节点
+         *
+         * @param hash       哈希值
+         * @param loadFactor 有界负载系数
+         * @param candidates 候选者，可以是哈希环节点的子集
+         * @return 节点，候选者都不在哈希环中返回null
+         */
+        public Node select(final int hash, final double loadFactor, final List<Node> candidates) {
+            int length = points.length;
+            if (length == 0) {
+                return null;
+            }
+            Predicate<Node> filter = filter(candidates);
+            int index = Arrays.binarySearch(points, hash);
+            index = index < 0 ? -index - 1 : index;
+            index = index == length ? 0 : index;
+            Node first = null;
+            Node node;
+            //跳过不在候选者中的节点
+            for (int i = 0; i < length; i++) {
+                node = owners[index];
+                if (filter == null || filter.test(node)) {
+                    first = node;
+                    break;
+                }
+                index = index + 1 == length ? 0 : index + 1;
+            }
+            if (first == null || loadFactor <= 0) {
+                return first;
+            }
+            long inflight = 0;
+            for (Node candidate : candidates) {
+                inflight += candidate.getRequests();
+            }
+            //加上本次请求后的上限，按照候选者计算平均值
+            double limit = Math.ceil((1 + loadFactor) * (inflight + 1) / candidates.size());
+            for (int i = 0; i < length; i++) {
+                node = owners[(index + i) % length];
+                if ((filter == null || filter.test(node)) && node.getRequests() + 1 <= limit) {
+                    return node;
+                }
+            }
+            return first;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package io.joyrpc.cluster.distribution.loadbalance.p2c;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.distribution.LoadBalance;
+import io.joyrpc.cluster.distribution.loadbalance.RandomWeight;
+import io.joyrpc.extension.Extension;
+import io.joyrpc.extension.URL;
+import io.joyrpc.metric.Dashboard;
+import io.joyrpc.metric.DashboardAware;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+
+import java.util.List;
+
+import static io.joyrpc.constants.Constants.P2C_LATENCY_AWARE;
+
+/**
+ * 两次随机选择负载均衡，按照权重(包括预热权重)随机选择两个节点，选择在途请求数少的节点，
+ * 可以按照节点耗时的指数加权移动平均值进行加权，避免单个节点卡顿(例如GC)造成的长尾
+ */
+@Extension("p2c")
+public class PowerOfTwoLoadBalance implements LoadBalance, DashboardAware {
+
+    /**
+     * 第二次选择到相同节点的重试次数
+     */
+    protected static final int RETRIES = 3;
+
+    /**
+     * URL
+     */
+    protected URL url;
+    /**
+     * 是否按照耗时加权
+     */
+    protected boolean latencyAware;
+
+    @Override
+    public void setUrl(final URL url) {
+        this.url = url;
+    }
+
+    @Override
+    public void setup() {
+        latencyAware = url != null && url.getBoolean(P2C_LATENCY_AWARE);
+    }
+
+    @Override
+    public boolean isDashboardRequired() {
+        return latencyAware;
+    }
+
+    @Override
+    public Node select(final Candidate candidate, final RequestMessage<Invocation> request) {
+        List<Node> nodes = candidate.getNodes();
+        int size = nodes == null ? 0 : nodes.size();
+        switch (size) {
+            case 0:
+                return null;
+            case 1:
+                return nodes.get(0);
+            default:
+                Node first = RandomWeight.select(nodes);
+                Node second = null;
+                for (int i = 0; i < RETRIES && (second == null || second == first); i++) {
+                    second = RandomWeight.select(nodes);
+                }
+                if (second == null || second == first) {
+                    return first;
+                }
+                return cost(second) < cost(first) ? second : first;
+        }
+    }
+
+    /**
+     * 计算节点的代价，(在途请求数+1)*耗时
+     *
+     * @param node 节点
+     * @return 代价
+     */
+    protected long cost(final Node node) {
+        long requests = node.getRequests() + 1L;
+        if (!latencyAware) {
+            return requests;
+        }
+        Dashboard dashboard = node.getDashboard();
+        long latency = dashboard == null ? 0 : dashboard.getMetric().getEwmaMicros();
+        //没有耗时数据的节点(例如刚上线)按照1微秒计算，优先让其获取流量
+        return requests * Math.max(latency, 1L);
+    }
+}
@@ -21,21 +21,53 @@ package io.joyrpc.cluster.distribution.loadbalance.randomweight;
  */
 
 import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Cluster;
 import io.joyrpc.cluster.Node;
 import io.joyrpc.cluster.distribution.LoadBalance;
+import io.joyrpc.cluster.distribution.loadbalance.AliasTable;
 import io.joyrpc.cluster.distribution.loadbalance.RandomWeight;
 import io.joyrpc.extension.Extension;
 import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.RequestMessage;
 
+import java.util.List;
+
 /**
  * 加权随机负载均衡
  */
 @Extension("randomWeight")
 public class RandomWeightLoadBalance implements LoadBalance {
 
+    /**
+     * 别名表，完整的候选者列表或集群的权重变化后重建
+     */
+    protected volatile AliasTable<Node> table;
+
     @Override
     public Node select(final Candidate candidate, final RequestMessage<Invocation> request) {
-        return RandomWeight.select(candidate.getNodes());
+        List<Node> nodes = candidate.getNodes();
+        int size = nodes == null ? 0 : nodes.size();
+        switch (size) {
+            case 0:
+                return null;
+            case 1:
+                return nodes.get(0);
+            default:
+                Cluster cluster = candidate.getCluster();
+                if (cluster == null) {
+                    return RandomWeight.select(nodes);
+                }
+                long version = cluster.getWeightVersion();
+                AliasTable<Node> result = table;
+                if (result != null && result.matches(nodes, version)) {
+                    return result.select();
+                } else if (size < candidate.getSize()) {
+                    //重试等场景从完整的候选者中排除了部分节点，只是临时子集，直接线性选择，不替换缓存
+                    return RandomWeight.select(nodes);
+                }
+                result = new AliasTable<>(nodes, version);
+                table = result;
+                return result.select();
+        }
     }
 }
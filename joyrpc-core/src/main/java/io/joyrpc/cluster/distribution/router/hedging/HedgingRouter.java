@@ -0,0 +1,295 @@
+package io.joyrpc.cluster.distribution.router.hedging;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.Result;
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Cluster;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.distribution.Router;
+import io.joyrpc.cluster.distribution.router.AbstractRouter;
+import io.joyrpc.extension.Extension;
+import io.joyrpc.metric.Dashboard;
+import io.joyrpc.metric.TPMetric;
+import io.joyrpc.metric.TPSnapshot;
+import io.joyrpc.metric.TPWindow;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.util.Timer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static io.joyrpc.cluster.distribution.Router.HEDGING;
+import static io.joyrpc.constants.Constants.*;
+import static io.joyrpc.util.StripedTimer.timer;
+
+/**
+ * 对冲调用，先向一个节点发起请求，超过方法的TP值还没有应答，再向其它节点发起对冲请求，
+ * 任意一个请求成功则取消其余的请求。对冲请求数受集群级别的预算限制，避免放大提供者的负载
+ */
+@Extension(value = HEDGING, order = Router.ORDER_HEDGING)
+public class HedgingRouter extends AbstractRouter {
+
+    /**
+     * 令牌精度，1个对冲请求对应的令牌数
+     */
+    protected static final long TOKEN_UNIT = 1000;
+    /**
+     * 最多积累的令牌数，限制突发的对冲请求
+     */
+    protected static final long MAX_TOKENS = 10 * TOKEN_UNIT;
+
+    /**
+     * TP函数(微秒)
+     */
+    protected Function<TPSnapshot, Long> percentile;
+    /**
+     * 最小延迟(毫秒)
+     */
+    protected long minDelay;
+    /**
+     * 最大请求数
+     */
+    protected int maxAttempts;
+    /**
+     * 每个首次请求存入的令牌数
+     */
+    protected long deposit;
+    /**
+     * 对冲预算令牌
+     */
+    protected final AtomicLong tokens = new AtomicLong();
+
+    @Override
+    public void setup() {
+        percentile = getPercentile(url == null ? HEDGE_PERCENTILE.getValue() : url.getString(HEDGE_PERCENTILE));
+        minDelay = url == null ? HEDGE_MIN_DELAY.getValue() : url.getPositiveInt(HEDGE_MIN_DELAY);
+        maxAttempts = url == null ? HEDGE_MAX_ATTEMPTS.getValue() : url.getPositiveInt(HEDGE_MAX_ATTEMPTS);
+        double budget = url == null ? HEDGE_BUDGET.getValue() : url.getDouble(HEDGE_BUDGET);
+        deposit = budget <= 0 ? 0 : (long) (Math.min(budget, 1.0) * TOKEN_UNIT);
+    }
+
+    /**
+     * 获取TP函数
+     *
+     * @param type 类型
+     * @return TP函数
+     */
+    protected Function<TPSnapshot, Long> getPercentile(final String type) {
+        Function<TPSnapshot, Long> result = TPSnapshot.percentile(type);
+        return result == null ? TPSnapshot::getTp90Micros : result;
+    }
+
+    @Override
+    public CompletableFuture<Result> route(final RequestMessage<Invocation> request, final Candidate candidate) {
+        Node node = loadBalance.select(candidate, request);
+        if (deposit > 0 && tokens.get() < MAX_TOKENS) {
+            tokens.addAndGet(deposit);
+        }
+        List<Node> nodes = candidate.getNodes();
+        if (node == null || maxAttempts <= 1 || deposit <= 0 || nodes == null || nodes.size() <= 1) {
+            return operation.apply(node, null, request);
+        }
+        long delay = getDelay(candidate.getCluster(), request);
+        int timeout = request.getHeader().getTimeout();
+        if (timeout > 0 && delay >= timeout) {
+            //超时前来不及对冲
+            return operation.apply(node, null, request);
+        }
+        return new Hedge(request, candidate, delay).start(node);
+    }
+
+    /**
+     * 根据方法的TP值计算对冲延迟(毫秒)
+     *
+     * @param cluster 集群
+     * @param request 请求
+     * @return 延迟
+     */
+    protected long getDelay(final Cluster cluster, final RequestMessage<Invocation> request) {
+        Dashboard dashboard = cluster == null ? null : cluster.getDashboard();
+        TPWindow window = dashboard == null ? null : dashboard.getMethod(request.getMethodName());
+        TPMetric metric = window == null ? null : window.getSnapshot();
+        TPSnapshot snapshot = metric == null ? null : metric.getSnapshot();
+        if (snapshot == null || snapshot.getRequests() <= 0) {
+            return minDelay;
+        }
+        return Math.max(minDelay, (percentile.apply(snapshot) + 999) / 1000);
+    }
+
+    /**
+     * 获取对冲令牌
+     *
+     * @return 成功标识
+     */
+    protected boolean acquire() {
+        long value;
+        do {
+            value = tokens.get();
+            if (value < TOKEN_UNIT) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(value, value - TOKEN_UNIT));
+        return true;
+    }
+
+    /**
+     * 单次对冲调用
+     */
+    protected class Hedge {
+        /**
+         * 请求
+         */
+        protected final RequestMessage<Invocation> request;
+        /**
+         * 候选者
+         */
+        protected final Candidate candidate;
+        /**
+         * 对冲延迟(毫秒)
+         */
+        protected final long delay;
+        /**
+         * 结果
+         */
+        protected final CompletableFuture<Result> result = new CompletableFuture<>();
+        /**
+         * 已经发起的请求
+         */
+        protected final CompletableFuture<Result>[] futures;
+        /**
+         * 已经调用的节点
+         */
+        protected final List<Node> nodes;
+        /**
+         * 已经发起的请求数
+         */
+        protected int attempts;
+        /**
+         * 未完成的请求数
+         */
+        protected int inflights;
+        /**
+         * 对冲定时任务
+         */
+        protected Timer.Timeout timeout;
+
+        public Hedge(final RequestMessage<Invocation> request, final Candidate candidate, final long delay) {
+            this.request = request;
+            this.candidate = candidate;
+            this.delay = delay;
+            this.futures = new CompletableFuture[maxAttempts];
+            this.nodes = new ArrayList<>(maxAttempts);
+        }
+
+        /**
+         * 发起首次请求
+         *
+         * @param node 节点
+         * @return 结果
+         */
+        public CompletableFuture<Result> start(final Node node) {
+            synchronized (this) {
+                send(node);
+            }
+            return result;
+        }
+
+        /**
+         * 发起请求，调用方持有锁
+         *
+         * @param node 节点
+         */
+        protected void send(final Node node) {
+            int index = attempts++;
+            nodes.add(node);
+            inflights++;
+            if (attempts < maxAttempts) {
+                timeout = timer().delay(delay, this::hedge);
+            }
+            CompletableFuture<Result> future = operation.apply(node, null, request);
+            futures[index] = future;
+            future.whenComplete((r, error) -> onComplete(index, r, error));
+        }
+
+        /**
+         * 定时发起对冲请求
+         */
+        protected void hedge() {
+            synchronized (this) {
+                if (result.isDone() || !acquire()) {
+                    return;
+                }
+                List<Node> remains = new ArrayList<>(candidate.getNodes());
+                remains.removeAll(nodes);
+                Node node = remains.isEmpty() ? null : loadBalance.select(new Candidate(candidate, remains), request);
+                if (node == null) {
+                    //没有可用节点，归还令牌
+                    tokens.addAndGet(TOKEN_UNIT);
+                    return;
+                }
+                send(node);
+            }
+        }
+
+        /**
+         * 请求完成
+         *
+         * @param index 请求序号
+         * @param r     结果
+         * @param error 异常
+         */
+        protected void onComplete(final int index, final Result r, final Throwable error) {
+            Result value;
+            synchronized (this) {
+                inflights--;
+                if (result.isDone()) {
+                    return;
+                } else if (error == null && !r.isException()) {
+                    value = r;
+                } else if (inflights == 0) {
+                    //没有在途请求，失败交由上层的重试处理，不再发起对冲
+                    value = error != null ? new Result(request.getContext(), error) : r;
+                } else {
+                    return;
+                }
+                if (timeout != null) {
+                    timeout.cancel();
+                }
+            }
+            if (result.complete(value)) {
+                //取消其余的请求
+                CompletableFuture<Result> future;
+                for (int i = 0; i < futures.length; i++) {
+                    future = futures[i];
+                    if (i != index && future != null) {
+                        future.cancel(false);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package io.joyrpc.cluster.distribution.selector;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Cluster;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.distribution.NodeSelector;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 路由候选者缓存，按照方法和选择器的缓存键缓存选择结果。<br/>
+ * 集群节点变化后会生成新的节点列表，按照节点列表实例判断是否失效，选择器配置变化后缓存键跟着变化
+ */
+public class CandidateCache {
+
+    /**
+     * 没有选择器的缓存键
+     */
+    protected static final Object NONE = new Object();
+    /**
+     * 每个方法最多缓存的选择结果数
+     */
+    protected static final int MAX_KEYS = 64;
+
+    /**
+     * 集群
+     */
+    protected final Cluster cluster;
+    /**
+     * 节点选择器
+     */
+    protected final NodeSelector selector;
+    /**
+     * 方法缓存
+     */
+    protected final Map<String, Route> routes = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param cluster  集群
+     * @param selector 节点选择器
+     */
+    public CandidateCache(final Cluster cluster, final NodeSelector selector) {
+        this.cluster = cluster;
+        this.selector = selector;
+    }
+
+    /**
+     * 获取候选者
+     *
+     * @param nodes   集群节点
+     * @param request 请求
+     * @return 候选者
+     */
+    public Candidate get(final List<Node> nodes, final RequestMessage<Invocation> request) {
+        Object key = selector == null ? NONE : selector.getCacheKey(request);
+        if (key == null) {
+            //不能缓存
+            return select(nodes, request);
+        }
+        String methodName = request.getMethodName();
+        methodName = methodName == null ? request.getPayLoad().getMethodName() : methodName;
+        Route route = routes.get(methodName);
+        if (route == null) {
+            route = routes.computeIfAbsent(methodName, o -> new Route());
+        }
+        Candidate result = route.get(nodes, key);
+        if (result == null) {
+            result = select(nodes, request);
+            route.put(nodes, key, result);
+        }
+        return result;
+    }
+
+    /**
+     * 选择节点
+     *
+     * @param nodes   集群节点
+     * @param request 请求
+     * @return 候选者
+     */
+    protected Candidate select(final List<Node> nodes, final RequestMessage<Invocation> request) {
+        List<Node> result = nodes;
+        if (!nodes.isEmpty() && selector != null) {
+            //路由选择
+            result = selector.select(new Candidate(cluster, null, nodes, nodes.size()), request);
+            result = result == null ? new ArrayList<>(0) : result;
+        }
+        return new Candidate(cluster, null, result, result.size());
+    }
+
+    /**
+     * 方法的选择结果
+     */
+    protected static class Route {
+        /**
+         * 快照
+         */
+        protected volatile Snapshot snapshot = new Snapshot(null);
+
+        /**
+         * 获取缓存的候选者
+         *
+         * @param nodes 集群节点
+         * @param key   缓存键
+         * @return 候选者
+         */
+        public Candidate get(final List<Node> nodes, final Object key) {
+            Snapshot s = snapshot;
+            return s.nodes == nodes ? s.candidates.get(key) : null;
+        }
+
+        /**
+         * 缓存候选者
+         *
+         * @param nodes     集群节点
+         * @param key       缓存键
+         * @param candidate 候选者
+         */
+        public void put(final List<Node> nodes, final Object key, final Candidate candidate) {
+            Snapshot s = snapshot;
+            if (s.nodes != nodes) {
+                //集群节点发生变化
+                s = new Snapshot(nodes);
+                snapshot = s;
+            } else if (s.candidates.size() >= MAX_KEYS) {
+                s.candidates.clear();
+            }
+            s.candidates.put(key, candidate);
+        }
+    }
+
+    /**
+     * 集群节点对应的选择结果
+     */
+    protected static class Snapshot {
+        /**
+         * 集群节点
+         */
+        protected final List<Node> nodes;
+        /**
+         * 缓存键对应的候选者
+         */
+        protected final Map<Object, Candidate> candidates = new ConcurrentHashMap<>();
+
+        public Snapshot(final List<Node> nodes) {
+            this.nodes = nodes;
+        }
+    }
+}
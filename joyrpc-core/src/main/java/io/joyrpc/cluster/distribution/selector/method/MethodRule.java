@@ -0,0 +1,62 @@
+package io.joyrpc.cluster.distribution.selector.method;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Shard;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+
+import java.util.function.BiPredicate;
+
+/**
+ * 方法路由规则，记录规则是否包含参数条件
+ */
+public class MethodRule implements BiPredicate<Shard, RequestMessage<Invocation>> {
+
+    /**
+     * 规则谓词
+     */
+    protected final BiPredicate<Shard, RequestMessage<Invocation>> predicate;
+    /**
+     * 是否包含参数条件
+     */
+    protected final boolean argument;
+
+    public MethodRule(final BiPredicate<Shard, RequestMessage<Invocation>> predicate, final boolean argument) {
+        this.predicate = predicate;
+        this.argument = argument;
+    }
+
+    @Override
+    public boolean test(final Shard shard, final RequestMessage<Invocation> request) {
+        return predicate.test(shard, request);
+    }
+
+    /**
+     * 是否包含参数条件，包含参数条件的规则选择结果和每次请求的参数相关
+     *
+     * @return 参数条件标识
+     */
+    public boolean isArgument() {
+        return argument;
+    }
+}
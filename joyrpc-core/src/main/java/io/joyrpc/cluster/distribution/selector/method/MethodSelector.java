@@ -39,6 +39,12 @@ import java.util.function.BiPredicate;
  */
 @Extension(value = "methodRouter")
 public class MethodSelector implements NodeSelector {
+
+    /**
+     * 没有路由规则的缓存键
+     */
+    protected static final Object NONE = new Object();
+
     /**
      * URL配置
      */
@@ -58,6 +64,19 @@ public class MethodSelector implements NodeSelector {
         this.className = className;
     }
 
+    @Override
+    public Object getCacheKey(final RequestMessage<Invocation> request) {
+        ConsumerMethodOption option = (ConsumerMethodOption) request.getOption();
+        BiPredicate<Shard, RequestMessage<Invocation>> predicate = option.getSelector();
+        if (predicate == null) {
+            return NONE;
+        } else if (predicate instanceof MethodRule && !((MethodRule) predicate).isArgument()) {
+            //没有参数条件，选择结果只和方法及规则相关，规则变更后缓存键也跟着变化
+            return predicate;
+        }
+        return null;
+    }
+
     @Override
     public List<Node> select(final Candidate candidate, final RequestMessage<Invocation> request) {
         ConsumerMethodOption option = (ConsumerMethodOption) request.getOption();
@@ -125,6 +125,7 @@ public class MethodSelectorBuilder {
      */
     public static BiPredicate<Shard, RequestMessage<Invocation>> build(final String json) {
         BiPredicate<Shard, RequestMessage<Invocation>> predicate = null;
+        boolean argument = false;
         if (json != null && !json.isEmpty()) {
             //json反序列化为Map
             Map<String, String> map = JSON.get().parseObject(json, Map.class);
@@ -135,13 +136,26 @@ public class MethodSelectorBuilder {
                     //遍历map的value生成then谓词
                     BiPredicate<Shard, RequestMessage<Invocation>> thenCond = buildThen(entry.getValue());
                     if (thenCond != null) {
+                        argument = argument || isArgument(entry.getKey());
                         //when不匹配，或者when匹配then匹配，返回true
                         predicate = predicate == null ? whenCond.negate().or(thenCond) : predicate.and(whenCond.negate().or(thenCond));
                     }
                 }
             }
         }
-        return predicate;
+        return predicate == null ? null : new MethodRule(predicate, argument);
+    }
+
+    /**
+     * 是否是参数条件
+     *
+     * @param condition
+     * @return
+     */
+    protected static boolean isArgument(final String condition) {
+        return !condition.startsWith(WHEN_FLAG_METHOD)
+                && !condition.contains(WHEN_CONDITION_FLAG_IP)
+                && condition.contains(WHEN_CONDITION_FLAG_ARG);
     }
 
     /**
@@ -63,6 +63,13 @@ public class TagSelector implements NodeSelector {
         this.tagValue = url.getString(tagKey);
     }
 
+    @Override
+    public Object getCacheKey(final RequestMessage<Invocation> request) {
+        //选择结果只和标签相关
+        String tag = request.getPayLoad().getAttachment(tagKey, tagValue);
+        return tag == null ? "" : tag;
+    }
+
     @Override
     public List<Node> select(Candidate candidate, RequestMessage<Invocation> request) {
         String tag = request.getPayLoad().getAttachment(tagKey, tagValue);
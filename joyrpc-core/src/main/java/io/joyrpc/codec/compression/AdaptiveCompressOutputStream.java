@@ -26,7 +26,9 @@ import java.io.IOException;
 import java.io.OutputStream;
 
 /**
- * 自适应压缩
+ * 自适应压缩，数据先直接写入缓冲区，超过阈值后转换成压缩流。<br/>
+ * 转换的时候已经写入的数据(不超过阈值)通过缓冲区的copy拷贝到同一个分配器申请的缓冲区中，再从该缓冲区压缩写回，
+ * 池化的缓冲区会拷贝到池化内存，不在堆上暂存。
  */
 public class AdaptiveCompressOutputStream extends OutputStream implements Finishable {
 
@@ -109,12 +111,16 @@ public class AdaptiveCompressOutputStream extends OutputStream implements Finish
             //读取写入的数据
             int size = buffer.writerIndex() - writerIndex;
             if (size > 0) {
-                byte[] bytes = new byte[size];
-                buffer.getBytes(writerIndex, bytes);
-                buffer.writerIndex(writerIndex);
-                //转换成压缩流，再次写入数据
-                out = compression.compress(buffer.outputStream());
-                out.write(bytes);
+                //压缩输出会覆盖原有数据，先拷贝出来，拷贝的数据不会超过阈值
+                ChannelBuffer written = buffer.copy(writerIndex, size);
+                try {
+                    buffer.writerIndex(writerIndex);
+                    //转换成压缩流，再次写入数据
+                    out = compression.compress(buffer.outputStream());
+                    written.readBytes(out, size);
+                } finally {
+                    written.release();
+                }
             } else {
                 out = compression.compress(buffer.outputStream());
             }
@@ -0,0 +1,143 @@
+package io.joyrpc.codec.compression;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 自适应压缩阈值，根据观测到的压缩率调整开启压缩的阈值。<br/>
+ * 压缩效果差的时候逐步提高阈值，避免无效压缩；定期按最小阈值进行探测，压缩效果恢复后逐步降低阈值。
+ */
+public class AdaptiveThreshold {
+
+    /**
+     * 默认最小阈值
+     */
+    public static final int MIN_THRESHOLD = 2048;
+    /**
+     * 默认最大阈值
+     */
+    public static final int MAX_THRESHOLD = 64 * 1024;
+    /**
+     * 默认可接受的压缩率(压缩后大小/原始大小)
+     */
+    public static final double ACCEPTABLE_RATIO = 0.9;
+    /**
+     * 探测间隔，必须是2的幂
+     */
+    protected static final int PROBE_INTERVAL = 64;
+
+    /**
+     * 最小阈值
+     */
+    protected final int min;
+    /**
+     * 最大阈值
+     */
+    protected final int max;
+    /**
+     * 可接受的压缩率
+     */
+    protected final double acceptable;
+    /**
+     * 当前阈值
+     */
+    protected volatile int threshold;
+    /**
+     * 压缩率的指数加权平均值
+     */
+    protected volatile double ratio;
+    /**
+     * 计数器，用于定期探测
+     */
+    protected final AtomicInteger counter = new AtomicInteger();
+
+    public AdaptiveThreshold() {
+        this(MIN_THRESHOLD, MAX_THRESHOLD, ACCEPTABLE_RATIO);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param min        最小阈值
+     * @param max        最大阈值
+     * @param acceptable 可接受的压缩率
+     */
+    public AdaptiveThreshold(final int min, final int max, final double acceptable) {
+        if (min <= 0) {
+            throw new IllegalArgumentException("min threshold <= 0");
+        } else if (max < min) {
+            throw new IllegalArgumentException("max threshold < min threshold");
+        }
+        this.min = min;
+        this.max = max;
+        this.acceptable = acceptable;
+        this.threshold = min;
+    }
+
+    /**
+     * 获取当前的压缩阈值
+     *
+     * @return 压缩阈值
+     */
+    public int get() {
+        int result = threshold;
+        if (result > min && (counter.incrementAndGet() & (PROBE_INTERVAL - 1)) == 0) {
+            //定期探测，避免数据特征变化后一直不压缩
+            return min;
+        }
+        return result;
+    }
+
+    /**
+     * 根据本次压缩的结果调整阈值
+     *
+     * @param original   原始大小
+     * @param compressed 压缩后大小
+     */
+    public void update(final int original, final int compressed) {
+        if (original <= 0 || compressed < 0) {
+            return;
+        }
+        double current = (double) compressed / original;
+        double last = ratio;
+        //并发更新存在覆盖，对统计结果影响不大
+        double avg = last <= 0 ? current : last * 0.8 + current * 0.2;
+        ratio = avg;
+        int value = threshold;
+        if (avg >= acceptable) {
+            if (value < max) {
+                threshold = Math.min(max, value << 1);
+            }
+        } else if (value > min) {
+            threshold = Math.max(min, value >> 1);
+        }
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public double getRatio() {
+        return ratio;
+    }
+}
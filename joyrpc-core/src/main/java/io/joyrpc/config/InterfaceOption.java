@@ -24,16 +24,19 @@ import io.joyrpc.cache.Cache;
 import io.joyrpc.cache.CacheKeyGenerator;
 import io.joyrpc.cluster.Shard;
 import io.joyrpc.cluster.distribution.CircuitBreaker;
+import io.joyrpc.cluster.distribution.ConcurrencyLimiter;
 import io.joyrpc.cluster.distribution.FailoverPolicy;
 import io.joyrpc.cluster.distribution.Router;
 import io.joyrpc.cluster.distribution.loadbalance.adaptive.AdaptivePolicy;
 import io.joyrpc.context.auth.IPPermission;
 import io.joyrpc.context.limiter.LimiterConfiguration.ClassLimiter;
 import io.joyrpc.invoker.CallbackMethod;
+import io.joyrpc.invoker.LoadShedder;
 import io.joyrpc.permission.BlackWhiteList;
 import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.RequestMessage;
 import io.joyrpc.proxy.MethodCaller;
+import io.joyrpc.thread.Bulkhead;
 import io.joyrpc.util.GrpcType;
 
 import javax.validation.Validator;
@@ -262,6 +265,27 @@ public interface InterfaceOption {
          */
         MethodCaller getCaller();
 
+        /**
+         * 获取隔离线程池
+         *
+         * @return 隔离线程池，没有配置返回null
+         */
+        Bulkhead getBulkhead();
+
+        /**
+         * 获取请求丢弃器
+         *
+         * @return 请求丢弃器，没有开启返回null
+         */
+        LoadShedder getShedder();
+
+        /**
+         * 获取自适应并发限制
+         *
+         * @return 自适应并发限制，没有开启返回null
+         */
+        ConcurrencyLimiter getAdaptiveLimiter();
+
     }
 
     /**
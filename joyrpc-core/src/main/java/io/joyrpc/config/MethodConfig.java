@@ -130,6 +130,26 @@ public class MethodConfig extends AbstractConfig {
      */
     protected Boolean cacheNullable;
 
+    /**
+     * 隔离线程池分组，相同分组的方法共享一个独立的业务线程池
+     */
+    protected String bulkhead;
+
+    /**
+     * 隔离线程池的线程数
+     */
+    protected Integer bulkheadThreads;
+
+    /**
+     * 隔离线程池的队列大小
+     */
+    protected Integer bulkheadQueues;
+
+    /**
+     * 隔离线程池的拒绝策略，abort或callerRuns
+     */
+    protected String bulkheadReject;
+
     public String getName() {
         return name;
     }
@@ -298,6 +318,38 @@ public class MethodConfig extends AbstractConfig {
         this.cacheProvider = cacheProvider;
     }
 
+    public String getBulkhead() {
+        return bulkhead;
+    }
+
+    public void setBulkhead(String bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    public Integer getBulkheadThreads() {
+        return bulkheadThreads;
+    }
+
+    public void setBulkheadThreads(Integer bulkheadThreads) {
+        this.bulkheadThreads = bulkheadThreads;
+    }
+
+    public Integer getBulkheadQueues() {
+        return bulkheadQueues;
+    }
+
+    public void setBulkheadQueues(Integer bulkheadQueues) {
+        this.bulkheadQueues = bulkheadQueues;
+    }
+
+    public String getBulkheadReject() {
+        return bulkheadReject;
+    }
+
+    public void setBulkheadReject(String bulkheadReject) {
+        this.bulkheadReject = bulkheadReject;
+    }
+
     /**
      * Sets parameter.
      *
@@ -343,6 +395,10 @@ public class MethodConfig extends AbstractConfig {
         addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.CACHE_CAPACITY_OPTION.getName()), cacheCapacity);
         addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.CACHE_NULLABLE_OPTION.getName()), cacheNullable);
         addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.CACHE_KEY_EXPRESSION), cacheKeyExpression);
+        addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.BULKHEAD_OPTION.getName()), bulkhead);
+        addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.BULKHEAD_THREADS_OPTION.getName()), bulkheadThreads);
+        addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.BULKHEAD_QUEUES_OPTION.getName()), bulkheadQueues);
+        addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.BULKHEAD_REJECT_OPTION.getName()), bulkheadReject);
 
         if (null != parameters) {
             parameters.forEach((k, v) -> addElement2Map(params, METHOD_KEY_FUNC.apply(name, k), v));
@@ -20,6 +20,8 @@ package io.joyrpc.config.inner;
  * #L%
  */
 
+import io.joyrpc.cluster.distribution.ConcurrencyLimiter;
+import io.joyrpc.cluster.distribution.limiter.GradientRateLimiter;
 import io.joyrpc.config.AbstractInterfaceOption;
 import io.joyrpc.context.IntfConfiguration;
 import io.joyrpc.context.auth.IPPermission;
@@ -27,10 +29,12 @@ import io.joyrpc.context.limiter.LimiterConfiguration.ClassLimiter;
 import io.joyrpc.extension.URL;
 import io.joyrpc.extension.WrapperParametric;
 import io.joyrpc.invoker.CallbackMethod;
+import io.joyrpc.invoker.LoadShedder;
 import io.joyrpc.permission.BlackWhiteList;
 import io.joyrpc.permission.StringBlackWhiteList;
 import io.joyrpc.proxy.JCompiler;
 import io.joyrpc.proxy.MethodCaller;
+import io.joyrpc.thread.Bulkhead;
 import io.joyrpc.util.ClassUtils;
 import io.joyrpc.util.GrpcMethod;
 import org.slf4j.Logger;
@@ -39,6 +43,7 @@ import org.slf4j.LoggerFactory;
 import javax.validation.Validator;
 import java.lang.reflect.*;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 import static io.joyrpc.Plugin.COMPILER;
@@ -79,6 +84,26 @@ public class InnerProviderOption extends AbstractInterfaceOption {
      * 编译器
      */
     protected JCompiler compiler;
+    /**
+     * 隔离线程池，按照分组名称共享
+     */
+    protected Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    /**
+     * 是否按剩余超时时间丢弃请求
+     */
+    protected boolean shedding;
+    /**
+     * 丢弃请求的剩余时间比例
+     */
+    protected double sheddingFraction;
+    /**
+     * 丢弃请求的执行耗时指标
+     */
+    protected String sheddingPercentile;
+    /**
+     * 是否开启自适应并发限制
+     */
+    protected boolean adaptiveLimiter;
 
     /**
      * 构造函数
@@ -107,6 +132,10 @@ public class InnerProviderOption extends AbstractInterfaceOption {
         this.precompilation = url.getBoolean(METHOD_PRECOMPILATION);
         this.ipPermissions = new IntfConfiguration<>(IP_PERMISSION, interfaceName);
         this.limiters = new IntfConfiguration<>(LIMITERS, interfaceName);
+        this.shedding = url.getBoolean(LOAD_SHEDDING_OPTION);
+        this.sheddingFraction = url.getDouble(LOAD_SHEDDING_FRACTION_OPTION);
+        this.sheddingPercentile = url.getString(LOAD_SHEDDING_PERCENTILE_OPTION);
+        this.adaptiveLimiter = url.getBoolean(ADAPTIVE_LIMITER_OPTION);
     }
 
     @Override
@@ -114,6 +143,8 @@ public class InnerProviderOption extends AbstractInterfaceOption {
         super.doClose();
         ipPermissions.close();
         limiters.close();
+        bulkheads.values().forEach(Bulkhead::close);
+        bulkheads.clear();
     }
 
     @Override
@@ -134,7 +165,70 @@ public class InnerProviderOption extends AbstractInterfaceOption {
                 methodBlackWhiteList,
                 ipPermissions,
                 limiters,
-                precompilation ? compile(method) : null);
+                precompilation ? compile(method) : null,
+                getBulkhead(parametric),
+                getShedder(parametric),
+                getAdaptiveLimiter(parametric));
+    }
+
+    /**
+     * 获取自适应并发限制，每个方法独立计算
+     *
+     * @param parametric 方法参数
+     * @return 自适应并发限制，没有开启返回null
+     */
+    protected ConcurrencyLimiter getAdaptiveLimiter(final WrapperParametric parametric) {
+        //方法参数优先，默认为接口参数
+        if (!parametric.getBoolean(ADAPTIVE_LIMITER_OPTION.getName(), adaptiveLimiter)) {
+            return null;
+        }
+        return new GradientRateLimiter(
+                parametric.getPositive(ADAPTIVE_LIMITER_INITIAL.getName(), url.getPositiveInt(ADAPTIVE_LIMITER_INITIAL)),
+                parametric.getPositive(ADAPTIVE_LIMITER_MIN.getName(), url.getPositiveInt(ADAPTIVE_LIMITER_MIN)),
+                parametric.getPositive(ADAPTIVE_LIMITER_MAX.getName(), url.getPositiveInt(ADAPTIVE_LIMITER_MAX)),
+                parametric.getDouble(ADAPTIVE_LIMITER_TOLERANCE.getName(), url.getDouble(ADAPTIVE_LIMITER_TOLERANCE)));
+    }
+
+    /**
+     * 获取请求丢弃器
+     *
+     * @param parametric 方法参数
+     * @return 请求丢弃器，没有开启返回null
+     */
+    protected LoadShedder getShedder(final WrapperParametric parametric) {
+        if (!parametric.getBoolean(LOAD_SHEDDING_OPTION.getName(), shedding)) {
+            return null;
+        }
+        return new LoadShedder(
+                parametric.getDouble(LOAD_SHEDDING_FRACTION_OPTION.getName(), sheddingFraction),
+                parametric.getString(LOAD_SHEDDING_PERCENTILE_OPTION.getName(), sheddingPercentile));
+    }
+
+    /**
+     * 获取隔离线程池，相同分组的方法共享线程池，以首个方法的配置创建
+     *
+     * @param parametric 方法参数
+     * @return 隔离线程池
+     */
+    protected Bulkhead getBulkhead(final WrapperParametric parametric) {
+        //方法没有配置则使用接口的配置
+        String name = parametric.getString(BULKHEAD_OPTION.getName(), url.getString(BULKHEAD_OPTION));
+        if (name == null || name.isEmpty()) {
+            return null;
+        }
+        return bulkheads.computeIfAbsent(name, n -> new Bulkhead(n, url,
+                parametric.getPositive(BULKHEAD_THREADS_OPTION.getName(), url.getPositiveInt(BULKHEAD_THREADS_OPTION)),
+                parametric.getInteger(BULKHEAD_QUEUES_OPTION.getName(), url.getInteger(BULKHEAD_QUEUES_OPTION)),
+                parametric.getString(BULKHEAD_REJECT_OPTION.getName(), url.getString(BULKHEAD_REJECT_OPTION))));
+    }
+
+    /**
+     * 获取隔离线程池
+     *
+     * @return 分组名称和隔离线程池
+     */
+    public Map<String, Bulkhead> getBulkheads() {
+        return bulkheads;
     }
 
     /**
@@ -218,6 +312,18 @@ public class InnerProviderOption extends AbstractInterfaceOption {
          * 动态生成的方法调用
          */
         protected MethodCaller caller;
+        /**
+         * 隔离线程池
+         */
+        protected Bulkhead bulkhead;
+        /**
+         * 请求丢弃器
+         */
+        protected LoadShedder shedder;
+        /**
+         * 自适应并发限制
+         */
+        protected ConcurrencyLimiter adaptiveLimiter;
 
         public InnerProviderMethodOption(final GrpcMethod method,
                                          final Map<String, ?> implicits, final int timeout,
@@ -226,12 +332,18 @@ public class InnerProviderOption extends AbstractInterfaceOption {
                                          final BlackWhiteList<String> methodBlackWhiteList,
                                          final Supplier<IPPermission> iPPermission,
                                          final Supplier<ClassLimiter> limiter,
-                                         final MethodCaller caller) {
+                                         final MethodCaller caller,
+                                         final Bulkhead bulkhead,
+                                         final LoadShedder shedder,
+                                         final ConcurrencyLimiter adaptiveLimiter) {
             super(method, implicits, timeout, concurrency, cachePolicy, validator, token, async, trace, callback);
             this.methodBlackWhiteList = methodBlackWhiteList;
             this.iPPermission = iPPermission;
             this.limiter = limiter;
             this.caller = caller;
+            this.bulkhead = bulkhead;
+            this.shedder = shedder;
+            this.adaptiveLimiter = adaptiveLimiter;
         }
 
         @Override
@@ -253,6 +365,21 @@ public class InnerProviderOption extends AbstractInterfaceOption {
         public MethodCaller getCaller() {
             return caller;
         }
+
+        @Override
+        public Bulkhead getBulkhead() {
+            return bulkhead;
+        }
+
+        @Override
+        public LoadShedder getShedder() {
+            return shedder;
+        }
+
+        @Override
+        public ConcurrencyLimiter getAdaptiveLimiter() {
+            return adaptiveLimiter;
+        }
     }
 
 }
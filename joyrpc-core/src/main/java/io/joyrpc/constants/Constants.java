@@ -450,6 +450,14 @@ public class Constants {
      * 定时器线程数
      */
     public static final String TIMER_THREADS = "timer.threads";
+    /**
+     * 请求超时定时器分段数
+     */
+    public static final String TIMEOUT_TIMER_STRIPES = "timer.timeout.stripes";
+    /**
+     * 消息体延迟到业务线程解码的字节数阈值，小于等于0表示不启用
+     */
+    public static final String DEFERRED_DECODE_THRESHOLD = "codec.deferred.threshold";
     /**
      * SERVICE_MESH的键名称
      */
@@ -649,6 +657,14 @@ public class Constants {
     public static final URLOption<Boolean> DYNAMIC_OPTION = new URLOption<>("dynamic", true);
     public static final URLOption<Integer> CONCURRENCY_OPTION = new URLOption<>("concurrency", 0);
     public static final URLOption<Boolean> LIMITER_OPTION = new URLOption<>("limiter", false);
+    /**
+     * 自适应并发限制，按照耗时和最小耗时的梯度自动调整并发数，可以按照方法配置
+     */
+    public static final URLOption<Boolean> ADAPTIVE_LIMITER_OPTION = new URLOption<>("adaptiveLimiter", false);
+    public static final URLOption<Integer> ADAPTIVE_LIMITER_INITIAL = new URLOption<>("adaptiveLimiter.initial", 20);
+    public static final URLOption<Integer> ADAPTIVE_LIMITER_MIN = new URLOption<>("adaptiveLimiter.min", 5);
+    public static final URLOption<Integer> ADAPTIVE_LIMITER_MAX = new URLOption<>("adaptiveLimiter.max", 1000);
+    public static final URLOption<Double> ADAPTIVE_LIMITER_TOLERANCE = new URLOption<>("adaptiveLimiter.tolerance", 1.5);
     public static final URLOption<String> METHOD_EXCLUDE_OPTION = new URLOption<>("exclude", "");
     public static final URLOption<String> CONTEXT_PATH_OPTION = new URLOption<>("contextpath", "/");
     public static final URLOption<Integer> FORKS_OPTION = new URLOption<>("forks", 2);
@@ -700,6 +716,10 @@ public class Constants {
      * 默认线程池
      */
     public static final String DEFAULT_THREADPOOL = "adaptive";
+    /**
+     * 虚拟线程池
+     */
+    public static final String VIRTUAL_THREADPOOL = "virtual";
     /**
      * 线程池选项
      */
@@ -709,6 +729,29 @@ public class Constants {
     public static final URLOption<Integer> KEEP_ALIVE_TIME_OPTION = new URLOption<>("thread.keepAliveTime", 60000);
     public static final URLOption<Integer> QUEUES_OPTION = new URLOption<>("queues", 0);
     public static final URLOption<String> QUEUE_TYPE_OPTION = new URLOption<>("queueType", "normal");
+    /**
+     * 自适应线程池自动调整核心线程数，核心线程数作为下限，最大线程数作为上限
+     */
+    public static final URLOption<Boolean> THREAD_TUNING_OPTION = new URLOption<>("thread.tuning", false);
+    public static final URLOption<Long> THREAD_TUNING_INTERVAL_OPTION = new URLOption<>("thread.tuning.interval", 1000L);
+    public static final URLOption<Long> THREAD_TUNING_QUEUE_WAIT_OPTION = new URLOption<>("thread.tuning.queueWait", 10L);
+    /**
+     * 虚拟线程固定(pinned)事件的记录阈值(毫秒)，小于等于0不监听
+     */
+    public static final URLOption<Long> VIRTUAL_PINNED_THRESHOLD_OPTION = new URLOption<>("virtual.pinnedThreshold", 20L);
+    /**
+     * 方法隔离线程池分组，相同分组的方法共享线程池
+     */
+    public static final URLOption<String> BULKHEAD_OPTION = new URLOption<>("bulkhead", "");
+    public static final URLOption<Integer> BULKHEAD_THREADS_OPTION = new URLOption<>("bulkhead.threads", 20);
+    public static final URLOption<Integer> BULKHEAD_QUEUES_OPTION = new URLOption<>("bulkhead.queues", 0);
+    public static final URLOption<String> BULKHEAD_REJECT_OPTION = new URLOption<>("bulkhead.reject", "abort");
+    /**
+     * 服务端按剩余超时时间丢弃请求，剩余时间低于超时时间的比例或者方法最近的执行耗时(tp90等，空表示不判断)
+     */
+    public static final URLOption<Boolean> LOAD_SHEDDING_OPTION = new URLOption<>("shedding", false);
+    public static final URLOption<Double> LOAD_SHEDDING_FRACTION_OPTION = new URLOption<>("shedding.fraction", 0.1);
+    public static final URLOption<String> LOAD_SHEDDING_PERCENTILE_OPTION = new URLOption<>("shedding.percentile", "tp90");
 
     public static final String REGISTRY_NAME_KEY = "name";
     public static final URLOption<Boolean> REGISTRY_BACKUP_ENABLED_OPTION = new URLOption<>("reg.backupEnabled", Boolean.TRUE);
@@ -750,11 +793,23 @@ public class Constants {
      * 指标窗口时间（毫秒）
      */
     public static final URLOption<Long> METRIC_WINDOWS_TIME_OPTION = new URLOption<>("metric.window.time", 1000L);
+    /**
+     * 统计面板工厂，micro为微秒精度的实现
+     */
+    public static final URLOption<String> DASHBOARD_FACTORY_OPTION = new URLOption<>("dashboardFactory", "mc");
+    /**
+     * 指标事件采样率，每N次调用发布一次指标事件给外部的指标处理器，小于等于0不发布
+     */
+    public static final URLOption<Integer> METRIC_EVENT_SAMPLE_OPTION = new URLOption<>("metric.event.sample", 1);
 
     /**
      * 插件默认常量
      */
     public static final URLOption<String> CHANNEL_MANAGER_FACTORY_OPTION = new URLOption<>("channelManagerFactory", "shared");
+    /**
+     * 连接池模式下每个节点的连接数
+     */
+    public static final URLOption<Integer> CHANNEL_POOL_SIZE_OPTION = new URLOption<>("channelPool.size", 4);
 
     public static final URLOption<Integer> PAYLOAD = new URLOption<>("payload", 8388608);
 
@@ -782,12 +837,32 @@ public class Constants {
     public static final URLOption<Integer> SO_BACKLOG_OPTION = new URLOption<>("soBacklog", 35536);
     public static final URLOption<Integer> SO_TIMEOUT_OPTION = new URLOption<>("soTimeout", 10000);
     public static final URLOption<Boolean> SO_REUSE_PORT_OPTION = new URLOption<>(REUSE_PORT_KEY, true);
+    /**
+     * 服务端监听分片数，大于1时在epoll下通过SO_REUSEPORT在同一端口上绑定多个监听
+     */
+    public static final URLOption<Integer> ACCEPT_SHARDS_OPTION = new URLOption<>("acceptShards", 1);
+    /**
+     * 写合并，开启后同一个IO事件循环内的多次写只触发一次刷新
+     */
+    public static final URLOption<Boolean> WRITE_COALESCING_OPTION = new URLOption<>("writeCoalescing", false);
+    /**
+     * 写合并最大消息数，累计未刷新的消息达到该值则立即刷新
+     */
+    public static final URLOption<Integer> WRITE_COALESCING_MESSAGES_OPTION = new URLOption<>("writeCoalescing.messages", 256);
+    /**
+     * 写合并最大字节数，累计未刷新的字节达到该值则立即刷新
+     */
+    public static final URLOption<Integer> WRITE_COALESCING_BYTES_OPTION = new URLOption<>("writeCoalescing.bytes", 64 * 1024);
 
 
     /**
      * 会话超时时间
      */
     public static final URLOption<Long> SESSION_TIMEOUT_OPTION = new URLOption<>("sessionTimeout", 90000L);
+    /**
+     * 是否启用会话级别的消息头字典，需要双方协商
+     */
+    public static final URLOption<Boolean> HEADER_DICTIONARY_OPTION = new URLOption<>("headerDictionary", Boolean.FALSE);
     /**
      * 心跳时间间隔
      */
@@ -857,15 +932,15 @@ public class Constants {
      */
     public static final URLOption<Double> ADAPTIVE_AVAILABILITY_DISABLE = new URLOption<>("adaptive.availability.disable", (Double) null);
     /**
-     * 自适应负载均衡，TP一般阈值
+     * 自适应负载均衡，TP一般阈值，单位毫秒
      */
     public static final URLOption<Integer> ADAPTIVE_TP_FAIR = new URLOption<>("adaptive.tp.fair", (Integer) null);
     /**
-     * 自适应负载均衡，TP差阈值
+     * 自适应负载均衡，TP差阈值，单位毫秒
      */
     public static final URLOption<Integer> ADAPTIVE_TP_POOR = new URLOption<>("adaptive.tp.poor", (Integer) null);
     /**
-     * 自适应负载均衡，TP禁用阈值
+     * 自适应负载均衡，TP禁用阈值，单位毫秒
      */
     public static final URLOption<Integer> ADAPTIVE_TP_DISABLE = new URLOption<>("adaptive.tp.disable", (Integer) null);
     /**
@@ -884,6 +959,46 @@ public class Constants {
      * 自适应负载均衡，集群TP
      */
     public static final URLOption<String> ADAPTIVE_CLUSTER_TP = new URLOption<>("adaptive.clusterTp", "tp30");
+    /**
+     * 自适应负载均衡预先计算评分，在指标快照更新后后台重新评分，请求时只做加权随机
+     */
+    public static final URLOption<Boolean> ADAPTIVE_PRECOMPUTE = new URLOption<>("adaptive.precompute", false);
+    /**
+     * 两次随机选择负载均衡，是否按照节点耗时的指数加权移动平均值加权在途请求数
+     */
+    public static final URLOption<Boolean> P2C_LATENCY_AWARE = new URLOption<>("p2c.latencyAware", false);
+    /**
+     * 一致性哈希负载均衡，哈希键表达式，为空则使用第一个参数
+     */
+    public static final URLOption<String> CONSISTENT_HASH_EXPRESSION = new URLOption<>("consistentHash.expression", "");
+    /**
+     * 一致性哈希负载均衡，表达式引擎插件名称，为空则使用默认引擎
+     */
+    public static final URLOption<String> CONSISTENT_HASH_ENGINE = new URLOption<>("consistentHash.engine", "");
+    /**
+     * 一致性哈希负载均衡，每个节点的虚拟节点数
+     */
+    public static final URLOption<Integer> CONSISTENT_HASH_VIRTUAL_NODES = new URLOption<>("consistentHash.virtualNodes", 160);
+    /**
+     * 一致性哈希负载均衡，有界负载系数，节点在途请求数不超过平均值的(1+系数)倍，小于等于0则不限制
+     */
+    public static final URLOption<Double> CONSISTENT_HASH_LOAD_FACTOR = new URLOption<>("consistentHash.loadFactor", 0.25);
+    /**
+     * 对冲调用，按照方法的哪个TP值作为发起对冲请求的延迟
+     */
+    public static final URLOption<String> HEDGE_PERCENTILE = new URLOption<>("hedge.percentile", "tp90");
+    /**
+     * 对冲调用，最小延迟(毫秒)，没有统计数据时也使用该值
+     */
+    public static final URLOption<Integer> HEDGE_MIN_DELAY = new URLOption<>("hedge.minDelay", 5);
+    /**
+     * 对冲调用，最大请求数(包括首次请求)
+     */
+    public static final URLOption<Integer> HEDGE_MAX_ATTEMPTS = new URLOption<>("hedge.maxAttempts", 2);
+    /**
+     * 对冲调用，对冲请求占首次请求的最大比例
+     */
+    public static final URLOption<Double> HEDGE_BUDGET = new URLOption<>("hedge.budget", 0.05);
 
     /**
      * GrpcType函数
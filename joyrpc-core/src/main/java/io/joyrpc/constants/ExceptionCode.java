@@ -100,6 +100,10 @@ public abstract class ExceptionCode {
     //session失效
     public static final String PROVIDER_TASK_SESSION_EXPIRED = PROVIDER_PREFIX + BIZ_LEVEL + "017";
     public static final String PROVIDER_DUPLICATE_EXPORT = PROVIDER_PREFIX + CONFIG_LEVEL + "018";
+    //剩余超时时间不足，提前丢弃请求
+    public static final String PROVIDER_LOAD_SHED = PROVIDER_PREFIX + BIZ_LEVEL + "019";
+    //provider自适应并发限制
+    public static final String PROVIDER_ADAPTIVE_LIMIT = PROVIDER_PREFIX + CONFIG_LEVEL + "020";
 
     // FILTER 模块
     public static final String FILTER_PLUGIN_NO_EXISTS = FILTER_PREFIX + CONFIG_LEVEL + "001";
@@ -87,4 +87,13 @@ public interface Publisher<E extends Event> extends Closeable {
      * @param timeUnit 时间单位
      */
     boolean offer(E event, long timeout, TimeUnit timeUnit);
+
+    /**
+     * 背压统计
+     *
+     * @return 统计，不支持返回null
+     */
+    default PublisherStats getStats() {
+        return null;
+    }
 }
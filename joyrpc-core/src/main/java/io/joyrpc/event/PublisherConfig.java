@@ -25,17 +25,47 @@ package io.joyrpc.event;
  */
 public class PublisherConfig {
 
+    /**
+     * 基于阻塞队列的派发器
+     */
+    public static final String DISPATCHER_QUEUE = "queue";
+    /**
+     * 基于无锁环形缓冲区的批量派发器
+     */
+    public static final String DISPATCHER_RING = "ring";
+    /**
+     * 空闲时直接挂起等待唤醒
+     */
+    public static final String WAIT_PARK = "park";
+    /**
+     * 空闲时先自旋，再挂起等待唤醒
+     */
+    public static final String WAIT_SPIN_PARK = "spinPark";
+
     //队列容量
     protected int capacity;
     //入队默认超时时间
     protected long timeout;
+    //派发器类型
+    protected String dispatcher;
+    //环形缓冲区的等待策略
+    protected String waitStrategy;
+    //环形缓冲区每批最大派发数量
+    protected int batchSize;
 
     public PublisherConfig() {
     }
 
     public PublisherConfig(int capacity, long timeout) {
+        this(capacity, timeout, null, null, 0);
+    }
+
+    public PublisherConfig(int capacity, long timeout, String dispatcher, String waitStrategy, int batchSize) {
         this.capacity = capacity;
         this.timeout = timeout;
+        this.dispatcher = dispatcher;
+        this.waitStrategy = waitStrategy;
+        this.batchSize = batchSize;
     }
 
     public int getCapacity() {
@@ -54,6 +84,30 @@ public class PublisherConfig {
         this.timeout = timeout;
     }
 
+    public String getDispatcher() {
+        return dispatcher;
+    }
+
+    public void setDispatcher(String dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    public String getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    public void setWaitStrategy(String waitStrategy) {
+        this.waitStrategy = waitStrategy;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -65,6 +119,9 @@ public class PublisherConfig {
         //队列容量
         protected int capacity;
         protected long timeout;
+        protected String dispatcher;
+        protected String waitStrategy;
+        protected int batchSize;
 
         public Builder capacity(int capacity) {
             this.capacity = capacity;
@@ -76,8 +133,23 @@ public class PublisherConfig {
             return this;
         }
 
+        public Builder dispatcher(String dispatcher) {
+            this.dispatcher = dispatcher;
+            return this;
+        }
+
+        public Builder waitStrategy(String waitStrategy) {
+            this.waitStrategy = waitStrategy;
+            return this;
+        }
+
+        public Builder batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
         public PublisherConfig build() {
-            return new PublisherConfig(capacity, timeout);
+            return new PublisherConfig(capacity, timeout, dispatcher, waitStrategy, batchSize);
         }
     }
 
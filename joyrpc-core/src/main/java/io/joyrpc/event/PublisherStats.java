@@ -0,0 +1,95 @@
+package io.joyrpc.event;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 发布器背压统计
+ */
+public class PublisherStats {
+
+    //提供的事件数
+    protected final LongAdder offered = new LongAdder();
+    //丢弃的事件数
+    protected final LongAdder dropped = new LongAdder();
+    //最大延迟(纳秒)，从入队到分发
+    protected final AtomicLong maxLag = new AtomicLong();
+
+    /**
+     * 提供事件
+     *
+     * @param success 是否入队成功
+     * @return 是否入队成功
+     */
+    public boolean offer(final boolean success) {
+        offered.increment();
+        if (!success) {
+            dropped.increment();
+        }
+        return success;
+    }
+
+    /**
+     * 记录分发延迟
+     *
+     * @param lagNanos 延迟(纳秒)
+     */
+    public void lag(final long lagNanos) {
+        long max = maxLag.get();
+        while (lagNanos > max && !maxLag.compareAndSet(max, lagNanos)) {
+            max = maxLag.get();
+        }
+    }
+
+    public long getOffered() {
+        return offered.longValue();
+    }
+
+    public long getDropped() {
+        return dropped.longValue();
+    }
+
+    /**
+     * 最大延迟
+     *
+     * @return 最大延迟(纳秒)
+     */
+    public long getMaxLag() {
+        return maxLag.get();
+    }
+
+    /**
+     * 获取并重置最大延迟，便于按周期采集
+     *
+     * @return 最大延迟(纳秒)
+     */
+    public long resetMaxLag() {
+        return maxLag.getAndSet(0);
+    }
+
+    @Override
+    public String toString() {
+        return "offered=" + getOffered() + ", dropped=" + getDropped() + ", maxLag=" + getMaxLag() + "ns";
+    }
+}
@@ -28,8 +28,14 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 
+import static io.joyrpc.event.PublisherConfig.*;
+
 /**
  * 事件总线
  */
@@ -64,6 +70,10 @@ public class JEventBus implements EventBus {
          * 消费者
          */
         protected Consumer<E> consumer = this::publish;
+        /**
+         * 背压统计
+         */
+        protected final PublisherStats stats = new PublisherStats();
 
         /**
          * 构造函数
@@ -135,12 +145,21 @@ public class JEventBus implements EventBus {
 
         @Override
         public boolean offer(final E event) {
-            return event != null && polling != null && polling.offer(new Message<>(event, consumer));
+            Dispatcher<E> dispatcher = polling;
+            return event != null && dispatcher != null
+                    && stats.offer(dispatcher.offer(new Message<>(event, consumer, stats)));
         }
 
         @Override
         public boolean offer(final E event, final long timeout, final TimeUnit timeUnit) {
-            return event != null && polling != null && polling.offer(new Message<>(event, consumer), timeout, timeUnit);
+            Dispatcher<E> dispatcher = polling;
+            return event != null && dispatcher != null
+                    && stats.offer(dispatcher.offer(new Message<>(event, consumer, stats), timeout, timeUnit));
+        }
+
+        @Override
+        public PublisherStats getStats() {
+            return stats;
         }
     }
 
@@ -154,13 +173,26 @@ public class JEventBus implements EventBus {
         protected T event;
 
         protected Consumer<T> consumer;
+        //统计
+        protected PublisherStats stats;
+        //入队时间(纳秒)
+        protected long time;
 
         public Message(final T event, final Consumer<T> consumer) {
+            this(event, consumer, null);
+        }
+
+        public Message(final T event, final Consumer<T> consumer, final PublisherStats stats) {
             this.event = event;
             this.consumer = consumer;
+            this.stats = stats;
+            this.time = stats == null ? 0 : System.nanoTime();
         }
 
         public void publish() {
+            if (stats != null) {
+                stats.lag(System.nanoTime() - time);
+            }
             consumer.accept(event);
         }
     }
@@ -168,15 +200,11 @@ public class JEventBus implements EventBus {
     /**
      * 发布线程
      */
-    protected static class Dispatcher<E extends Event> {
+    protected abstract static class Dispatcher<E extends Event> {
         /**
          * 名称
          */
         protected String name;
-        /**
-         * 队列
-         */
-        protected BlockingQueue<Message<E>> queue;
         /**
          * 分发线程
          */
@@ -186,9 +214,8 @@ public class JEventBus implements EventBus {
          */
         protected AtomicBoolean started = new AtomicBoolean();
 
-        public Dispatcher(String name, BlockingQueue<Message<E>> queue) {
+        public Dispatcher(String name) {
             this.name = name;
-            this.queue = queue;
         }
 
         /**
@@ -197,9 +224,7 @@ public class JEventBus implements EventBus {
          * @param message 消息
          * @return 成功标识
          */
-        public boolean offer(final Message<E> message) {
-            return message != null && queue.offer(message);
-        }
+        public abstract boolean offer(Message<E> message);
 
         /**
          * 提供消息
@@ -209,29 +234,73 @@ public class JEventBus implements EventBus {
          * @param timeUnit 时间单位
          * @return 成功标识
          */
-        public boolean offer(final Message<E> message, final long timeout, final TimeUnit timeUnit) {
-            if (message != null) {
-                try {
-                    return queue.offer(message, timeout, timeUnit == null ? TimeUnit.MILLISECONDS : timeUnit);
-                } catch (InterruptedException ignored) {
-                }
-            }
-            return false;
-        }
+        public abstract boolean offer(Message<E> message, long timeout, TimeUnit timeUnit);
 
         /**
          * 开启
          */
         public void start() {
             if (started.compareAndSet(false, true)) {
-                daemon = Daemon.builder().name(name).condition(started::get).runnable(this::publish).build();
+                daemon = Daemon.builder().name(name).prepare(this::prepare).condition(started::get).runnable(this::publish).build();
                 daemon.start();
             }
         }
 
+        /**
+         * 分发线程启动前的准备
+         */
+        protected void prepare() {
+        }
+
         /**
          * 获取消息并分发
          */
+        protected abstract void publish();
+
+        /**
+         * 停止
+         */
+        public void stop() {
+            if (started.compareAndSet(true, false)) {
+                if (daemon != null) {
+                    daemon.stop();
+                    daemon = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 基于阻塞队列的发布线程
+     */
+    protected static class QueueDispatcher<E extends Event> extends Dispatcher<E> {
+        /**
+         * 队列
+         */
+        protected BlockingQueue<Message<E>> queue;
+
+        public QueueDispatcher(String name, BlockingQueue<Message<E>> queue) {
+            super(name);
+            this.queue = queue;
+        }
+
+        @Override
+        public boolean offer(final Message<E> message) {
+            return message != null && queue.offer(message);
+        }
+
+        @Override
+        public boolean offer(final Message<E> message, final long timeout, final TimeUnit timeUnit) {
+            if (message != null) {
+                try {
+                    return queue.offer(message, timeout, timeUnit == null ? TimeUnit.MILLISECONDS : timeUnit);
+                } catch (InterruptedException ignored) {
+                }
+            }
+            return false;
+        }
+
+        @Override
         protected void publish() {
             try {
                 Message<E> message = queue.poll(5000, TimeUnit.MILLISECONDS);
@@ -241,17 +310,209 @@ public class JEventBus implements EventBus {
             } catch (InterruptedException ignored) {
             }
         }
+    }
+
+    /**
+     * 基于有界多生产者单消费者环形缓冲区的发布线程，无锁入队，批量分发
+     */
+    protected static class RingDispatcher<E extends Event> extends Dispatcher<E> {
+        /**
+         * 默认容量
+         */
+        protected static final int DEFAULT_CAPACITY = 1 << 14;
+        /**
+         * 默认批量大小
+         */
+        protected static final int DEFAULT_BATCH_SIZE = 256;
+        /**
+         * 自旋次数
+         */
+        protected static final int SPINS = 1000;
+        /**
+         * 最大挂起时间，防止丢失唤醒信号
+         */
+        protected static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+        /**
+         * 缓冲区
+         */
+        protected final AtomicReferenceArray<Message<E>> buffer;
+        /**
+         * 每个槽位的序号，用于判断槽位是否可写或可读
+         */
+        protected final AtomicLongArray sequences;
+        /**
+         * 掩码
+         */
+        protected final int mask;
+        /**
+         * 容量
+         */
+        protected final int capacity;
+        /**
+         * 写位置
+         */
+        protected final AtomicLong tail = new AtomicLong();
+        /**
+         * 读位置，只有分发线程修改
+         */
+        protected long head;
+        /**
+         * 批量大小
+         */
+        protected final int batchSize;
+        /**
+         * 空闲时是否先自旋
+         */
+        protected final boolean spin;
+        /**
+         * 分发线程是否在挂起
+         */
+        protected volatile boolean sleeping;
+        /**
+         * 分发线程
+         */
+        protected volatile Thread thread;
+
+        /**
+         * 构造函数
+         *
+         * @param name         名称
+         * @param capacity     容量，会调整为2的指数
+         * @param batchSize    批量大小
+         * @param waitStrategy 等待策略
+         */
+        public RingDispatcher(final String name, final int capacity, final int batchSize, final String waitStrategy) {
+            super(name);
+            int cap = 1;
+            int max = capacity > 0 ? capacity : DEFAULT_CAPACITY;
+            while (cap < max) {
+                cap <<= 1;
+            }
+            this.capacity = cap;
+            this.mask = cap - 1;
+            this.buffer = new AtomicReferenceArray<>(cap);
+            this.sequences = new AtomicLongArray(cap);
+            for (int i = 0; i < cap; i++) {
+                sequences.set(i, i);
+            }
+            this.batchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+            this.spin = WAIT_SPIN_PARK.equals(waitStrategy);
+        }
+
+        @Override
+        public boolean offer(final Message<E> message) {
+            if (message == null) {
+                return false;
+            }
+            long pos;
+            long seq;
+            int index;
+            while (true) {
+                pos = tail.get();
+                index = (int) pos & mask;
+                seq = sequences.get(index);
+                if (seq == pos) {
+                    if (tail.compareAndSet(pos, pos + 1)) {
+                        buffer.set(index, message);
+                        //发布槽位，消费者可读，使用volatile写保证和下面读取挂起标识的顺序
+                        sequences.set(index, pos + 1);
+                        break;
+                    }
+                } else if (seq < pos) {
+                    //满了
+                    return false;
+                }
+            }
+            if (sleeping) {
+                Thread t = thread;
+                if (t != null) {
+                    LockSupport.unpark(t);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean offer(final Message<E> message, final long timeout, final TimeUnit timeUnit) {
+            if (offer(message)) {
+                return true;
+            } else if (message == null || timeout <= 0) {
+                return false;
+            }
+            long deadline = System.nanoTime() + (timeUnit == null ? TimeUnit.MILLISECONDS : timeUnit).toNanos(timeout);
+            while (System.nanoTime() < deadline) {
+                //等待分发线程腾出空间
+                LockSupport.parkNanos(1000);
+                if (offer(message)) {
+                    return true;
+                } else if (Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+            }
+            return false;
+        }
 
+        @Override
+        protected void prepare() {
+            thread = Thread.currentThread();
+        }
 
         /**
-         * 停止
+         * 批量读取并分发
+         *
+         * @return 分发的数量
          */
-        public void stop() {
-            if (started.compareAndSet(true, false)) {
-                if (daemon != null) {
-                    daemon.stop();
-                    daemon = null;
+        protected int drain() {
+            int count = 0;
+            int index;
+            Message<E> message;
+            while (count < batchSize) {
+                index = (int) head & mask;
+                if (sequences.get(index) != head + 1) {
+                    break;
                 }
+                message = buffer.get(index);
+                buffer.lazySet(index, null);
+                //释放槽位，生产者可写
+                sequences.lazySet(index, head + capacity);
+                head++;
+                count++;
+                message.publish();
+            }
+            return count;
+        }
+
+        /**
+         * 是否有数据可读
+         *
+         * @return 有数据标识
+         */
+        protected boolean readable() {
+            return sequences.get((int) head & mask) == head + 1;
+        }
+
+        @Override
+        protected void publish() {
+            if (drain() > 0) {
+                return;
+            }
+            if (spin) {
+                for (int i = 0; i < SPINS; i++) {
+                    if (readable()) {
+                        return;
+                    } else if ((i & 0x3F) == 0x3F) {
+                        Thread.yield();
+                    }
+                }
+            }
+            sleeping = true;
+            try {
+                //再次检查，防止入队线程在设置标识之前检查，丢失唤醒
+                if (!readable() && started.get()) {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+            } finally {
+                sleeping = false;
             }
         }
     }
@@ -287,7 +548,12 @@ public class JEventBus implements EventBus {
             this.name = name;
             this.config = config == null ? new PublisherConfig() : config;
             int capacity = this.config.getCapacity();
-            this.dispatcher = new Dispatcher<>("JEventBus-" + name, new LinkedBlockingQueue<>(capacity > 0 ? capacity : Integer.MAX_VALUE));
+            String threadName = "JEventBus-" + name;
+            if (DISPATCHER_RING.equals(this.config.getDispatcher())) {
+                this.dispatcher = new RingDispatcher<>(threadName, capacity, this.config.getBatchSize(), this.config.getWaitStrategy());
+            } else {
+                this.dispatcher = new QueueDispatcher<>(threadName, new LinkedBlockingQueue<>(capacity > 0 ? capacity : Integer.MAX_VALUE));
+            }
         }
 
         protected boolean contains(final String name) {
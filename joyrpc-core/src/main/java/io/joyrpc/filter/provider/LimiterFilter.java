@@ -22,6 +22,7 @@ package io.joyrpc.filter.provider;
 
 import io.joyrpc.Invoker;
 import io.joyrpc.Result;
+import io.joyrpc.cluster.distribution.ConcurrencyLimiter;
 import io.joyrpc.cluster.distribution.RateLimiter;
 import io.joyrpc.config.InterfaceOption.ProviderMethodOption;
 import io.joyrpc.constants.Constants;
@@ -65,6 +66,21 @@ public class LimiterFilter extends AbstractProviderFilter {
                                 + " is over invoke limit, please wait next period or add upper limit.", ExceptionCode.FILTER_INVOKE_LIMIT)
                 ));
             }
+            if (limiter instanceof ConcurrencyLimiter) {
+                //并发限流器在调用完成后释放许可
+                ConcurrencyLimiter concurrencyLimiter = (ConcurrencyLimiter) limiter;
+                long startNanos = System.nanoTime();
+                CompletableFuture<Result> future = null;
+                try {
+                    future = invoker.invoke(request);
+                    return future.whenComplete((r, t) -> concurrencyLimiter.release(System.nanoTime() - startNanos,
+                            ConcurrencyLimiter.isDropped(r, t)));
+                } finally {
+                    if (future == null) {
+                        concurrencyLimiter.release(System.nanoTime() - startNanos, true);
+                    }
+                }
+            }
         }
         return invoker.invoke(request);
     }
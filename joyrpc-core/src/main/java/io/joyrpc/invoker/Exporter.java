@@ -30,6 +30,7 @@ import io.joyrpc.config.InterfaceOption;
 import io.joyrpc.config.InterfaceOption.MethodOption;
 import io.joyrpc.config.ProviderConfig;
 import io.joyrpc.config.Warmup;
+import io.joyrpc.config.inner.InnerProviderOption;
 import io.joyrpc.constants.Constants;
 import io.joyrpc.constants.ExceptionCode;
 import io.joyrpc.context.RequestContext;
@@ -44,6 +45,7 @@ import io.joyrpc.permission.Identification;
 import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.RequestMessage;
 import io.joyrpc.proxy.MethodCaller;
+import io.joyrpc.thread.Bulkhead;
 import io.joyrpc.transport.DecoratorServer;
 import io.joyrpc.transport.Server;
 import io.joyrpc.transport.transport.ServerTransport;
@@ -53,7 +55,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
@@ -445,4 +449,13 @@ public class Exporter extends AbstractService {
     public Authorization getAuthorization() {
         return authorization;
     }
+
+    /**
+     * 获取方法隔离线程池
+     *
+     * @return 分组名称和隔离线程池
+     */
+    public Map<String, Bulkhead> getBulkheads() {
+        return options instanceof InnerProviderOption ? ((InnerProviderOption) options).getBulkheads() : Collections.emptyMap();
+    }
 }
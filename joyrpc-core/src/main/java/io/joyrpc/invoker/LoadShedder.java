@@ -0,0 +1,115 @@
+package io.joyrpc.invoker;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.metric.TPSnapshot;
+import io.joyrpc.metric.TPWindow;
+import io.joyrpc.metric.mc.MicroTPWindow;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 服务端按剩余超时时间丢弃请求，剩余时间低于超时时间的比例或者方法最近的执行耗时，执行完也来不及返回给消费者
+ */
+public class LoadShedder {
+
+    /**
+     * 剩余时间比例下限
+     */
+    protected final double fraction;
+    /**
+     * 执行耗时指标，为空表示不按照执行耗时判断
+     */
+    protected final Function<TPSnapshot, Long> percentile;
+    /**
+     * 方法执行耗时窗口
+     */
+    protected final TPWindow window;
+    /**
+     * 丢弃的请求数
+     */
+    protected final LongAdder sheds = new LongAdder();
+
+    /**
+     * 构造函数
+     *
+     * @param fraction   剩余时间比例下限
+     * @param percentile 执行耗时指标名称，例如tp90
+     */
+    public LoadShedder(final double fraction, final String percentile) {
+        this.fraction = Math.max(0, Math.min(fraction, 1));
+        this.percentile = TPSnapshot.percentile(percentile);
+        this.window = this.percentile == null ? null : new MicroTPWindow();
+    }
+
+    /**
+     * 判断是否要丢弃请求
+     *
+     * @param timeout 超时时间(毫秒)
+     * @param elapsed 服务端已经消耗的时间(毫秒)
+     * @return 丢弃标识
+     */
+    public boolean shed(final long timeout, final long elapsed) {
+        if (timeout <= 0) {
+            return false;
+        }
+        long remain = timeout - elapsed;
+        boolean result = remain < timeout * fraction || remain < getExpectedTime();
+        if (result) {
+            sheds.increment();
+        }
+        return result;
+    }
+
+    /**
+     * 方法最近的执行耗时
+     *
+     * @return 执行耗时(毫秒)
+     */
+    public long getExpectedTime() {
+        if (window == null) {
+            return 0;
+        }
+        if (window.isExpired()) {
+            window.snapshot();
+        }
+        long micros = percentile.apply(window.getSnapshot().getSnapshot());
+        return micros <= 0 ? 0 : (micros + 999) / 1000;
+    }
+
+    /**
+     * 记录执行耗时
+     *
+     * @param nanos 执行耗时(纳秒)
+     */
+    public void record(final long nanos) {
+        if (window != null) {
+            window.success(nanos, TimeUnit.NANOSECONDS, 1, 0);
+        }
+    }
+
+    public long getSheds() {
+        return sheds.sum();
+    }
+}
@@ -32,6 +32,7 @@ import io.joyrpc.cluster.discovery.config.Configure;
 import io.joyrpc.cluster.discovery.registry.Registry;
 import io.joyrpc.cluster.distribution.LoadBalance;
 import io.joyrpc.cluster.distribution.NodeSelector;
+import io.joyrpc.cluster.distribution.selector.CandidateCache;
 import io.joyrpc.cluster.distribution.Router;
 import io.joyrpc.cluster.distribution.loadbalance.adaptive.AdaptiveScorer;
 import io.joyrpc.cluster.event.NodeEvent;
@@ -112,6 +113,10 @@ public class Refer extends AbstractService {
      * 路由节点选择器
      */
     protected NodeSelector nodeSelector;
+    /**
+     * 路由候选者缓存
+     */
+    protected CandidateCache candidates;
     /**
      * 回调容器
      */
@@ -213,6 +218,7 @@ public class Refer extends AbstractService {
         this.exporterName = EXPORTER_NAME_FUNC.apply(interfaceName, alias);
         //路由器
         this.nodeSelector = configure(NODE_SELECTOR.get(url.getString(Constants.NODE_SELECTOR_OPTION)));
+        this.candidates = new CandidateCache(cluster, nodeSelector);
         //方法选项
         this.options = INTERFACE_OPTION_FACTORY.get().create(interfaceClass, interfaceName, url, this::configure,
                 loadBalance instanceof AdaptiveScorer ? (method, cfg) -> ((AdaptiveScorer) loadBalance).score(cluster, method, cfg) : null);
@@ -288,8 +294,8 @@ public class Refer extends AbstractService {
             //异步发起调用
             CompletableFuture<Message> msgFuture = client.async(request, header.getTimeout());
 
-            //返回future
-            return msgFuture.handle((msg, err) -> {
+            //返回future，取消时同时取消底层请求
+            return Futures.chainCancel(msgFuture, msgFuture.handle((msg, err) -> {
                 Result result;
                 //线程恢复统一改在consumerInvokerHandler里面
                 if (err != null) {
@@ -303,7 +309,7 @@ public class Refer extends AbstractService {
                 }
 
                 return result;
-            });
+            }));
         } catch (Throwable e) {
             return Futures.completeExceptionally(e);
         }
@@ -438,20 +444,16 @@ public class Refer extends AbstractService {
                 return result;
             }
         }
-        //集群节点
-        List<Node> nodes = cluster.getNodes();
-        if (!nodes.isEmpty() && nodeSelector != null) {
-            //路由选择
-            nodes = nodeSelector.select(new Candidate(cluster, null, nodes, nodes.size()), request);
-        }
-        if (nodes == null || nodes.isEmpty()) {
+        //集群节点，路由选择结果在集群节点不变时进行缓存
+        Candidate candidate = candidates.get(cluster.getNodes(), request);
+        if (candidate.getSize() == 0) {
             //节点为空
             throw new NoAliveProviderException(
                     String.format("No alive provider found. class=%s alias=%s", interfaceName, alias),
                     CONSUMER_NO_ALIVE_PROVIDER);
         }
         Router route = ((ConsumerMethodOption) request.getOption()).getRouter();
-        return route.route(request, new Candidate(cluster, null, nodes, nodes.size()));
+        return route.route(request, candidate);
     }
 
     /**
@@ -26,6 +26,7 @@ import io.joyrpc.cluster.discovery.config.ConfigHandler;
 import io.joyrpc.cluster.discovery.config.Configure;
 import io.joyrpc.cluster.discovery.registry.Registry;
 import io.joyrpc.cluster.distribution.LoadBalance;
+import io.joyrpc.cluster.distribution.Router;
 import io.joyrpc.cluster.distribution.loadbalance.StickyLoadBalance;
 import io.joyrpc.cluster.event.NodeEvent;
 import io.joyrpc.codec.serialization.Registration;
@@ -46,6 +47,7 @@ import io.joyrpc.protocol.ServerProtocol;
 import io.joyrpc.protocol.handler.DefaultProtocolAdapter;
 import io.joyrpc.thread.NamedThreadFactory;
 import io.joyrpc.thread.ThreadPool;
+import io.joyrpc.thread.adaptive.AdaptiveThreadPoolExecutor;
 import io.joyrpc.transport.Server;
 import io.joyrpc.transport.ShareServer;
 import io.joyrpc.transport.channel.Channel;
@@ -378,6 +380,19 @@ public class ServiceManager {
                                         final String coreKey, final String maxKey) {
         if (executor == null) {
             return;
+        } else if (executor instanceof AdaptiveThreadPoolExecutor && ((AdaptiveThreadPoolExecutor) executor).isTuning()) {
+            //自动调整的线程池只修改上下限，由线程池自己调整核心线程数
+            AdaptiveThreadPoolExecutor adaptive = (AdaptiveThreadPoolExecutor) executor;
+            Integer min = parametric.getInteger(coreKey);
+            Integer max = parametric.getInteger(maxKey);
+            min = min == null || min <= 0 ? adaptive.getMinSize() : min;
+            max = max == null || max <= 0 ? adaptive.getMaxSize() : max;
+            if ((min != adaptive.getMinSize() || max != adaptive.getMaxSize()) && min <= max) {
+                logger.info(String.format("Tuning bounds of %s is changed from [%d,%d] to [%d,%d]",
+                        name, adaptive.getMinSize(), adaptive.getMaxSize(), min, max));
+                adaptive.setBounds(min, max);
+            }
+            return;
         }
         Integer core = parametric.getInteger(coreKey);
         if (core != null && core > 0 && core != executor.getCorePoolSize()) {
@@ -476,10 +491,11 @@ public class ServiceManager {
      * @return 统计面板工厂
      */
     protected DashboardFactory buildDashboardFactory(final URL url, final LoadBalance loadBalance) {
-        //自适应负载均衡、熔断都需要统计面板
-        return loadBalance instanceof DashboardAware
+        //自适应负载均衡、熔断、对冲调用都需要统计面板
+        return loadBalance instanceof DashboardAware && ((DashboardAware) loadBalance).isDashboardRequired()
+                || Router.HEDGING.equals(url.getString(ROUTER_OPTION))
                 || url.getBoolean(CIRCUIT_BREAKER_ENABLE, false)
-                || url.getBoolean(DASHBOARD_ENABLE, false) ? DASHBOARD_FACTORY.get() : null;
+                || url.getBoolean(DASHBOARD_ENABLE, false) ? DASHBOARD_FACTORY.getOrDefault(url.getString(DASHBOARD_FACTORY_OPTION)) : null;
     }
 
     /**
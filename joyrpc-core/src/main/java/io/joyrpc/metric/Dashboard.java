@@ -22,6 +22,7 @@ package io.joyrpc.metric;
 
 import io.joyrpc.cluster.event.MetricEvent;
 import io.joyrpc.event.EventHandler;
+import io.joyrpc.transport.message.Message;
 
 /**
  * 仪表盘，处理指标事件，返回当前指标
@@ -68,6 +69,22 @@ public interface Dashboard extends EventHandler<MetricEvent> {
      */
     TPWindow getMethod(String methodName);
 
+    /**
+     * 在调用完成的线程里面直接记录指标，避免逐次构造事件和事件分发。<br/>
+     * 默认构造指标事件交给handle处理，兼容只实现了事件处理的面板
+     *
+     * @param request      请求
+     * @param response     应答
+     * @param throwable    异常
+     * @param concurrency  当前并发数
+     * @param elapsedNanos 耗时(纳秒)
+     */
+    default void record(final Message request, final Message response, final Throwable throwable,
+                        final int concurrency, final long elapsedNanos) {
+        handle(new MetricEvent(null, null, null, null, null, request, response, throwable,
+                concurrency, 0, 0, elapsedNanos));
+    }
+
     /**
      * 面板类型
      */
@@ -24,4 +24,13 @@ package io.joyrpc.metric;
  * 感知面板
  */
 public interface DashboardAware {
+
+    /**
+     * 是否需要统计面板，可以根据配置决定
+     *
+     * @return 需要统计面板标识
+     */
+    default boolean isDashboardRequired() {
+        return true;
+    }
 }
@@ -20,6 +20,8 @@ package io.joyrpc.metric;
  * #L%
  */
 
+import java.util.function.Function;
+
 /**
  * 上一个周期的性能数据
  *
@@ -132,4 +134,99 @@ public interface TPSnapshot extends Metric {
      */
     int getTp999();
 
+    /**
+     * 平均时间，单位微秒
+     *
+     * @return
+     */
+    default long getAvgMicros() {
+        return getAvg() * 1000L;
+    }
+
+    /**
+     * 最大时间，单位微秒
+     *
+     * @return
+     */
+    default long getMaxMicros() {
+        return getMax() * 1000L;
+    }
+
+    /**
+     * 最小时间，单位微秒
+     *
+     * @return
+     */
+    default long getMinMicros() {
+        return getMin() * 1000L;
+    }
+
+    /**
+     * TP30，单位微秒
+     *
+     * @return
+     */
+    default long getTp30Micros() {
+        return getTp30() * 1000L;
+    }
+
+    /**
+     * TP50，单位微秒
+     *
+     * @return
+     */
+    default long getTp50Micros() {
+        return getTp50() * 1000L;
+    }
+
+    /**
+     * TP90，单位微秒
+     *
+     * @return
+     */
+    default long getTp90Micros() {
+        return getTp90() * 1000L;
+    }
+
+    /**
+     * TP99，单位微秒
+     *
+     * @return
+     */
+    default long getTp99Micros() {
+        return getTp99() * 1000L;
+    }
+
+    /**
+     * TP999，单位微秒
+     *
+     * @return
+     */
+    default long getTp999Micros() {
+        return getTp999() * 1000L;
+    }
+
+    /**
+     * 根据名称获取性能指标函数，支持avg、tp50、tp90、tp99和tp999
+     *
+     * @param name 名称
+     * @return 性能指标函数(微秒)，不支持返回null
+     */
+    static Function<TPSnapshot, Long> percentile(final String name) {
+        switch (name == null ? "" : name.toLowerCase()) {
+            case "avg":
+                return TPSnapshot::getAvgMicros;
+            case "tp50":
+                return TPSnapshot::getTp50Micros;
+            case "tp90":
+                return TPSnapshot::getTp90Micros;
+            case "tp99":
+                return TPSnapshot::getTp99Micros;
+            case "tp999":
+                return TPSnapshot::getTp999Micros;
+            default:
+                return null;
+        }
+    }
+
 }
@@ -22,6 +22,7 @@ package io.joyrpc.metric;
 
 import io.joyrpc.util.MilliPeriod;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -47,6 +48,28 @@ public interface TPWindow extends Metric, Snapshot<TPMetric> {
      */
     void success(int timeMillis, int records, long dataSize);
 
+    /**
+     * 请求成功，支持高精度时间，默认转换成毫秒
+     *
+     * @param time 耗费的时间
+     * @param unit 时间单位
+     */
+    default void success(final long time, final TimeUnit unit) {
+        success(time, unit, 1, 0);
+    }
+
+    /**
+     * 成功请求一次，支持高精度时间，默认转换成毫秒
+     *
+     * @param time     耗费的时间
+     * @param unit     时间单位
+     * @param records  记录数
+     * @param dataSize 数据大小
+     */
+    default void success(final long time, final TimeUnit unit, final int records, final long dataSize) {
+        success((int) unit.toMillis(time), records, dataSize);
+    }
+
     /**
      * 请求失败
      */
@@ -62,6 +85,16 @@ public interface TPWindow extends Metric, Snapshot<TPMetric> {
      */
     boolean hasRequest();
 
+    /**
+     * 最近窗口平均耗时的指数加权移动平均值，单位微秒
+     *
+     * @return 指数加权移动平均值，默认为上一个窗口的平均耗时
+     */
+    default long getEwmaMicros() {
+        TPMetric metric = getSnapshot();
+        return metric == null ? 0 : metric.getSnapshot().getAvgMicros();
+    }
+
     /**
      * 并发请求数
      *
@@ -0,0 +1,182 @@
+package io.joyrpc.metric.mc;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.metric.Clock;
+import io.joyrpc.metric.TPMetric;
+import io.joyrpc.metric.TPSnapshot;
+import io.joyrpc.metric.TPWindow;
+import io.joyrpc.util.MilliPeriod;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TPWindow基类，实现并发、熔断和虚弱等状态，直方图由子类实现
+ */
+public abstract class AbstractTPWindow implements TPWindow {
+
+    /**
+     * 指数加权移动平均的衰减系数
+     */
+    protected static final double EWMA_ALPHA = 0.3;
+
+    //当前并发数
+    protected AtomicLong actives = new AtomicLong();
+    //待分发数量
+    protected AtomicLong distribution = new AtomicLong();
+    //连续失败数量
+    protected AtomicLong successiveFailures = new AtomicLong();
+    //快照数据
+    protected volatile McTPMetric snapshot;
+    //时间区间
+    protected long windowTime;
+    //熔断截止时间
+    protected volatile MilliPeriod brokenPeriod;
+    //虚弱开始时间
+    protected volatile MilliPeriod weakPeriod;
+    //时钟
+    protected Clock clock;
+    //上次快照时间
+    protected volatile long lastSnapshotTime;
+    //平均耗时的指数加权移动平均值(微秒)
+    protected volatile long ewmaMicros;
+
+    /**
+     * 构造函数
+     *
+     * @param windowTimeMillis 时间窗口，单位毫秒
+     * @param clock            时钟
+     */
+    public AbstractTPWindow(final long windowTimeMillis, final Clock clock) {
+        this.clock = clock == null ? Clock.MILLI : clock;
+        //把毫秒时间窗口转换成指定时间单位的时间
+        this.windowTime = this.clock.getTimeUnit().convert(windowTimeMillis <= 0 ? 1000 : windowTimeMillis, TimeUnit.MILLISECONDS);
+        this.lastSnapshotTime = this.clock.getTime();
+        this.snapshot = new McTPMetric(successiveFailures, actives, distribution, false, new McTPSnapshot());
+    }
+
+    @Override
+    public synchronized void snapshot() {
+        // 时间间隔
+        if (isExpired()) {
+            lastSnapshotTime = clock.getTime();
+            snapshot = new McTPMetric(successiveFailures, actives, distribution,
+                    brokenPeriod != null && brokenPeriod.between(), rotate());
+            TPSnapshot tp = snapshot.getSnapshot();
+            if (tp.getSuccesses() > 0) {
+                //没有请求的窗口不参与计算，保留上次的值
+                long avg = tp.getAvgMicros();
+                ewmaMicros = ewmaMicros <= 0 ? avg : (long) (avg * EWMA_ALPHA + ewmaMicros * (1 - EWMA_ALPHA));
+            }
+        }
+    }
+
+    @Override
+    public long getEwmaMicros() {
+        return ewmaMicros;
+    }
+
+    /**
+     * 切换直方图，返回上一个周期的性能数据
+     *
+     * @return 性能数据
+     */
+    protected abstract McTPSnapshot rotate();
+
+    @Override
+    public TPMetric getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public boolean isExpired() {
+        return clock.getTime() - lastSnapshotTime > windowTime;
+    }
+
+    @Override
+    public void setLastSnapshotTime(final long timeMillis) {
+        //转换成当前时钟的数据
+        this.lastSnapshotTime = clock.getTimeUnit().convert(timeMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void success(final int timeMillis) {
+        success(timeMillis, 1, 0);
+    }
+
+    @Override
+    public void resetSuccessiveFailures() {
+        successiveFailures.set(0);
+    }
+
+    @Override
+    public AtomicLong actives() {
+        return actives;
+    }
+
+    @Override
+    public AtomicLong distribution() {
+        return distribution;
+    }
+
+    @Override
+    public long getWindowTime() {
+        //转换成毫秒
+        return clock.getTimeUnit().toMillis(windowTime);
+    }
+
+    @Override
+    public MilliPeriod getBrokenPeriod() {
+        return brokenPeriod;
+    }
+
+    @Override
+    public void broken(final long duration, final long decubation) {
+        MilliPeriod period = this.brokenPeriod;
+        if (period != null && period.similar(duration, 100)) {
+            //忽略掉100毫秒，防止并发请求大量创建
+            return;
+        }
+        this.brokenPeriod = new MilliPeriod(duration);
+        this.weakPeriod = new MilliPeriod(brokenPeriod.getEndTime(), brokenPeriod.getEndTime() + decubation);
+    }
+
+    @Override
+    public void weak(final MilliPeriod period, final long duration) {
+        if (weakPeriod != period) {
+            //放置并发
+            return;
+        }
+        MilliPeriod mp = this.weakPeriod;
+        if (mp != null && mp.similar(duration, 100)) {
+            //忽略掉100毫秒，防止并发请求大量创建
+            return;
+        }
+        this.weakPeriod = new MilliPeriod(duration);
+    }
+
+    @Override
+    public MilliPeriod getWeakPeriod() {
+        return weakPeriod;
+    }
+
+}
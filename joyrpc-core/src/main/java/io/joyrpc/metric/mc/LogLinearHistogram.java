@@ -0,0 +1,240 @@
+package io.joyrpc.metric.mc;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 分段的对数线性直方图，单位微秒。<br/>
+ * [0,32)微秒精确记录，之后每个2的幂区间划分为16个线性子桶，相对误差不超过1/16，
+ * 最大记录约71分钟，总共464个桶。按照线程分段无锁记录，分段按需创建，快照时再合并。
+ */
+public class LogLinearHistogram {
+
+    /**
+     * 子桶位数
+     */
+    protected static final int SUB_BITS = 4;
+    /**
+     * 每个2的幂区间的子桶数量
+     */
+    protected static final int SUB_COUNT = 1 << SUB_BITS;
+    /**
+     * 精确记录的区间
+     */
+    protected static final int LINEAR_COUNT = SUB_COUNT << 1;
+    /**
+     * 最大记录值，超过按照最大值记录
+     */
+    public static final long MAX_VALUE = (1L << 32) - 1;
+    /**
+     * 桶数量
+     */
+    public static final int BUCKETS = index(MAX_VALUE) + 1;
+    /**
+     * 默认分段数
+     */
+    protected static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * 分段计数器
+     */
+    protected final AtomicReferenceArray<AtomicLongArray> stripes;
+    /**
+     * 分段掩码
+     */
+    protected final int mask;
+
+    public LogLinearHistogram() {
+        this(STRIPES);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param stripes 分段数，会调整为2的指数
+     */
+    public LogLinearHistogram(final int stripes) {
+        int cap = stripes(stripes);
+        this.stripes = new AtomicReferenceArray<>(cap);
+        this.mask = cap - 1;
+    }
+
+    /**
+     * 计算分段数，2的指数，最多8个分段
+     *
+     * @param stripes 分段数
+     * @return 分段数
+     */
+    protected static int stripes(final int stripes) {
+        int cap = 1;
+        while (cap < stripes && cap < 8) {
+            cap <<= 1;
+        }
+        return cap;
+    }
+
+    /**
+     * 计算桶索引
+     *
+     * @param value 值
+     * @return 桶索引
+     */
+    protected static int index(final long value) {
+        if (value < LINEAR_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift << SUB_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * 桶的代表值，取桶的中间值
+     *
+     * @param index 桶索引
+     * @return 值
+     */
+    protected static long value(final int index) {
+        if (index < LINEAR_COUNT) {
+            return index;
+        }
+        int shift = (index >>> SUB_BITS) - 1;
+        long lowest = ((long) ((index & (SUB_COUNT - 1)) + SUB_COUNT)) << shift;
+        return lowest + ((1L << shift) >> 1);
+    }
+
+    /**
+     * 记录
+     *
+     * @param micros 时间，单位微秒
+     */
+    public void record(final long micros) {
+        int index = index(micros < 0 ? 0 : (micros > MAX_VALUE ? MAX_VALUE : micros));
+        int pos = (int) Thread.currentThread().getId() & mask;
+        AtomicLongArray stripe = stripes.get(pos);
+        if (stripe == null) {
+            stripe = new AtomicLongArray(BUCKETS);
+            if (!stripes.compareAndSet(pos, null, stripe)) {
+                stripe = stripes.get(pos);
+            }
+        }
+        stripe.incrementAndGet(index);
+    }
+
+    /**
+     * 合并分段，获取快照
+     *
+     * @return 快照
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        AtomicLongArray stripe;
+        long count;
+        for (int i = 0; i < stripes.length(); i++) {
+            stripe = stripes.get(i);
+            if (stripe != null) {
+                for (int j = 0; j < BUCKETS; j++) {
+                    count = stripe.get(j);
+                    if (count > 0) {
+                        counts[j] += count;
+                        total += count;
+                    }
+                }
+            }
+        }
+        return new Snapshot(counts, total);
+    }
+
+    /**
+     * 直方图快照
+     */
+    public static class Snapshot {
+        /**
+         * 计数
+         */
+        protected final long[] counts;
+        /**
+         * 总数
+         */
+        protected final long total;
+
+        public Snapshot(final long[] counts, final long total) {
+            this.counts = counts;
+            this.total = total;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        /**
+         * 最小值
+         *
+         * @return 最小值
+         */
+        public long getMin() {
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    return value(i);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * 最大值
+         *
+         * @return 最大值
+         */
+        public long getMax() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] > 0) {
+                    return value(i);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * 获取百分位的值
+         *
+         * @param percentile 百分位，例如99.9
+         * @return 值
+         */
+        public long getValue(final double percentile) {
+            if (total <= 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+            long pos = 0;
+            for (int i = 0; i < counts.length; i++) {
+                pos += counts[i];
+                if (pos >= rank) {
+                    return value(i);
+                }
+            }
+            return getMax();
+        }
+    }
+}
@@ -37,6 +37,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
 
 import static io.joyrpc.constants.Constants.METRIC_WINDOWS_TIME_OPTION;
 
@@ -64,6 +66,10 @@ public class McDashboard implements Dashboard {
      * 时间窗口间隔
      */
     protected long interval;
+    /**
+     * 时间窗口构造函数
+     */
+    protected BiFunction<Long, Clock, TPWindow> windowFunction;
 
     /**
      * 构造函数
@@ -72,10 +78,22 @@ public class McDashboard implements Dashboard {
      * @param type
      */
     public McDashboard(final URL url, final DashboardType type) {
+        this(url, type, McTPWindow::new);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param url            url
+     * @param type           类型
+     * @param windowFunction 时间窗口构造函数
+     */
+    public McDashboard(final URL url, final DashboardType type, final BiFunction<Long, Clock, TPWindow> windowFunction) {
         this.url = url;
         this.type = type;
         this.interval = url.getPositiveLong(METRIC_WINDOWS_TIME_OPTION);
-        this.window = new McTPWindow(interval, Clock.MILLI);
+        this.windowFunction = windowFunction;
+        this.window = windowFunction.apply(interval, Clock.MILLI);
     }
 
     @Override
@@ -100,17 +118,27 @@ public class McDashboard implements Dashboard {
      * @return
      */
     public TPWindow getMethod(final String methodName) {
-        return methodName == null ? null : methods.computeIfAbsent(methodName, o -> new McTPWindow(interval, Clock.MILLI));
+        return methodName == null ? null : methods.computeIfAbsent(methodName, o -> windowFunction.apply(interval, Clock.MILLI));
     }
 
     @Override
     public void handle(final MetricEvent event) {
-        Message message = event.getRequest();
-        if (message instanceof RequestMessage) {
-            RequestMessage request = (RequestMessage) message;
-            Object payload = request.getPayLoad();
+        long elapsedNanos = event.getElapsedNanos();
+        if (elapsedNanos <= 0) {
+            //没有纳秒耗时，使用开始和结束时间，都没有则不统计耗时
+            elapsedNanos = event.getStartTime() > 0 && event.getEndTime() > 0 ?
+                    TimeUnit.MILLISECONDS.toNanos(event.getEndTime() - event.getStartTime()) : -1;
+        }
+        record(event.getRequest(), event.getResponse(), event.getThrowable(), event.getConcurrency(), elapsedNanos);
+    }
+
+    @Override
+    public void record(final Message request, final Message response, final Throwable throwable,
+                       final int concurrency, final long elapsedNanos) {
+        if (request instanceof RequestMessage) {
+            Object payload = ((RequestMessage) request).getPayLoad();
             if (payload instanceof Invocation) {
-                onInvocation(event, request);
+                onInvocation((RequestMessage<Invocation>) request, response, throwable, concurrency, elapsedNanos);
             }
         }
     }
@@ -118,16 +146,20 @@ public class McDashboard implements Dashboard {
     /**
      * 方法调用
      *
-     * @param event   事件
-     * @param request 请求
+     * @param request      请求
+     * @param response     应答
+     * @param throwable    异常
+     * @param concurrency  当前并发数
+     * @param elapsedNanos 耗时(纳秒)，小于0表示没有耗时
      */
-    protected void onInvocation(final MetricEvent event, final RequestMessage<Invocation> request) {
+    protected void onInvocation(final RequestMessage<Invocation> request, final Message response,
+                                final Throwable throwable, final int concurrency, final long elapsedNanos) {
         Invocation invocation = request.getPayLoad();
         ConsumerMethodOption option = (ConsumerMethodOption) request.getOption();
         //方法的指标
         TPWindow method = getMethod(invocation.getMethodName());
-        Throwable throwable = getThrowable(event);
-        if (throwable != null) {
+        Throwable error = getThrowable(throwable, response);
+        if (error != null) {
             //如果有异常，进行异常统计
             if (type == DashboardType.Node) {
                 //只有节点才触发熔断逻辑，集群也会收到相同的事件不进行处理
@@ -135,35 +167,33 @@ public class McDashboard implements Dashboard {
                 method.failure();
                 window.failure();
                 CircuitBreaker breaker = option.getCircuitBreaker();
-                if (breaker != null && breaker.support(throwable)) {
+                if (breaker != null && breaker.support(error)) {
                     //触发熔断
-                    breaker.apply(throwable, method);
+                    breaker.apply(error, method);
                 }
             }
-        } else if (event.getStartTime() > 0 && event.getEndTime() > 0) {
-            //如果正常执行，统计成功
-            int elapse = (int) (event.getEndTime() - event.getStartTime());
-            method.success(elapse);
-            method.actives().set(event.getConcurrency());
-            window.success(elapse);
-            window.actives().set(event.getConcurrency());
+        } else if (elapsedNanos >= 0) {
+            //如果正常执行，统计成功，毫秒窗口会自动转换
+            method.success(elapsedNanos, TimeUnit.NANOSECONDS);
+            method.actives().set(concurrency);
+            window.success(elapsedNanos, TimeUnit.NANOSECONDS);
+            window.actives().set(concurrency);
         }
     }
 
     /**
      * 获取异常
      *
-     * @param event
-     * @return
+     * @param throwable 异常
+     * @param response  应答
+     * @return 异常
      */
-    protected Throwable getThrowable(final MetricEvent event) {
-        if (event.getThrowable() != null) {
-            return event.getThrowable();
+    protected Throwable getThrowable(final Throwable throwable, final Message response) {
+        if (throwable != null) {
+            return throwable;
         }
-        Message message = event.getResponse();
-        if (message instanceof ResponseMessage) {
-            ResponseMessage responseMessage = ((ResponseMessage) message);
-            Object payLoad = responseMessage.getPayLoad();
+        if (response instanceof ResponseMessage) {
+            Object payLoad = ((ResponseMessage) response).getPayLoad();
             if (payLoad instanceof ResponsePayload) {
                 ResponsePayload responsePayload = ((ResponsePayload) payLoad);
                 if (responsePayload.isError()) {
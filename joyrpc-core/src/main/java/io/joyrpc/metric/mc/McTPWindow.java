@@ -21,43 +21,22 @@ package io.joyrpc.metric.mc;
  */
 
 import io.joyrpc.metric.Clock;
-import io.joyrpc.metric.TPMetric;
 import io.joyrpc.metric.TPWindow;
-import io.joyrpc.util.MilliPeriod;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.*;
 import java.util.function.Function;
 
 /**
  * TPWindow实现
  */
-public class McTPWindow implements TPWindow {
+public class McTPWindow extends AbstractTPWindow {
 
     public static final Function<String, TPWindow> MILLI_WINDOW_FUNCTION = t -> new McTPWindow();
 
     protected volatile Histogram histogram = new Histogram();
-    //当前并发数
-    protected AtomicLong actives = new AtomicLong();
-    //待分发数量
-    protected AtomicLong distribution = new AtomicLong();
-    //连续失败数量
-    protected AtomicLong successiveFailures = new AtomicLong();
-    //快照数据
-    protected volatile McTPMetric snapshot;
-    //时间区间
-    protected long windowTime;
-    //熔断截止时间
-    protected volatile MilliPeriod brokenPeriod;
-    //虚弱开始时间
-    protected volatile MilliPeriod weakPeriod;
-    //时钟
-    protected Clock clock;
-    //上次快照时间
-    protected volatile long lastSnapshotTime;
 
     /**
      * 构造函数
@@ -73,44 +52,14 @@ public class McTPWindow implements TPWindow {
      * @param clock            时钟
      */
     public McTPWindow(final long windowTimeMillis, final Clock clock) {
-        this.clock = clock == null ? Clock.MILLI : clock;
-        //把毫秒时间窗口转换成指定时间单位的时间
-        this.windowTime = this.clock.getTimeUnit().convert(windowTimeMillis <= 0 ? 1000 : windowTimeMillis, TimeUnit.MILLISECONDS);
-        this.lastSnapshotTime = this.clock.getTime();
-        this.snapshot = new McTPMetric(successiveFailures, actives, distribution, false, new McTPSnapshot());
+        super(windowTimeMillis, clock);
     }
 
     @Override
-    public synchronized void snapshot() {
-        // 时间间隔
-        if (isExpired()) {
-            lastSnapshotTime = clock.getTime();
-            Histogram old = histogram;
-            histogram = new Histogram();
-            snapshot = new McTPMetric(successiveFailures, actives, distribution,
-                    brokenPeriod != null && brokenPeriod.between(), old.snapshot());
-        }
-    }
-
-    @Override
-    public TPMetric getSnapshot() {
-        return snapshot;
-    }
-
-    @Override
-    public boolean isExpired() {
-        return clock.getTime() - lastSnapshotTime > windowTime;
-    }
-
-    @Override
-    public void setLastSnapshotTime(final long timeMillis) {
-        //转换成当前时钟的数据
-        this.lastSnapshotTime = clock.getTimeUnit().convert(timeMillis, TimeUnit.MILLISECONDS);
-    }
-
-    @Override
-    public void success(final int timeMillis) {
-        success(timeMillis, 1, 0);
+    protected McTPSnapshot rotate() {
+        Histogram old = histogram;
+        histogram = new Histogram();
+        return old.snapshot();
     }
 
     @Override
@@ -125,67 +74,11 @@ public class McTPWindow implements TPWindow {
         successiveFailures.incrementAndGet();
     }
 
-    @Override
-    public void resetSuccessiveFailures() {
-        successiveFailures.set(0);
-    }
-
     @Override
     public boolean hasRequest() {
         return histogram.requests.longValue() > 0;
     }
 
-    @Override
-    public AtomicLong actives() {
-        return actives;
-    }
-
-    @Override
-    public AtomicLong distribution() {
-        return distribution;
-    }
-
-    @Override
-    public long getWindowTime() {
-        //转换成毫秒
-        return clock.getTimeUnit().toMillis(windowTime);
-    }
-
-    @Override
-    public MilliPeriod getBrokenPeriod() {
-        return brokenPeriod;
-    }
-
-    @Override
-    public void broken(final long duration, final long decubation) {
-        MilliPeriod period = this.brokenPeriod;
-        if (period != null && period.similar(duration, 100)) {
-            //忽略掉100毫秒，防止并发请求大量创建
-            return;
-        }
-        this.brokenPeriod = new MilliPeriod(duration);
-        this.weakPeriod = new MilliPeriod(brokenPeriod.getEndTime(), brokenPeriod.getEndTime() + decubation);
-    }
-
-    @Override
-    public void weak(final MilliPeriod period, final long duration) {
-        if (weakPeriod != period) {
-            //放置并发
-            return;
-        }
-        MilliPeriod mp = this.weakPeriod;
-        if (mp != null && mp.similar(duration, 100)) {
-            //忽略掉100毫秒，防止并发请求大量创建
-            return;
-        }
-        this.weakPeriod = new MilliPeriod(duration);
-    }
-
-    @Override
-    public MilliPeriod getWeakPeriod() {
-        return weakPeriod;
-    }
-
     /**
      * TP性能统计缓冲器，用于计算
      */
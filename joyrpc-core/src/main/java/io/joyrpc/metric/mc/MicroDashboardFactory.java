@@ -0,0 +1,40 @@
+package io.joyrpc.metric.mc;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.extension.Extension;
+import io.joyrpc.extension.URL;
+import io.joyrpc.metric.Dashboard;
+import io.joyrpc.metric.Dashboard.DashboardType;
+import io.joyrpc.metric.DashboardFactory;
+
+/**
+ * 微秒精度的面板工厂类
+ */
+@Extension("micro")
+public class MicroDashboardFactory implements DashboardFactory {
+
+    @Override
+    public Dashboard create(final URL url, final DashboardType type) {
+        return new McDashboard(url, type, MicroTPWindow::new);
+    }
+}
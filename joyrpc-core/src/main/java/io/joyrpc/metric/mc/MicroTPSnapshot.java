@@ -0,0 +1,124 @@
+package io.joyrpc.metric.mc;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * 微秒精度的性能快照，毫秒数据向上取整，避免亚毫秒服务的TP都为0
+ */
+public class MicroTPSnapshot extends McTPSnapshot {
+
+    //平均时间(微秒)
+    protected long avgMicros;
+    //最大时间(微秒)
+    protected long maxMicros;
+    //最小时间(微秒)
+    protected long minMicros;
+    //TP30(微秒)
+    protected long tp30Micros;
+    //TP50(微秒)
+    protected long tp50Micros;
+    //TP90(微秒)
+    protected long tp90Micros;
+    //TP99(微秒)
+    protected long tp99Micros;
+    //TP999(微秒)
+    protected long tp999Micros;
+
+    public MicroTPSnapshot() {
+    }
+
+    public MicroTPSnapshot(long requests, long successes,
+                           long failures, long records,
+                           long dataSize, long elapsedMicros,
+                           long max, long min, long tp30, long tp50, long tp90, long tp99, long tp999) {
+        super(requests, successes, failures, records, dataSize, (int) Math.min(Integer.MAX_VALUE, elapsedMicros / 1000),
+                millis(max), millis(min), millis(tp30), millis(tp50), millis(tp90), millis(tp99), millis(tp999));
+        this.avgMicros = successes <= 0 ? 0 : elapsedMicros / successes;
+        this.avg = millis(avgMicros);
+        this.maxMicros = max;
+        this.minMicros = min;
+        this.tp30Micros = tp30;
+        this.tp50Micros = tp50;
+        this.tp90Micros = tp90;
+        this.tp99Micros = tp99;
+        this.tp999Micros = tp999;
+    }
+
+    /**
+     * 微秒转换成毫秒，向上取整
+     *
+     * @param micros 微秒
+     * @return 毫秒
+     */
+    protected static int millis(final long micros) {
+        return micros <= 0 ? 0 : (int) Math.min(Integer.MAX_VALUE, (micros + 999) / 1000);
+    }
+
+    @Override
+    public long getAvgMicros() {
+        return avgMicros;
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public long getMinMicros() {
+        return minMicros;
+    }
+
+    @Override
+    public long getTp30Micros() {
+        return tp30Micros;
+    }
+
+    @Override
+    public long getTp50Micros() {
+        return tp50Micros;
+    }
+
+    @Override
+    public long getTp90Micros() {
+        return tp90Micros;
+    }
+
+    @Override
+    public long getTp99Micros() {
+        return tp99Micros;
+    }
+
+    @Override
+    public long getTp999Micros() {
+        return tp999Micros;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + "_"
+                + "tp50Micros::" + tp50Micros + "_"
+                + "tp90Micros::" + tp90Micros + "_"
+                + "tp99Micros::" + tp99Micros + "_"
+                + "tp999Micros::" + tp999Micros;
+    }
+}
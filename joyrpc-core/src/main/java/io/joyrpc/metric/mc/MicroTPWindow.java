@@ -0,0 +1,147 @@
+package io.joyrpc.metric.mc;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.metric.Clock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 微秒精度的TPWindow实现，基于分段的对数线性直方图，内存有上限，无锁记录
+ */
+public class MicroTPWindow extends AbstractTPWindow {
+
+    protected volatile Histogram histogram = new Histogram();
+
+    /**
+     * 构造函数
+     */
+    public MicroTPWindow() {
+        this(1000, Clock.MILLI);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param windowTimeMillis 时间窗口，单位毫秒
+     * @param clock            时钟
+     */
+    public MicroTPWindow(final long windowTimeMillis, final Clock clock) {
+        super(windowTimeMillis, clock);
+    }
+
+    @Override
+    protected McTPSnapshot rotate() {
+        Histogram old = histogram;
+        histogram = new Histogram();
+        return old.snapshot();
+    }
+
+    @Override
+    public void success(final int timeMillis, final int records, final long dataSize) {
+        success(timeMillis, TimeUnit.MILLISECONDS, records, dataSize);
+    }
+
+    @Override
+    public void success(final long time, final TimeUnit unit, final int records, final long dataSize) {
+        histogram.success(unit.toMicros(time), records, dataSize);
+        successiveFailures.set(0);
+    }
+
+    @Override
+    public void failure() {
+        histogram.failure();
+        successiveFailures.incrementAndGet();
+    }
+
+    @Override
+    public boolean hasRequest() {
+        return histogram.requests.longValue() > 0;
+    }
+
+    /**
+     * 一个窗口周期的统计数据
+     */
+    protected static class Histogram {
+        // 延迟分布
+        protected LogLinearHistogram distribution = new LogLinearHistogram();
+        // 成功处理的记录条数
+        protected LongAdder records = new LongAdder();
+        // 总调用次数
+        protected LongAdder requests = new LongAdder();
+        // 成功调用次数
+        protected LongAdder successes = new LongAdder();
+        // 失败调用次数
+        protected LongAdder failures = new LongAdder();
+        // 数据大小
+        protected LongAdder dataSize = new LongAdder();
+        // 总时间(微秒)
+        protected LongAdder elapsedTime = new LongAdder();
+
+        /**
+         * 成功调用
+         *
+         * @param micros  单次调用时间，单位微秒
+         * @param records 总共记录条数
+         * @param size    总共数据包大小
+         */
+        public void success(final long micros, final int records, final long size) {
+            if (micros < 0) {
+                // 做性能统计时间不可能为负数
+                return;
+            }
+            distribution.record(micros);
+            elapsedTime.add(micros);
+            requests.increment();
+            successes.increment();
+            if (records > 0) {
+                this.records.add(records);
+            }
+            if (size > 0) {
+                dataSize.add(size);
+            }
+        }
+
+        /**
+         * 出错，增加TP计数
+         */
+        public void failure() {
+            failures.increment();
+            requests.increment();
+        }
+
+        /**
+         * 获取性能统计
+         *
+         * @return 性能统计
+         */
+        public MicroTPSnapshot snapshot() {
+            LogLinearHistogram.Snapshot snapshot = distribution.snapshot();
+            return new MicroTPSnapshot(requests.longValue(), successes.longValue(), failures.longValue(),
+                    records.longValue(), dataSize.longValue(), elapsedTime.longValue(),
+                    snapshot.getMax(), snapshot.getMin(),
+                    snapshot.getValue(30), snapshot.getValue(50), snapshot.getValue(90),
+                    snapshot.getValue(99), snapshot.getValue(99.9));
+        }
+    }
+}
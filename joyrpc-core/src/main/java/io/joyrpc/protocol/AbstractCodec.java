@@ -21,24 +21,32 @@ package io.joyrpc.protocol;
  */
 
 import io.joyrpc.codec.compression.AdaptiveCompressOutputStream;
+import io.joyrpc.codec.compression.AdaptiveThreshold;
 import io.joyrpc.codec.compression.Compression;
 import io.joyrpc.codec.serialization.Serialization;
 import io.joyrpc.constants.ExceptionCode;
+import io.joyrpc.context.GlobalContext;
 import io.joyrpc.exception.CodecException;
 import io.joyrpc.exception.LafException;
 import io.joyrpc.exception.ProtocolException;
 import io.joyrpc.exception.SerializerException;
+import io.joyrpc.extension.MapParametric;
 import io.joyrpc.protocol.Protocol.MessageConverter;
+import io.joyrpc.protocol.message.BaseMessage;
+import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.MessageHeader;
 import io.joyrpc.protocol.message.RequestMessage;
 import io.joyrpc.protocol.message.ResponseMessage;
+import io.joyrpc.protocol.message.ResponsePayload;
 import io.joyrpc.transport.buffer.ChannelBuffer;
 import io.joyrpc.transport.codec.Codec;
 import io.joyrpc.transport.codec.DecodeContext;
+import io.joyrpc.transport.codec.Deferrable;
 import io.joyrpc.transport.codec.EncodeContext;
 import io.joyrpc.transport.codec.LengthFieldFrameCodec;
 import io.joyrpc.transport.message.Header;
 import io.joyrpc.transport.message.Message;
+import io.joyrpc.transport.session.HeaderDictionary;
 import io.joyrpc.transport.session.Session;
 import io.joyrpc.util.StringUtils;
 import io.joyrpc.util.SystemClock;
@@ -50,10 +58,12 @@ import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 import static io.joyrpc.Plugin.COMPRESSION_SELECTOR;
 import static io.joyrpc.Plugin.SERIALIZATION_SELECTOR;
+import static io.joyrpc.constants.Constants.DEFERRED_DECODE_THRESHOLD;
 
 /**
  * 编码基类
@@ -67,6 +77,16 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
 
     protected HeaderLengthFrame headerLengthFrame;
 
+    /**
+     * 自适应压缩阈值
+     */
+    protected Map<Object, AdaptiveThreshold> thresholds = new ConcurrentHashMap<>();
+
+    /**
+     * 消息体延迟解码的字节数阈值，小于等于0表示不启用
+     */
+    protected int deferredThreshold;
+
     /**
      * 构造函数
      *
@@ -75,6 +95,7 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
     public AbstractCodec(Protocol protocol) {
         this.protocol = protocol;
         this.headerLengthFrame = new HeaderLengthFrame(0, 0);
+        this.deferredThreshold = new MapParametric<>(GlobalContext.getContext()).getInteger(DEFERRED_DECODE_THRESHOLD, 0);
     }
 
     /**
@@ -183,6 +204,10 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
             buffer.setInt(absoluteLengthOffset, 0);
             //定位到数据包长度后面
             buffer.writerIndex(headerLengthFrame.lengthFieldOffset == 0 ? start + 4 : start);
+            //绑定会话，便于使用会话的消息头字典
+            if (header.getSession() == null && header.getSessionId() > 0) {
+                header.setSession(context.getChannel().getSession(header.getSessionId()));
+            }
             //编码数据头
             int compress = encodeHeader(buffer, header);
             //编码数据包
@@ -194,15 +219,39 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
             header.setLength(length);
             buffer.setInt(absoluteLengthOffset, headerLengthFrame.lengthCompute + length);
         } catch (CodecException e) {
+            rollback(header);
             e.setHeader(header == null ? target.getHeader() : header);
             throw e;
         } catch (Exception e) {
+            rollback(header);
             CodecException ce = toCodecException("Error occurs while encoding.", e);
             ce.setHeader(header == null ? target.getHeader() : header);
             throw ce;
         }
     }
 
+    /**
+     * 获取会话的消息头字典
+     *
+     * @param session 会话
+     * @return 消息头字典
+     */
+    protected HeaderDictionary getHeaderDictionary(final Session session) {
+        return session == null ? null : session.getHeaderDictionary();
+    }
+
+    /**
+     * 编码失败，撤销本次在消息头字典中定义的字符串
+     *
+     * @param header 头部
+     */
+    protected void rollback(final Header header) {
+        HeaderDictionary dictionary = header == null ? null : getHeaderDictionary(header.getSession());
+        if (dictionary != null) {
+            dictionary.getEncoder().rollback();
+        }
+    }
+
     /**
      * 最小的头部大小
      *
@@ -237,7 +286,12 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
         buffer.writerIndex(start + 17);
         //编码扩展属性
         MessageHeader messageHeader = (MessageHeader) header;
-        encodeAttributes(buffer, messageHeader.getAttributes());
+        HeaderDictionary dictionary = getHeaderDictionary(header.getSession());
+        HeaderDictionary.Encoder encoder = dictionary == null ? null : dictionary.getEncoder();
+        if (encoder != null) {
+            encoder.mark();
+        }
+        encodeAttributes(buffer, messageHeader.getAttributes(), encoder);
         int headLength = buffer.writerIndex() - start;
         header.setHeaderLength((short) headLength);
         // 替换head长度的两位
@@ -252,6 +306,18 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
      * @param attributes 属性
      */
     protected void encodeAttributes(final ChannelBuffer buffer, final Map<Byte, Object> attributes) {
+        encodeAttributes(buffer, attributes, null);
+    }
+
+    /**
+     * 编码头部扩展信息，字符串优先使用会话字典引用
+     *
+     * @param buffer     缓冲区
+     * @param attributes 属性
+     * @param encoder    字典编码器
+     */
+    protected void encodeAttributes(final ChannelBuffer buffer, final Map<Byte, Object> attributes,
+                                    final HeaderDictionary.Encoder encoder) {
         int size = attributes == null ? 0 : attributes.size();
         int pos = buffer.writerIndex();
         buffer.setByte(pos++, size);
@@ -269,11 +335,30 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
                         buffer.setInt(pos, (Integer) val);
                         pos += 4;
                     } else if (val instanceof String) {
-                        byte[] bytes = ((String) val).getBytes(StandardCharsets.UTF_8);
+                        String text = (String) val;
+                        int index = encoder == null ? -1 : encoder.get(text);
+                        if (index >= 0) {
+                            //字典引用
+                            buffer.ensureWritable(4);
+                            buffer.setByte(pos++, key);
+                            buffer.setByte(pos++, (byte) 6);
+                            buffer.setShort(pos, index);
+                            pos += 2;
+                            continue;
+                        }
+                        index = encoder == null ? -1 : encoder.add(key, text);
+                        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
                         int length = bytes.length;
-                        buffer.ensureWritable(4 + length);
+                        buffer.ensureWritable(6 + length);
                         buffer.setByte(pos++, key);
-                        buffer.setByte(pos++, (byte) 2);
+                        if (index >= 0) {
+                            //字典定义
+                            buffer.setByte(pos++, (byte) 5);
+                            buffer.setShort(pos, index);
+                            pos += 2;
+                        } else {
+                            buffer.setByte(pos++, (byte) 2);
+                        }
                         buffer.setShort(pos, length);
                         pos += 2;
                         if (length > 0) {
@@ -321,15 +406,22 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
         if (header.getCompression() > 0) {
             Compression compression = COMPRESSION_SELECTOR.select(header.getCompression());
             if (compression != null) {
-                //自适应压缩
-                AdaptiveCompressOutputStream acos = new AdaptiveCompressOutputStream(buffer, compression, 2048);
+                //自适应压缩，阈值根据该方法历史的压缩率动态调整
+                AdaptiveThreshold threshold = getThreshold(message);
+                int start = buffer.writerIndex();
+                AdaptiveCompressOutputStream acos = new AdaptiveCompressOutputStream(buffer, compression,
+                        threshold == null ? AdaptiveThreshold.MIN_THRESHOLD : threshold.get());
                 serialize(serialization, acos, message, context);
                 //压缩完成，写完结束标识
                 acos.finish();
                 //输出
                 acos.flush();
                 //动态压缩设置
-                buffer.setByte(compress, !acos.isCompressed() ? Compression.NONE : header.getCompression());
+                boolean compressed = acos.isCompressed();
+                buffer.setByte(compress, !compressed ? Compression.NONE : header.getCompression());
+                if (compressed && threshold != null) {
+                    threshold.update(acos.getTotal(), buffer.writerIndex() - start);
+                }
                 return;
             } else {
                 buffer.setByte(compress, Compression.NONE);
@@ -338,6 +430,30 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
         serialize(serialization, buffer.outputStream(), message, context);
     }
 
+    /**
+     * 获取消息的自适应压缩阈值，请求按照方法统计，应答按照返回值类型统计
+     *
+     * @param message 消息
+     * @return 自适应压缩阈值
+     */
+    protected AdaptiveThreshold getThreshold(final Message message) {
+        Object payload = message.getPayLoad();
+        Object key = null;
+        if (payload instanceof Invocation) {
+            Invocation invocation = (Invocation) payload;
+            key = invocation.getMethod();
+            if (key == null) {
+                key = invocation.getClassName();
+            }
+        } else if (payload instanceof ResponsePayload) {
+            Object response = ((ResponsePayload) payload).getResponse();
+            key = response == null ? null : response.getClass();
+        } else if (payload != null) {
+            key = payload.getClass();
+        }
+        return key == null ? null : thresholds.computeIfAbsent(key, k -> new AdaptiveThreshold());
+    }
+
     /**
      * 编码阶段根据协议和序列化对消息体进行调整
      *
@@ -367,7 +483,7 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
         }
         Header header = null;
         try {
-            header = decodeHeader(buffer);
+            header = decodeHeader(context, buffer);
             if (header == null) {
                 return null;
             }
@@ -401,6 +517,17 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
      * @return 缓冲区
      */
     protected Header decodeHeader(final ChannelBuffer buffer) {
+        return decodeHeader(null, buffer);
+    }
+
+    /**
+     * 解码消息头，消息头的扩展属性可能引用会话字典
+     *
+     * @param context 上下文
+     * @param buffer  缓冲区
+     * @return 消息头
+     */
+    protected Header decodeHeader(final DecodeContext context, final ChannelBuffer buffer) {
         // 读取总长度
         int length = buffer.readInt();
         // 读取头长度
@@ -409,11 +536,15 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
         MessageHeader header = new MessageHeader();
         header.setMsgType(buffer.readByte());
         header.setMsgId(buffer.readInt());
-        header.setSessionId(buffer.readInt());
+        int sessionId = buffer.readInt();
+        header.setSessionId(sessionId);
         header.setSerialization(buffer.readByte());
         header.setCompression(buffer.readByte());
         header.setTimeout(buffer.readInt());
-        header.setAttributes(decodeAttributes(buffer));
+        Session session = context == null || sessionId <= 0 ? null : context.getChannel().getSession(sessionId);
+        header.setSession(session);
+        HeaderDictionary dictionary = getHeaderDictionary(session);
+        header.setAttributes(decodeAttributes(buffer, dictionary == null ? null : dictionary.getDecoder()));
         header.setLength(length);
         header.setHeaderLength(headerLength);
         header.setProtocolType(AbstractProtocol.PROTOCOL_NUMBER);
@@ -448,9 +579,23 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
             throw new CodecException(String.format("Error occurs while decoding. unknown serialization type %d!", header.getSerialization()), ExceptionCode.CODEC_SERIALIZER_EXCEPTION);
         }
         Compression compression = COMPRESSION_SELECTOR.select(header.getCompression());
+        Class payloadClass = getPayloadClass(msgHeader);
+        if (payloadClass != null && isDeferred(msgType, buffer)) {
+            //IO线程只持有消息体，由业务线程解码
+            BaseMessage message;
+            if (msgType.isRequest()) {
+                RequestMessage request = new RequestMessage(msgHeader);
+                request.setReceiveTime(SystemClock.now());
+                message = request;
+            } else {
+                message = new ResponseMessage<>(msgHeader);
+            }
+            message.setDeferred(new DeferredPayload(context, buffer.readRetainedSlice(buffer.readableBytes()),
+                    serialization, compression, payloadClass, message));
+            return message;
+        }
         InputStream inputStream = buffer.inputStream();
         inputStream = compression == null ? inputStream : compression.decompress(inputStream);
-        Class payloadClass = getPayloadClass(msgHeader);
 
         Object payload = payloadClass == null ? null : deserialize(serialization, inputStream, payloadClass, msgHeader, context);
         if (msgType.isRequest()) {
@@ -466,6 +611,20 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
 
     }
 
+    /**
+     * 是否延迟解码消息体，只对业务消息生效，并且协议没有入站消息转换
+     *
+     * @param msgType 消息类型
+     * @param buffer  缓冲区
+     * @return 延迟解码标识
+     */
+    protected boolean isDeferred(final MsgType msgType, final ChannelBuffer buffer) {
+        return deferredThreshold > 0
+                && (msgType == MsgType.BizReq || msgType == MsgType.BizResp)
+                && buffer.readableBytes() >= deferredThreshold
+                && protocol.inMessage() == null;
+    }
+
     /**
      * 反序列化
      *
@@ -516,6 +675,17 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
      * @return 扩展属性
      */
     protected Map<Byte, Object> decodeAttributes(final ChannelBuffer buffer) {
+        return decodeAttributes(buffer, null);
+    }
+
+    /**
+     * 解码扩展属性
+     *
+     * @param buffer  缓冲区
+     * @param decoder 字典解码器
+     * @return 扩展属性
+     */
+    protected Map<Byte, Object> decodeAttributes(final ChannelBuffer buffer, final HeaderDictionary.Decoder decoder) {
         byte size = buffer.readByte();
         if (size <= 0) {
             return null;
@@ -523,6 +693,8 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
         Map<Byte, Object> attributes = new HashMap<>(size);
         byte key;
         byte type;
+        int index;
+        String value;
         for (int i = 0; i < size; i++) {
             key = buffer.readByte();
             type = buffer.readByte();
@@ -539,6 +711,24 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
                 case 4:
                     attributes.put(key, buffer.readShort());
                     break;
+                case 5:
+                    //字典定义
+                    index = buffer.readShort();
+                    value = buffer.readString(null, true);
+                    if (decoder == null || !decoder.put(index, value)) {
+                        throw new CodecException(String.format("Header dictionary is not negotiated or index %d is invalid", index), ExceptionCode.CODEC_HEADER_FORMAT_EXCEPTION);
+                    }
+                    attributes.put(key, value);
+                    break;
+                case 6:
+                    //字典引用
+                    index = buffer.readShort();
+                    value = decoder == null ? null : decoder.get(index);
+                    if (value == null) {
+                        throw new CodecException(String.format("Header dictionary index %d is not defined", index), ExceptionCode.CODEC_HEADER_FORMAT_EXCEPTION);
+                    }
+                    attributes.put(key, value);
+                    break;
                 default:
                     throw new CodecException("Value of attrs in message header must be byte/short/int/string", ExceptionCode.CODEC_HEADER_FORMAT_EXCEPTION);
 
@@ -552,6 +742,75 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
         return new LengthFieldFrame(2, 4, -4, 2);
     }
 
+    /**
+     * 延迟解码的消息体，持有消息体缓冲区的引用，解码或放弃的时候释放
+     */
+    protected class DeferredPayload implements Deferrable {
+        /**
+         * 上下文
+         */
+        protected final DecodeContext context;
+        /**
+         * 消息体缓冲区
+         */
+        protected final ChannelBuffer buffer;
+        /**
+         * 序列化
+         */
+        protected final Serialization serialization;
+        /**
+         * 压缩
+         */
+        protected final Compression compression;
+        /**
+         * 消息体类型
+         */
+        protected final Class payloadClass;
+        /**
+         * 消息
+         */
+        protected final BaseMessage message;
+
+        public DeferredPayload(final DecodeContext context, final ChannelBuffer buffer,
+                               final Serialization serialization, final Compression compression,
+                               final Class payloadClass, final BaseMessage message) {
+            this.context = context;
+            this.buffer = buffer;
+            this.serialization = serialization;
+            this.compression = compression;
+            this.payloadClass = payloadClass;
+            this.message = message;
+        }
+
+        @Override
+        public void decode() {
+            MessageHeader header = message.getHeader();
+            try {
+                InputStream inputStream = buffer.inputStream();
+                inputStream = compression == null ? inputStream : compression.decompress(inputStream);
+                message.setPayLoad(deserialize(serialization, inputStream, payloadClass, header, context));
+                adjustDecode(message, serialization);
+            } catch (Exception e) {
+                CodecException ce = e instanceof CodecException ? (CodecException) e : toCodecException("Error occurs while decoding.", e);
+                ce.setHeader(header);
+                if (message.isRequest()) {
+                    throw ce;
+                }
+                //应答解码失败，直接以异常结束调用，避免等待超时
+                message.setPayLoad(new ResponsePayload(ce));
+            } finally {
+                release();
+            }
+        }
+
+        @Override
+        public void release() {
+            if (!buffer.isReleased()) {
+                buffer.release();
+            }
+        }
+    }
+
     /**
      * header 长度字段信息
      */
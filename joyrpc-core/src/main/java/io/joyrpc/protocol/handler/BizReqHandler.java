@@ -21,27 +21,33 @@ package io.joyrpc.protocol.handler;
  */
 
 import io.joyrpc.Result;
+import io.joyrpc.cluster.distribution.ConcurrencyLimiter;
 import io.joyrpc.codec.compression.Compression;
+import io.joyrpc.config.InterfaceOption.ProviderMethodOption;
 import io.joyrpc.constants.ExceptionCode;
 import io.joyrpc.context.RequestContext;
 import io.joyrpc.context.injection.RespInjection;
 import io.joyrpc.context.injection.Transmit;
 import io.joyrpc.exception.*;
 import io.joyrpc.invoker.Exporter;
+import io.joyrpc.invoker.LoadShedder;
 import io.joyrpc.invoker.ServiceManager;
 import io.joyrpc.protocol.MessageHandler;
 import io.joyrpc.protocol.MsgType;
 import io.joyrpc.protocol.ServerProtocol;
 import io.joyrpc.protocol.message.*;
+import io.joyrpc.thread.Bulkhead;
 import io.joyrpc.transport.channel.Channel;
 import io.joyrpc.transport.channel.ChannelContext;
 import io.joyrpc.transport.session.Session;
 import io.joyrpc.transport.session.Session.ServerSession;
+import io.joyrpc.util.SystemClock;
 import io.joyrpc.util.network.Ipv4;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import static io.joyrpc.Plugin.RESPONSE_INJECTION;
@@ -97,13 +103,35 @@ public class BizReqHandler extends AbstractReqHandler implements MessageHandler
         try {
             //从会话恢复
             exporter = restore(request, channel);
-
-            //执行调用，包括过滤器链
-            CompletableFuture<Result> future = exporter.invoke(request);
-
-            final Exporter service = exporter;
-            future.whenComplete((r, throwable) -> onComplete(r, throwable, request, service, channel));
-
+            ProviderMethodOption option = (ProviderMethodOption) request.getOption();
+            //在进入隔离线程池排队之前获取并发许可，排队的请求也占用并发数
+            final ConcurrencyLimiter limiter = acquire(request, option.getAdaptiveLimiter());
+            final long startNanos = System.nanoTime();
+            Bulkhead bulkhead = option.getBulkhead();
+            if (bulkhead == null) {
+                invoke(request, exporter, channel, limiter, startNanos);
+            } else {
+                //在方法的隔离线程池中执行，释放公共业务线程
+                final Exporter service = exporter;
+                try {
+                    bulkhead.execute(() -> {
+                        RequestContext.restore(request.getContext());
+                        try {
+                            invoke(request, service, channel, limiter, startNanos);
+                        } catch (LafException e) {
+                            sendException(channel, e, request, service);
+                        } catch (Throwable e) {
+                            sendException(channel, new RpcException(error(invocation, channel, e.getMessage()), e), request, service);
+                        } finally {
+                            RequestContext.remove();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    //隔离线程池拒绝，任务没有执行
+                    release(limiter, request, startNanos, true);
+                    throw e;
+                }
+            }
         } catch (ClassNotFoundException | NoSuchMethodException e) {
             sendException(channel, new RpcException(error(invocation, channel, e.getMessage())), request, null);
         } catch (LafException e) {
@@ -116,6 +144,94 @@ public class BizReqHandler extends AbstractReqHandler implements MessageHandler
         }
     }
 
+    /**
+     * 获取自适应并发许可
+     *
+     * @param request 请求
+     * @param limiter 自适应并发限制
+     * @return 获取到许可的并发限制，没有开启返回null
+     * @throws OverloadException 超过并发限制
+     */
+    protected ConcurrencyLimiter acquire(final RequestMessage<Invocation> request, final ConcurrencyLimiter limiter) {
+        if (limiter != null && !limiter.getPermission()) {
+            Invocation invocation = request.getPayLoad();
+            throw new OverloadException(String.format(ExceptionCode.format(ExceptionCode.PROVIDER_ADAPTIVE_LIMIT)
+                            + "Failed to invoke method %s.%s, the concurrency of method is greater than adaptive limit: %d",
+                    invocation.getClassName(), invocation.getMethodName(), limiter.getLimit()),
+                    ExceptionCode.PROVIDER_ADAPTIVE_LIMIT, 0, true);
+        }
+        return limiter;
+    }
+
+    /**
+     * 释放自适应并发许可，耗时包括在业务线程池中的排队时间
+     *
+     * @param limiter    自适应并发限制
+     * @param request    请求
+     * @param startNanos 获取许可的时间
+     * @param dropped    是否是系统异常
+     */
+    protected void release(final ConcurrencyLimiter limiter, final RequestMessage<Invocation> request,
+                           final long startNanos, final boolean dropped) {
+        if (limiter != null) {
+            limiter.release(System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(request.getQueueTime()), dropped);
+        }
+    }
+
+    /**
+     * 执行调用，包括过滤器链，失败或完成的时候释放并发许可
+     *
+     * @param request    请求
+     * @param exporter   服务
+     * @param channel    通道
+     * @param limiter    获取到许可的自适应并发限制
+     * @param startNanos 获取许可的时间
+     */
+    protected void invoke(final RequestMessage<Invocation> request, final Exporter exporter, final Channel channel,
+                          final ConcurrencyLimiter limiter, final long startNanos) {
+        CompletableFuture<Result> future;
+        try {
+            future = invoke(request, exporter);
+        } catch (RuntimeException e) {
+            release(limiter, request, startNanos, true);
+            throw e;
+        }
+        future.whenComplete((r, throwable) -> {
+            release(limiter, request, startNanos, ConcurrencyLimiter.isDropped(r, throwable));
+            onComplete(r, throwable, request, exporter, channel);
+        });
+    }
+
+    /**
+     * 执行调用，包括过滤器链
+     *
+     * @param request  请求
+     * @param exporter 服务
+     * @return 结果
+     */
+    protected CompletableFuture<Result> invoke(final RequestMessage<Invocation> request, final Exporter exporter) {
+        LoadShedder shedder = ((ProviderMethodOption) request.getOption()).getShedder();
+        if (shedder == null) {
+            return exporter.invoke(request);
+        }
+        //剩余时间不够执行，提前丢弃，让消费者马上重试其它节点
+        int timeout = request.getTimeout() > 0 ? request.getTimeout() : request.getHeader().getTimeout();
+        long elapsed = SystemClock.now() - request.getReceiveTime();
+        if (shedder.shed(timeout, elapsed)) {
+            Invocation invocation = request.getPayLoad();
+            throw new OverloadException(String.format(ExceptionCode.format(ExceptionCode.PROVIDER_LOAD_SHED)
+                            + "Shed request %s.%s, only %d ms of %d ms is left after waiting %d ms in queue.",
+                    invocation.getClassName(), invocation.getMethodName(), timeout - elapsed, timeout, request.getQueueTime()),
+                    ExceptionCode.PROVIDER_LOAD_SHED, 0, true);
+        }
+        long start = System.nanoTime();
+        return exporter.invoke(request).whenComplete((r, throwable) -> {
+            if (throwable == null && r != null && !r.isException() && !r.getContext().isAsync()) {
+                shedder.record(System.nanoTime() - start);
+            }
+        });
+    }
+
     /**
      * 调用完成
      *
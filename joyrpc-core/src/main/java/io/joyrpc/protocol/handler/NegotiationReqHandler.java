@@ -76,6 +76,10 @@ public class NegotiationReqHandler extends AbstractNegotiationHandler<Message> i
             response.addAttribute(APPLICATION_NAME, GlobalContext.getString(KEY_APPNAME));
             response.addAttribute(APPLICATION_INSTANCE, GlobalContext.getString(KEY_APPINSID));
             response.addAttribute(APPLICATION_GROUP, GlobalContext.getString(KEY_APPGROUP));
+            //消息头字典
+            if (Converts.getBoolean(attributes.get(HEADER_DICTIONARY_OPTION.getName()), Boolean.FALSE)) {
+                response.addAttribute(HEADER_DICTIONARY_OPTION.getName(), Boolean.TRUE.toString());
+            }
         }
         return response;
     }
@@ -84,6 +84,10 @@ public class JoyClientProtocol extends AbstractProtocol implements ClientProtoco
         negotiation.addAttribute(Constants.APPLICATION_INSTANCE, GlobalContext.getString(Constants.KEY_APPINSID));
         negotiation.addAttribute(SESSION_TIMEOUT_OPTION.getName(), String.valueOf(clusterUrl.getPositiveLong(SESSION_TIMEOUT_OPTION)));
         negotiation.addAttribute(REMOTE_START_TIMESTAMP, GlobalContext.getString(Constants.KEY_START_TIME));
+        if (clusterUrl.getBoolean(Constants.HEADER_DICTIONARY_OPTION)) {
+            //请求启用消息头字典，服务端支持会在应答中返回
+            negotiation.addAttribute(Constants.HEADER_DICTIONARY_OPTION.getName(), Boolean.TRUE.toString());
+        }
         //构造协商请求消息
         return new RequestMessage<>(new MessageHeader(MsgType.NegotiationReq.getType()), negotiation);
     }
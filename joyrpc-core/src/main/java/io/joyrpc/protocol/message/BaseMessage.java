@@ -20,16 +20,22 @@ package io.joyrpc.protocol.message;
  * #L%
  */
 
+import io.joyrpc.transport.codec.Deferrable;
+
 import java.io.Serializable;
 
 /**
  * @date: 8/1/2019
  */
-public abstract class BaseMessage<T> implements Message<T>, Serializable {
+public abstract class BaseMessage<T> implements Message<T>, Serializable, Deferrable {
     /**
      * 消息头
      */
     protected transient MessageHeader header;
+    /**
+     * 延迟解码的消息体
+     */
+    protected transient Deferrable deferred;
 
     /**
      * 构造函数
@@ -88,6 +94,28 @@ public abstract class BaseMessage<T> implements Message<T>, Serializable {
         header.sessionId = sessionId;
     }
 
+    public void setDeferred(Deferrable deferred) {
+        this.deferred = deferred;
+    }
+
+    @Override
+    public void decode() {
+        Deferrable d = deferred;
+        if (d != null) {
+            deferred = null;
+            d.decode();
+        }
+    }
+
+    @Override
+    public void release() {
+        Deferrable d = deferred;
+        if (d != null) {
+            deferred = null;
+            d.release();
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
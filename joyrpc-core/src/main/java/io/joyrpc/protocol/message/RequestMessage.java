@@ -28,6 +28,7 @@ import io.joyrpc.permission.Authorization;
 import io.joyrpc.permission.Identification;
 import io.joyrpc.protocol.MsgType;
 import io.joyrpc.transport.channel.Channel;
+import io.joyrpc.transport.message.QueueAware;
 import io.joyrpc.transport.session.Session;
 import io.joyrpc.transport.transport.ChannelTransport;
 import io.joyrpc.util.SystemClock;
@@ -39,7 +40,7 @@ import java.util.function.Supplier;
 /**
  * @date: 8/1/2019
  */
-public class RequestMessage<T> extends BaseMessage<T> implements Request {
+public class RequestMessage<T> extends BaseMessage<T> implements Request, QueueAware {
 
     /**
      * 请求体信息
@@ -53,6 +54,10 @@ public class RequestMessage<T> extends BaseMessage<T> implements Request {
      * temp Property for Request receive time
      */
     protected transient long receiveTime;
+    /**
+     * 在业务线程池中的排队时间(毫秒)
+     */
+    protected transient long queueTime;
     /**
      * 原始超时时间，不是当前重试调用的超时时间
      */
@@ -245,6 +250,16 @@ public class RequestMessage<T> extends BaseMessage<T> implements Request {
         this.receiveTime = receiveTime;
     }
 
+    @Override
+    public long getQueueTime() {
+        return queueTime;
+    }
+
+    @Override
+    public void setQueueTime(long queueTime) {
+        this.queueTime = queueTime;
+    }
+
     public MethodOption getOption() {
         return option;
     }
@@ -0,0 +1,127 @@
+package io.joyrpc.thread;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.exception.OverloadException;
+import io.joyrpc.extension.URL;
+import io.joyrpc.util.Close;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.joyrpc.Plugin.THREAD_POOL;
+import static io.joyrpc.constants.Constants.*;
+
+/**
+ * 方法隔离线程池，慢方法使用独立的线程池，避免耗尽端口的公共业务线程池
+ */
+public class Bulkhead implements AutoCloseable {
+
+    /**
+     * 拒绝策略：直接返回过载异常
+     */
+    public static final String ABORT = "abort";
+    /**
+     * 拒绝策略：在调用者线程中执行
+     */
+    public static final String CALLER_RUNS = "callerRuns";
+
+    /**
+     * 分组名称
+     */
+    protected final String name;
+    /**
+     * 线程池
+     */
+    protected final ThreadPoolExecutor executor;
+    /**
+     * 满了是否在调用者线程中执行
+     */
+    protected final boolean callerRuns;
+    /**
+     * 拒绝次数
+     */
+    protected final LongAdder rejects = new LongAdder();
+
+    /**
+     * 构造函数
+     *
+     * @param name    分组名称
+     * @param url     服务URL，用于继承线程池类型，队列固定为先进先出
+     * @param threads 线程数
+     * @param queues  队列大小
+     * @param reject  拒绝策略
+     */
+    public Bulkhead(final String name, final URL url, final int threads, final int queues, final String reject) {
+        this.name = name;
+        this.callerRuns = CALLER_RUNS.equalsIgnoreCase(reject);
+        URL u = url.add(CORE_SIZE_OPTION.getName(), threads)
+                .add(MAX_SIZE_OPTION.getName(), threads)
+                .add(KEEP_ALIVE_TIME_OPTION.getName(), 0)
+                .add(QUEUES_OPTION.getName(), queues);
+        ThreadPool pool = THREAD_POOL.getOrDefault(u.getString(THREADPOOL_OPTION));
+        //任务是普通的Runnable，不能继承服务的优先级队列，固定使用先进先出队列
+        this.executor = pool.get(u, new NamedThreadFactory("RPC-BH-" + name, true),
+                o -> ThreadPool.QUEUE_FUNCTION.apply(queues, false));
+    }
+
+    /**
+     * 执行任务，线程池满了按照拒绝策略处理
+     *
+     * @param runnable 任务
+     * @throws RejectedExecutionException 拒绝策略为abort并且线程池已满
+     * @throws OverloadException          拒绝策略为abort并且线程池已满
+     */
+    public void execute(final Runnable runnable) {
+        try {
+            executor.execute(runnable);
+        } catch (RejectedExecutionException | OverloadException e) {
+            rejects.increment();
+            if (!callerRuns || executor.isShutdown()) {
+                throw e;
+            }
+            runnable.run();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ThreadPoolExecutor getExecutor() {
+        return executor;
+    }
+
+    public boolean isCallerRuns() {
+        return callerRuns;
+    }
+
+    public long getRejects() {
+        return rejects.sum();
+    }
+
+    @Override
+    public void close() {
+        Close.close(executor, 0);
+    }
+}
@@ -0,0 +1,98 @@
+package io.joyrpc.thread;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按截止时间排序的业务线程池队列，截止时间最早的请求优先执行，并统计排队等待时间和过期丢弃数量
+ */
+public class DeadlineQueue extends PriorityBlockingQueue<Runnable> {
+
+    /**
+     * 出队的任务数
+     */
+    protected final LongAdder dequeues = new LongAdder();
+    /**
+     * 累计排队等待时间(毫秒)
+     */
+    protected final LongAdder waitTime = new LongAdder();
+    /**
+     * 过期丢弃的任务数
+     */
+    protected final LongAdder expires = new LongAdder();
+    /**
+     * 最大排队等待时间(毫秒)
+     */
+    protected volatile long maxWaitTime;
+
+    public DeadlineQueue() {
+    }
+
+    public DeadlineQueue(int initialCapacity) {
+        super(initialCapacity);
+    }
+
+    /**
+     * 任务出队
+     *
+     * @param wait    排队等待时间(毫秒)
+     * @param expired 是否已经过期
+     */
+    public void onDequeue(final long wait, final boolean expired) {
+        dequeues.increment();
+        waitTime.add(wait);
+        if (wait > maxWaitTime) {
+            maxWaitTime = wait;
+        }
+        if (expired) {
+            expires.increment();
+        }
+    }
+
+    public long getDequeues() {
+        return dequeues.sum();
+    }
+
+    public long getWaitTime() {
+        return waitTime.sum();
+    }
+
+    public long getExpires() {
+        return expires.sum();
+    }
+
+    public long getMaxWaitTime() {
+        return maxWaitTime;
+    }
+
+    /**
+     * 平均排队等待时间(毫秒)
+     *
+     * @return 平均排队等待时间
+     */
+    public double getAvgWaitTime() {
+        long count = dequeues.sum();
+        return count == 0 ? 0 : (double) waitTime.sum() / count;
+    }
+}
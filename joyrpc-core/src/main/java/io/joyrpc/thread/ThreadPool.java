@@ -38,14 +38,14 @@ import static io.joyrpc.constants.Constants.QUEUE_TYPE_OPTION;
 public interface ThreadPool {
 
     /**
-     * 构建队列
+     * 构建队列，优先级队列按照请求的截止时间排序
      *
      * @param size
      * @param isPriority
      * @return
      */
     BiFunction<Integer, Boolean, BlockingQueue> QUEUE_FUNCTION = (size, isPriority) -> size == 0 ? new SynchronousQueue<>() : (isPriority ?
-            (size < 0 ? new PriorityBlockingQueue<>() : new PriorityBlockingQueue<>(size)) :
+            (size < 0 ? new DeadlineQueue() : new DeadlineQueue(size)) :
             (size < 0 ? new LinkedBlockingQueue<>() : new LinkedBlockingQueue<>(size)));
 
     /**
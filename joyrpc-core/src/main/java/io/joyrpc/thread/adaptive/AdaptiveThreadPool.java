@@ -34,7 +34,7 @@ import java.util.function.Function;
 
 
 /**
- * 自适应线程池
+ * 自适应线程池，开启自动调整后按照排队等待、利用率和吞吐量调整核心线程数
  */
 @Extension(value = "adaptive")
 public class AdaptiveThreadPool implements ThreadPool {
@@ -53,15 +53,15 @@ public class AdaptiveThreadPool implements ThreadPool {
         } else if (maxSize != null && coreSize == null) {
             coreSize = maxSize;
             keepAliveTime = keepAliveTime == null ? 0 : keepAliveTime;
-        } else if (coreSize != null) {
-            maxSize = Constants.MAX_SIZE_OPTION.getValue();
+        } else if (maxSize == null) {
+            maxSize = Math.max(coreSize, Constants.MAX_SIZE_OPTION.getValue());
             keepAliveTime = keepAliveTime == null ? Constants.KEEP_ALIVE_TIME_OPTION.getValue() : keepAliveTime;
-        } else if (maxSize == coreSize) {
+        } else if (maxSize.equals(coreSize)) {
             keepAliveTime = keepAliveTime == null ? 0 : keepAliveTime;
         } else {
             keepAliveTime = keepAliveTime == null ? Constants.KEEP_ALIVE_TIME_OPTION.getValue() : keepAliveTime;
         }
-        return new ThreadPoolExecutor(coreSize, maxSize, keepAliveTime, TimeUnit.MILLISECONDS,
+        return new AdaptiveThreadPoolExecutor(url.getProtocol() + ":" + url.getPort(), coreSize, maxSize, keepAliveTime,
                 function.apply(url),
                 threadFactory,
                 new RejectedExecutionHandler() {
@@ -69,6 +69,7 @@ public class AdaptiveThreadPool implements ThreadPool {
 
                     @Override
                     public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+                        ((AdaptiveThreadPoolExecutor) executor).onRejected();
                         if (i++ % 7 == 0) {
                             i = 1;
                             logger.warn(String.format("Task:%s has been reject for ThreadPool exhausted! pool:%d, active:%d, queue:%d, tasks: %d",
@@ -77,6 +78,9 @@ public class AdaptiveThreadPool implements ThreadPool {
                         }
                         throw new OverloadException("Biz thread pool of provider has bean exhausted", ExceptionCode.PROVIDER_THREAD_EXHAUSTED, 0, true);
                     }
-                });
+                },
+                url.getBoolean(Constants.THREAD_TUNING_OPTION),
+                url.getPositiveLong(Constants.THREAD_TUNING_INTERVAL_OPTION),
+                url.getLong(Constants.THREAD_TUNING_QUEUE_WAIT_OPTION));
     }
 }
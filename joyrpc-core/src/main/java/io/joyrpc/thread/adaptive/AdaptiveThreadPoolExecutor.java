@@ -0,0 +1,432 @@
+package io.joyrpc.thread.adaptive;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.util.SystemClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.joyrpc.util.Timer.timer;
+
+/**
+ * 自适应线程池执行器，按照排队等待时间、线程利用率和吞吐量，采用爬山算法在最小和最大线程数之间调整核心线程数。
+ * <p>
+ * 只有队列能缓存任务的时候才调整，同步队列的线程池本身就按需创建线程。
+ */
+public class AdaptiveThreadPoolExecutor extends ThreadPoolExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveThreadPoolExecutor.class);
+
+    /**
+     * 保留的决策数量
+     */
+    protected static final int MAX_DECISIONS = 16;
+    /**
+     * 空闲利用率阈值
+     */
+    protected static final double IDLE_UTILISATION = 0.5;
+    /**
+     * 吞吐量变化的容忍比例
+     */
+    protected static final double THROUGHPUT_TOLERANCE = 0.05;
+
+    /**
+     * 名称
+     */
+    protected final String name;
+    /**
+     * 是否开启自动调整
+     */
+    protected final boolean tuning;
+    /**
+     * 调整周期(毫秒)
+     */
+    protected final long interval;
+    /**
+     * 排队等待时间阈值(毫秒)
+     */
+    protected final long queueWait;
+    /**
+     * 最小线程数
+     */
+    protected volatile int minSize;
+    /**
+     * 最大线程数
+     */
+    protected volatile int maxSize;
+    /**
+     * 任务开始时间
+     */
+    protected final ThreadLocal<Long> startTime = new ThreadLocal<>();
+    /**
+     * 线程累计忙碌时间(纳秒)
+     */
+    protected final LongAdder busyTime = new LongAdder();
+    /**
+     * 拒绝次数
+     */
+    protected final LongAdder rejects = new LongAdder();
+    /**
+     * 最近一次采样
+     */
+    protected volatile Sample sample;
+    /**
+     * 上次调整的方向和步长
+     */
+    protected int lastMove;
+    /**
+     * 调整决策
+     */
+    protected final LinkedList<Decision> decisions = new LinkedList<>();
+
+    /**
+     * 构造函数
+     *
+     * @param name          名称
+     * @param coreSize      核心线程数，也是自动调整的最小线程数
+     * @param maxSize       最大线程数
+     * @param keepAliveTime 空闲时间(毫秒)
+     * @param queue         队列
+     * @param threadFactory 线程工厂
+     * @param handler       拒绝处理器
+     * @param tuning        是否开启自动调整
+     * @param interval      调整周期(毫秒)
+     * @param queueWait     排队等待时间阈值(毫秒)
+     */
+    public AdaptiveThreadPoolExecutor(final String name, final int coreSize, final int maxSize, final long keepAliveTime,
+                                      final BlockingQueue<Runnable> queue, final ThreadFactory threadFactory,
+                                      final RejectedExecutionHandler handler,
+                                      final boolean tuning, final long interval, final long queueWait) {
+        super(coreSize, maxSize, keepAliveTime, TimeUnit.MILLISECONDS, queue, threadFactory, handler);
+        this.name = name;
+        this.minSize = coreSize;
+        this.maxSize = maxSize;
+        this.tuning = tuning && !(queue instanceof SynchronousQueue);
+        this.interval = interval;
+        this.queueWait = queueWait;
+        if (this.tuning) {
+            sample = new Sample(SystemClock.now(), System.nanoTime(), 0, 0, 0);
+            timer().delay("AdaptiveThreadPool-" + name, interval, this::tune);
+        }
+    }
+
+    @Override
+    protected void beforeExecute(final Thread t, final Runnable r) {
+        if (tuning) {
+            startTime.set(System.nanoTime());
+        }
+    }
+
+    @Override
+    protected void afterExecute(final Runnable r, final Throwable t) {
+        if (tuning) {
+            Long start = startTime.get();
+            if (start != null) {
+                busyTime.add(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * 任务被拒绝
+     */
+    protected void onRejected() {
+        rejects.increment();
+    }
+
+    /**
+     * 周期性调整核心线程数
+     */
+    protected void tune() {
+        if (isShutdown()) {
+            return;
+        }
+        try {
+            Sample last = sample;
+            long nanos = System.nanoTime();
+            long elapsed = Math.max(nanos - last.nanos, 1);
+            long completed = getCompletedTaskCount();
+            long busy = busyTime.sum();
+            long rejected = rejects.sum();
+            int poolSize = Math.max(getPoolSize(), 1);
+            int queued = getQueue().size();
+            double throughput = (completed - last.completed) * 1e9 / elapsed;
+            double utilisation = Math.min((busy - last.busy) / ((double) elapsed * poolSize), 1.0);
+            //利特尔法则估算排队等待时间
+            double wait = throughput > 0 ? queued * 1000 / throughput : (queued > 0 ? interval : 0);
+            Sample current = new Sample(SystemClock.now(), nanos, completed, busy, rejected, throughput, utilisation, wait);
+
+            int size = getCorePoolSize();
+            int step = Math.max(1, size / 10);
+            int target = size;
+            String reason = null;
+            boolean dropped = throughput < last.throughput * (1 - THROUGHPUT_TOLERANCE);
+            if (wait > queueWait || rejected > last.rejected) {
+                if (lastMove > 0 && dropped) {
+                    target = size - step;
+                    reason = "throughput dropped after growth";
+                } else {
+                    target = size + step;
+                    reason = "queue wait";
+                }
+            } else if (queued == 0 && utilisation < IDLE_UTILISATION) {
+                target = size - step;
+                reason = "idle";
+            } else if (lastMove < 0 && dropped) {
+                target = size + step;
+                reason = "throughput dropped after shrink";
+            }
+            synchronized (this) {
+                target = Math.max(minSize, Math.min(maxSize, target));
+                if (target != size) {
+                    setCorePoolSize(target);
+                }
+            }
+            lastMove = target - size;
+            if (target != size) {
+                Decision decision = new Decision(current.time, size, target, throughput, utilisation, wait, reason);
+                synchronized (decisions) {
+                    decisions.addLast(decision);
+                    if (decisions.size() > MAX_DECISIONS) {
+                        decisions.removeFirst();
+                    }
+                }
+                if (logger.isDebugEnabled()) {
+                    logger.debug(String.format("Core pool size of %s is tuned from %d to %d, caused by %s.", name, size, target, reason));
+                }
+            }
+            sample = current;
+        } catch (Throwable e) {
+            logger.error(String.format("Error occurs while tuning thread pool %s, caused by %s", name, e.getMessage()));
+        } finally {
+            if (!isShutdown()) {
+                timer().delay("AdaptiveThreadPool-" + name, interval, this::tune);
+            }
+        }
+    }
+
+    /**
+     * 修改自动调整的上下限
+     *
+     * @param min 最小线程数
+     * @param max 最大线程数
+     */
+    public synchronized void setBounds(final int min, final int max) {
+        if (min <= 0 || max < min) {
+            throw new IllegalArgumentException(String.format("illegal bounds min=%d, max=%d", min, max));
+        }
+        minSize = min;
+        maxSize = max;
+        int size = Math.max(min, Math.min(getCorePoolSize(), max));
+        //保证核心线程数始终不大于最大线程数
+        if (max >= getMaximumPoolSize()) {
+            setMaximumPoolSize(max);
+            setCorePoolSize(size);
+        } else {
+            setCorePoolSize(size);
+            setMaximumPoolSize(max);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isTuning() {
+        return tuning;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getRejects() {
+        return rejects.sum();
+    }
+
+    public Sample getSample() {
+        return sample;
+    }
+
+    /**
+     * 获取最近的调整决策
+     *
+     * @return 调整决策
+     */
+    public List<Decision> getDecisions() {
+        synchronized (decisions) {
+            return new ArrayList<>(decisions);
+        }
+    }
+
+    /**
+     * 采样
+     */
+    public static class Sample {
+        /**
+         * 采样时间
+         */
+        protected final long time;
+        /**
+         * 纳秒时间
+         */
+        protected final long nanos;
+        /**
+         * 累计完成任务数
+         */
+        protected final long completed;
+        /**
+         * 累计忙碌时间
+         */
+        protected final long busy;
+        /**
+         * 累计拒绝数
+         */
+        protected final long rejected;
+        /**
+         * 吞吐量(每秒)
+         */
+        protected final double throughput;
+        /**
+         * 利用率
+         */
+        protected final double utilisation;
+        /**
+         * 排队等待时间(毫秒)
+         */
+        protected final double queueWait;
+
+        public Sample(long time, long nanos, long completed, long busy, long rejected) {
+            this(time, nanos, completed, busy, rejected, 0, 0, 0);
+        }
+
+        public Sample(long time, long nanos, long completed, long busy, long rejected,
+                      double throughput, double utilisation, double queueWait) {
+            this.time = time;
+            this.nanos = nanos;
+            this.completed = completed;
+            this.busy = busy;
+            this.rejected = rejected;
+            this.throughput = throughput;
+            this.utilisation = utilisation;
+            this.queueWait = queueWait;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public double getThroughput() {
+            return throughput;
+        }
+
+        public double getUtilisation() {
+            return utilisation;
+        }
+
+        public double getQueueWait() {
+            return queueWait;
+        }
+    }
+
+    /**
+     * 调整决策
+     */
+    public static class Decision {
+        /**
+         * 决策时间
+         */
+        protected final long time;
+        /**
+         * 调整前的核心线程数
+         */
+        protected final int from;
+        /**
+         * 调整后的核心线程数
+         */
+        protected final int to;
+        /**
+         * 吞吐量(每秒)
+         */
+        protected final double throughput;
+        /**
+         * 利用率
+         */
+        protected final double utilisation;
+        /**
+         * 排队等待时间(毫秒)
+         */
+        protected final double queueWait;
+        /**
+         * 原因
+         */
+        protected final String reason;
+
+        public Decision(long time, int from, int to, double throughput, double utilisation, double queueWait, String reason) {
+            this.time = time;
+            this.from = from;
+            this.to = to;
+            this.throughput = throughput;
+            this.utilisation = utilisation;
+            this.queueWait = queueWait;
+            this.reason = reason;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public int getFrom() {
+            return from;
+        }
+
+        public int getTo() {
+            return to;
+        }
+
+        public double getThroughput() {
+            return throughput;
+        }
+
+        public double getUtilisation() {
+            return utilisation;
+        }
+
+        public double getQueueWait() {
+            return queueWait;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+}
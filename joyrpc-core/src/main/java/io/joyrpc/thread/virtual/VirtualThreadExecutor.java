@@ -0,0 +1,222 @@
+package io.joyrpc.thread.virtual;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.constants.ExceptionCode;
+import io.joyrpc.exception.OverloadException;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 虚拟线程执行器，每个任务在新的虚拟线程中执行，通过信号量控制最大并发。
+ * <p>
+ * 继承ThreadPoolExecutor以兼容现有的线程池接口，父类的工作线程和队列不会被使用，最大线程数即最大并发数。
+ */
+public class VirtualThreadExecutor extends ThreadPoolExecutor {
+
+    /**
+     * 虚拟线程工厂
+     */
+    protected final ThreadFactory factory;
+    /**
+     * 并发许可
+     */
+    protected final Permits permits;
+    /**
+     * 最大并发数
+     */
+    protected volatile int maxConcurrency;
+    /**
+     * 核心线程数，仅用于兼容动态配置
+     */
+    protected volatile int coreConcurrency;
+    /**
+     * 正在执行的任务数
+     */
+    protected final AtomicInteger actives = new AtomicInteger();
+    /**
+     * 最大并发峰值
+     */
+    protected volatile int largest;
+    /**
+     * 提交的任务数
+     */
+    protected final LongAdder tasks = new LongAdder();
+    /**
+     * 完成的任务数
+     */
+    protected final LongAdder completes = new LongAdder();
+    /**
+     * 拒绝的任务数
+     */
+    protected final LongAdder rejects = new LongAdder();
+
+    /**
+     * 构造函数
+     *
+     * @param factory        虚拟线程工厂
+     * @param coreSize       核心线程数
+     * @param maxConcurrency 最大并发数
+     */
+    public VirtualThreadExecutor(final ThreadFactory factory, final int coreSize, final int maxConcurrency) {
+        super(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>(), factory);
+        this.factory = factory;
+        this.coreConcurrency = coreSize;
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Permits(maxConcurrency);
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        } else if (isShutdown()) {
+            throw new RejectedExecutionException("Virtual thread executor has been shutdown.");
+        } else if (!permits.tryAcquire()) {
+            rejects.increment();
+            throw new OverloadException("Biz thread pool of provider has bean exhausted", ExceptionCode.PROVIDER_THREAD_EXHAUSTED, 0, true);
+        }
+        tasks.increment();
+        int active = actives.incrementAndGet();
+        if (active > largest) {
+            largest = active;
+        }
+        try {
+            factory.newThread(() -> {
+                try {
+                    command.run();
+                } finally {
+                    completes.increment();
+                    actives.decrementAndGet();
+                    permits.release();
+                }
+            }).start();
+        } catch (Throwable e) {
+            actives.decrementAndGet();
+            permits.release();
+            throw new RejectedExecutionException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return super.isTerminated() && actives.get() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (!super.awaitTermination(timeout, unit)) {
+            return false;
+        }
+        while (actives.get() > 0) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    @Override
+    public void setCorePoolSize(final int corePoolSize) {
+        if (corePoolSize < 0) {
+            throw new IllegalArgumentException();
+        }
+        coreConcurrency = corePoolSize;
+    }
+
+    @Override
+    public int getCorePoolSize() {
+        return coreConcurrency;
+    }
+
+    @Override
+    public synchronized void setMaximumPoolSize(final int maximumPoolSize) {
+        if (maximumPoolSize <= 0) {
+            throw new IllegalArgumentException();
+        }
+        int delta = maximumPoolSize - maxConcurrency;
+        maxConcurrency = maximumPoolSize;
+        if (delta > 0) {
+            permits.release(delta);
+        } else if (delta < 0) {
+            permits.reducePermits(-delta);
+        }
+    }
+
+    @Override
+    public int getMaximumPoolSize() {
+        return maxConcurrency;
+    }
+
+    @Override
+    public int getPoolSize() {
+        return actives.get();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return actives.get();
+    }
+
+    @Override
+    public int getLargestPoolSize() {
+        return largest;
+    }
+
+    @Override
+    public long getTaskCount() {
+        return tasks.sum();
+    }
+
+    @Override
+    public long getCompletedTaskCount() {
+        return completes.sum();
+    }
+
+    public long getRejects() {
+        return rejects.sum();
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + "[virtual, max concurrency = " + maxConcurrency + ", active = " + actives.get() + "]";
+    }
+
+    /**
+     * 可以动态调整的信号量
+     */
+    protected static class Permits extends Semaphore {
+
+        public Permits(final int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(final int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.joyrpc.thread.virtual;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.extension.Extension;
+import io.joyrpc.extension.Ordered;
+import io.joyrpc.extension.URL;
+import io.joyrpc.thread.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Function;
+
+import static io.joyrpc.Plugin.THREAD_POOL;
+import static io.joyrpc.constants.Constants.*;
+
+/**
+ * 虚拟线程池，每个请求在虚拟线程中执行，最大线程数作为最大并发数，JDK21以下降级为自适应线程池
+ */
+@Extension(value = VIRTUAL_THREADPOOL, order = Ordered.ORDER + 1)
+public class VirtualThreadPool implements ThreadPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPool.class);
+
+    @Override
+    public ThreadPoolExecutor get(final URL url, final ThreadFactory threadFactory, final Function<URL, BlockingQueue> function) {
+        ThreadFactory factory = VirtualThreads.factory("RPC-VT-" + url.getPort() + "-");
+        if (factory == null) {
+            logger.warn("Virtual thread is not supported by current jvm, fall back to " + DEFAULT_THREADPOOL + " thread pool.");
+            return THREAD_POOL.get(DEFAULT_THREADPOOL).get(url, threadFactory, function);
+        }
+        VirtualThreads.monitorPinned(url.getLong(VIRTUAL_PINNED_THRESHOLD_OPTION));
+        int maxSize = url.getPositiveInt(MAX_SIZE_OPTION);
+        int coreSize = Math.min(url.getPositive(CORE_SIZE_OPTION.getName(), CORE_SIZE_OPTION.getValue()), maxSize);
+        return new VirtualThreadExecutor(factory, coreSize, maxSize);
+    }
+}
@@ -0,0 +1,254 @@
+package io.joyrpc.thread.virtual;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.PlatformManagedObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 虚拟线程工具类，通过反射访问JDK21+的虚拟线程、JFR事件流和调度器指标，低版本JDK上不可用
+ */
+public class VirtualThreads {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreads.class);
+
+    /**
+     * 虚拟线程固定(pinned)事件
+     */
+    protected static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    /**
+     * Thread.ofVirtual()
+     */
+    protected static final Method OF_VIRTUAL;
+    /**
+     * Thread.Builder.name(String,long)
+     */
+    protected static final Method BUILDER_NAME;
+    /**
+     * Thread.Builder.factory()
+     */
+    protected static final Method BUILDER_FACTORY;
+    /**
+     * 调度器MXBean，JDK24+才有
+     */
+    protected static final Object SCHEDULER;
+    /**
+     * 调度器已挂载的虚拟线程数
+     */
+    protected static final Method MOUNTED_COUNT;
+    /**
+     * 调度器排队的虚拟线程数
+     */
+    protected static final Method QUEUED_COUNT;
+    /**
+     * 载体线程池大小
+     */
+    protected static final Method POOL_SIZE;
+
+    /**
+     * 固定次数
+     */
+    protected static final LongAdder PINNED = new LongAdder();
+    /**
+     * 固定时间(纳秒)
+     */
+    protected static final LongAdder PINNED_TIME = new LongAdder();
+    /**
+     * 是否已经启动固定事件监听
+     */
+    protected static final AtomicBoolean PINNED_MONITOR = new AtomicBoolean();
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+        } catch (ClassNotFoundException | NoSuchMethodException ignored) {
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = name;
+        BUILDER_FACTORY = factory;
+
+        Object scheduler = null;
+        Method mounted = null;
+        Method queued = null;
+        Method poolSize = null;
+        try {
+            Class clazz = Class.forName("jdk.management.VirtualThreadSchedulerMXBean");
+            mounted = clazz.getMethod("getMountedVirtualThreadCount");
+            queued = clazz.getMethod("getQueuedVirtualThreadCount");
+            poolSize = clazz.getMethod("getPoolSize");
+            scheduler = ManagementFactory.getPlatformMXBean((Class<? extends PlatformManagedObject>) clazz);
+        } catch (Throwable ignored) {
+        }
+        SCHEDULER = scheduler;
+        MOUNTED_COUNT = mounted;
+        QUEUED_COUNT = queued;
+        POOL_SIZE = poolSize;
+    }
+
+    /**
+     * 当前JVM是否支持虚拟线程
+     *
+     * @return 支持标识
+     */
+    public static boolean isSupported() {
+        return BUILDER_FACTORY != null;
+    }
+
+    /**
+     * 创建虚拟线程工厂
+     *
+     * @param prefix 线程名称前缀
+     * @return 线程工厂，不支持返回null
+     */
+    public static ThreadFactory factory(final String prefix) {
+        if (!isSupported()) {
+            return null;
+        }
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            builder = BUILDER_NAME.invoke(builder, prefix, 0L);
+            return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+        } catch (Throwable e) {
+            logger.warn("Error occurs while creating virtual thread factory, caused by " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 通过JFR事件流监听虚拟线程固定事件，全局只启动一次
+     *
+     * @param threshold 固定时间阈值(毫秒)，小于等于0不监听
+     */
+    public static void monitorPinned(final long threshold) {
+        if (threshold <= 0 || !isSupported() || !PINNED_MONITOR.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Class<?> streamClass = Class.forName("jdk.jfr.consumer.RecordingStream");
+            Class<?> settingsClass = Class.forName("jdk.jfr.EventSettings");
+            Method duration = Class.forName("jdk.jfr.consumer.RecordedEvent").getMethod("getDuration");
+            Constructor<?> constructor = streamClass.getConstructor();
+            Object stream = constructor.newInstance();
+            Object settings = streamClass.getMethod("enable", String.class).invoke(stream, PINNED_EVENT);
+            settingsClass.getMethod("withThreshold", Duration.class).invoke(settings, Duration.ofMillis(threshold));
+            Consumer<Object> consumer = event -> {
+                PINNED.increment();
+                try {
+                    PINNED_TIME.add(((Duration) duration.invoke(event)).toNanos());
+                } catch (Throwable ignored) {
+                }
+            };
+            streamClass.getMethod("onEvent", String.class, Consumer.class).invoke(stream, PINNED_EVENT, consumer);
+            streamClass.getMethod("startAsync").invoke(stream);
+        } catch (Throwable e) {
+            logger.warn("Virtual thread pinned monitor is not available, caused by " + e.getMessage());
+        }
+    }
+
+    /**
+     * 固定次数
+     *
+     * @return 固定次数
+     */
+    public static long getPinned() {
+        return PINNED.sum();
+    }
+
+    /**
+     * 累计固定时间(毫秒)
+     *
+     * @return 固定时间
+     */
+    public static long getPinnedTime() {
+        return PINNED_TIME.sum() / 1000000L;
+    }
+
+    /**
+     * 载体线程并行度
+     *
+     * @return 并行度
+     */
+    public static int getCarrierParallelism() {
+        return Integer.getInteger("jdk.virtualThreadScheduler.parallelism", Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 载体线程池当前大小
+     *
+     * @return 线程数，不支持返回-1
+     */
+    public static long getCarrierPoolSize() {
+        return getSchedulerMetric(POOL_SIZE);
+    }
+
+    /**
+     * 挂载在载体线程上的虚拟线程数
+     *
+     * @return 线程数，不支持返回-1
+     */
+    public static long getMountedCount() {
+        return getSchedulerMetric(MOUNTED_COUNT);
+    }
+
+    /**
+     * 等待载体线程的虚拟线程数
+     *
+     * @return 线程数，不支持返回-1
+     */
+    public static long getQueuedCount() {
+        return getSchedulerMetric(QUEUED_COUNT);
+    }
+
+    /**
+     * 读取调度器指标
+     *
+     * @param method 方法
+     * @return 指标，不支持返回-1
+     */
+    protected static long getSchedulerMetric(final Method method) {
+        if (SCHEDULER == null || method == null) {
+            return -1;
+        }
+        try {
+            return ((Number) method.invoke(SCHEDULER)).longValue();
+        } catch (Throwable e) {
+            return -1;
+        }
+    }
+}
@@ -97,6 +97,8 @@ public interface ChannelBuffer {
 
     ChannelBuffer readSlice(int length);
 
+    ChannelBuffer readRetainedSlice(int length);
+
     void setByte(int index, int value);
 
     void setBytes(int index, byte[] src);
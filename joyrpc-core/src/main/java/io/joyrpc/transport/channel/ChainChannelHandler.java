@@ -20,20 +20,37 @@ package io.joyrpc.transport.channel;
  * #L%
  */
 
+import io.joyrpc.thread.DeadlineQueue;
+import io.joyrpc.transport.codec.Deferrable;
+import io.joyrpc.transport.message.Header;
+import io.joyrpc.transport.message.Message;
+import io.joyrpc.transport.message.QueueAware;
+import io.joyrpc.util.SystemClock;
+
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
-import java.util.function.Function;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
 
 /**
  * @date: 2019/1/15
  */
 public class ChainChannelHandler implements ChannelHandler {
 
+    /**
+     * 入队序号，截止时间相同时保持先进先出
+     */
+    protected static final AtomicLong SEQUENCE = new AtomicLong();
+
     protected ChannelHandlerChain chain;
     protected ThreadPoolExecutor executor;
+    /**
+     * 截止时间队列，用于统计排队等待
+     */
+    protected DeadlineQueue deadlineQueue;
 
-    protected Function<Runnable, Runnable> runFunc;
+    protected BiFunction<Object, Runnable, Runnable> runFunc;
 
     public ChainChannelHandler(ChannelHandlerChain chain) {
         this(chain, null);
@@ -45,9 +62,10 @@ public class ChainChannelHandler implements ChannelHandler {
         if (executor != null) {
             BlockingQueue queue = executor.getQueue();
             if (queue instanceof PriorityBlockingQueue && ((PriorityBlockingQueue) queue).comparator() == null) {
+                deadlineQueue = queue instanceof DeadlineQueue ? (DeadlineQueue) queue : null;
                 runFunc = ComparableRunnable::new;
             } else {
-                runFunc = (r) -> r;
+                runFunc = (m, r) -> r;
             }
         }
     }
@@ -75,15 +93,28 @@ public class ChainChannelHandler implements ChannelHandler {
     @Override
     public Object received(final ChannelContext context, final Object message) {
         if (executor != null) {
-            executor.execute(
-                    runFunc.apply(() -> {
-                        try {
-                            doReceived(context, message);
-                        } catch (Exception e) {
-                            //发生异常，触发异常事件
-                            context.getChannel().fireCaught(e);
-                        }
-                    }));
+            try {
+                final long enqueueTime = SystemClock.now();
+                executor.execute(
+                        runFunc.apply(message, () -> {
+                            if (message instanceof QueueAware) {
+                                //记录在业务线程池中的排队时间
+                                ((QueueAware) message).setQueueTime(SystemClock.now() - enqueueTime);
+                            }
+                            try {
+                                doReceived(context, message);
+                            } catch (Exception e) {
+                                //发生异常，触发异常事件
+                                context.getChannel().fireCaught(e);
+                            }
+                        }));
+            } catch (RuntimeException e) {
+                //线程池拒绝会抛出RejectedExecutionException或OverloadException，没有机会解码了，释放延迟解码持有的缓冲区
+                if (message instanceof Deferrable) {
+                    ((Deferrable) message).release();
+                }
+                throw e;
+            }
             return null;
         } else {
             //在IO线程中，发生异常，有底层插件捕获
@@ -99,6 +130,10 @@ public class ChainChannelHandler implements ChannelHandler {
      * @return
      */
     protected Object doReceived(final ChannelContext context, final Object message) {
+        if (message instanceof Deferrable) {
+            //在当前线程中完成延迟的消息体解码
+            ((Deferrable) message).decode();
+        }
         Object msg = message;
         for (ChannelHandler handler : chain.handlers) {
             if (context.isEnd()) {
@@ -133,21 +168,64 @@ public class ChainChannelHandler implements ChannelHandler {
         }
     }
 
-    protected class ComparableRunnable implements Runnable, Comparable {
+    /**
+     * 按截止时间排序的任务，截止时间为接收时间加上请求头的超时时间，出队时已经过期的请求直接丢弃
+     */
+    protected class ComparableRunnable implements Runnable, Comparable<ComparableRunnable> {
 
+        protected Object message;
         protected Runnable runnable;
-
-        public ComparableRunnable(Runnable runnable) {
+        /**
+         * 入队时间
+         */
+        protected long receiveTime;
+        /**
+         * 截止时间，没有超时时间的消息以入队时间作为截止时间
+         */
+        protected long deadline;
+        /**
+         * 入队序号
+         */
+        protected long sequence;
+        /**
+         * 是否可以过期丢弃
+         */
+        protected boolean expirable;
+
+        public ComparableRunnable(final Object message, final Runnable runnable) {
+            this.message = message;
             this.runnable = runnable;
+            this.receiveTime = SystemClock.now();
+            this.sequence = SEQUENCE.incrementAndGet();
+            int timeout = 0;
+            if (message instanceof Message && ((Message) message).isRequest()) {
+                Header header = ((Message) message).getHeader();
+                timeout = header == null ? 0 : header.getTimeout();
+            }
+            this.expirable = timeout > 0;
+            this.deadline = expirable ? receiveTime + timeout : receiveTime;
         }
 
         @Override
-        public int compareTo(Object o) {
-            return 0;
+        public int compareTo(final ComparableRunnable o) {
+            int result = Long.compare(deadline, o.deadline);
+            return result != 0 ? result : Long.compare(sequence, o.sequence);
         }
 
         @Override
         public void run() {
+            long now = SystemClock.now();
+            boolean expired = expirable && now > deadline;
+            if (deadlineQueue != null) {
+                deadlineQueue.onDequeue(now - receiveTime, expired);
+            }
+            if (expired) {
+                //客户端已经超时，直接丢弃，释放延迟解码持有的缓冲区
+                if (message instanceof Deferrable) {
+                    ((Deferrable) message).release();
+                }
+                return;
+            }
             runnable.run();
         }
     }
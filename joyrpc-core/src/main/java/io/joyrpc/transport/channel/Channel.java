@@ -54,6 +54,8 @@ public interface Channel {
 
     String EVENT_PUBLISHER = "EVENT_PUBLISHER";
 
+    String FLUSH_COUNTER = "FLUSH_COUNTER";
+
     /**
      * 连接转字符串
      *
@@ -25,6 +25,7 @@ import io.joyrpc.util.Timer;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * 增强的CompletableFuture
@@ -41,9 +42,9 @@ public class EnhanceCompletableFuture<I, M> extends CompletableFuture<M> {
      */
     protected final Session session;
     /**
-     * 超时时间
+     * 超时时间，先放入Future管理器再设置，避免超时任务先于放入执行
      */
-    protected final Timer.Timeout timeout;
+    protected volatile Timer.Timeout timeout;
     /**
      * Transport上的请求数
      */
@@ -52,6 +53,10 @@ public class EnhanceCompletableFuture<I, M> extends CompletableFuture<M> {
      * 扩展属性
      */
     protected Object attr;
+    /**
+     * 主动取消时的回调，从Future管理器中移除
+     */
+    protected Consumer<I> canceller;
 
     /**
      * 构造函数
@@ -69,6 +74,21 @@ public class EnhanceCompletableFuture<I, M> extends CompletableFuture<M> {
         this.timeout = timeout;
     }
 
+    /**
+     * 构造函数
+     *
+     * @param messageId
+     * @param session
+     * @param timeout
+     * @param requests
+     * @param canceller
+     */
+    public EnhanceCompletableFuture(final I messageId, final Session session, final Timer.Timeout timeout,
+                                    final AtomicInteger requests, final Consumer<I> canceller) {
+        this(messageId, session, timeout, requests);
+        this.canceller = canceller;
+    }
+
     public I getMessageId() {
         return messageId;
     }
@@ -81,6 +101,18 @@ public class EnhanceCompletableFuture<I, M> extends CompletableFuture<M> {
         return timeout;
     }
 
+    /**
+     * 设置超时任务，如果已经完成则直接放弃该任务
+     *
+     * @param timeout 超时任务
+     */
+    protected void setTimeout(final Timer.Timeout timeout) {
+        this.timeout = timeout;
+        if (isDone() && timeout != null && !timeout.isExpired()) {
+            timeout.cancel();
+        }
+    }
+
     public Object getAttr() {
         return attr;
     }
@@ -89,10 +121,21 @@ public class EnhanceCompletableFuture<I, M> extends CompletableFuture<M> {
         this.attr = attr;
     }
 
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+        boolean result = super.cancel(mayInterruptIfRunning);
+        if (result && canceller != null) {
+            //主动取消(例如对冲请求的失败者)，从Future管理器移除，释放请求计数和超时任务，应答到达后直接丢弃
+            canceller.accept(messageId);
+        }
+        return result;
+    }
+
     /**
      * 放弃过期检查任务，在从Future管理器移除任务会进行调用
      */
     protected void cancel() {
+        Timer.Timeout timeout = this.timeout;
         if (timeout != null && !timeout.isExpired()) {
             timeout.cancel();
         }
@@ -0,0 +1,90 @@
+package io.joyrpc.transport.channel;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * 合并刷新计数器，记录通道上写入消息与实际刷新次数，用于评估写合并效果
+ */
+public class FlushCounter {
+    /**
+     * 写入消息数
+     */
+    protected volatile long writes;
+    /**
+     * 写入字节数
+     */
+    protected volatile long bytes;
+    /**
+     * 实际刷新次数
+     */
+    protected volatile long flushes;
+
+    /**
+     * 写入消息，只在IO线程中调用
+     *
+     * @param size 字节数，未知则为0
+     */
+    public void onWrite(final int size) {
+        writes++;
+        if (size > 0) {
+            bytes += size;
+        }
+    }
+
+    /**
+     * 刷新，只在IO线程中调用
+     */
+    public void onFlush() {
+        flushes++;
+    }
+
+    public long getWrites() {
+        return writes;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getFlushes() {
+        return flushes;
+    }
+
+    /**
+     * 被合并掉的刷新次数
+     *
+     * @return 合并次数
+     */
+    public long getMerged() {
+        long result = writes - flushes;
+        return result < 0 ? 0 : result;
+    }
+
+    @Override
+    public String toString() {
+        return "FlushCounter{" +
+                "writes=" + writes +
+                ", bytes=" + bytes +
+                ", flushes=" + flushes +
+                '}';
+    }
+}
@@ -22,22 +22,22 @@ package io.joyrpc.transport.channel;
 
 import io.joyrpc.exception.ChannelClosedException;
 import io.joyrpc.transport.session.Session;
+import io.joyrpc.util.LongHashTable;
+import io.joyrpc.util.StripedTimer;
 import io.joyrpc.util.SystemClock;
 import io.joyrpc.util.Timer;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
-import static io.joyrpc.util.Timer.timer;
+import static io.joyrpc.util.StripedTimer.timer;
 
 /**
  * @date: 2019/1/14
  */
-public class FutureManager<I, M> {
+public class FutureManager<I extends Number, M> {
     /**
      * 通道
      */
@@ -46,18 +46,22 @@ public class FutureManager<I, M> {
      * ID生成器
      */
     protected Supplier<I> idGenerator;
-    /**
-     * 计数器
-     */
-    protected AtomicInteger counter = new AtomicInteger();
     /**
      * 消费者
      */
     protected Consumer<I> consumer;
     /**
-     * Future管理，有些连接并发很少不需要初始化
+     * 主动取消的消费者
+     */
+    protected Consumer<I> canceller;
+    /**
+     * 超时定时器分段，同一个连接的请求使用同一个分段
      */
-    protected Map<I, EnhanceCompletableFuture<I, M>> futures = new ConcurrentHashMap<>();
+    protected StripedTimer.Stripe timer;
+    /**
+     * Future管理，按照消息ID存放，有些连接并发很少，槽位延迟初始化
+     */
+    protected LongHashTable<EnhanceCompletableFuture<I, M>> futures = new LongHashTable<>(f -> f.getMessageId().longValue());
 
     /**
      * 构造函数
@@ -68,14 +72,16 @@ public class FutureManager<I, M> {
     public FutureManager(final Channel channel, final Supplier<I> idGenerator) {
         this.channel = channel;
         this.idGenerator = idGenerator;
+        this.timer = timer().stripe();
         this.consumer = id -> {
-            EnhanceCompletableFuture<I, M> future = futures.remove(id);
+            EnhanceCompletableFuture<I, M> future = futures.remove(id.longValue());
             if (future != null) {
-                counter.decrementAndGet();
-                //超时
+                //超时，释放请求计数
+                future.cancel();
                 future.completeExceptionally(new TimeoutException("future is timeout."));
             }
         };
+        this.canceller = this::remove;
     }
 
     /**
@@ -90,7 +96,7 @@ public class FutureManager<I, M> {
     }
 
     /**
-     * 创建一个future
+     * 创建一个future，消息ID由ID生成器产生，调用方保证唯一
      *
      * @param messageId     消息ID
      * @param timeoutMillis 超时时间
@@ -100,13 +106,11 @@ public class FutureManager<I, M> {
      */
     public EnhanceCompletableFuture<I, M> create(final I messageId, final long timeoutMillis, final Session session,
                                                  final AtomicInteger requests) {
-        return futures.computeIfAbsent(messageId, o -> {
-            //增加计数器
-            counter.incrementAndGet();
-            return new EnhanceCompletableFuture<>(o, session,
-                    timer().add(new FutureTimeoutTask<>(messageId, SystemClock.now() + timeoutMillis, consumer)),
-                    requests);
-        });
+        EnhanceCompletableFuture<I, M> result = new EnhanceCompletableFuture<>(messageId, session, null, requests, canceller);
+        //先放入再启动超时检查，超时任务才能从管理器中找到并移除该Future
+        futures.add(result);
+        result.setTimeout(timer.delay(timeoutMillis, new FutureTimeoutTask<>(messageId, SystemClock.now() + timeoutMillis, consumer)));
+        return result;
     }
 
     /**
@@ -116,7 +120,7 @@ public class FutureManager<I, M> {
      * @return
      */
     public EnhanceCompletableFuture<I, M> get(final I messageId) {
-        return futures.get(messageId);
+        return futures.get(messageId.longValue());
     }
 
     /**
@@ -126,12 +130,10 @@ public class FutureManager<I, M> {
      * @return
      */
     public EnhanceCompletableFuture<I, M> remove(final I messageId) {
-        EnhanceCompletableFuture<I, M> result = futures.remove(messageId);
+        EnhanceCompletableFuture<I, M> result = futures.remove(messageId.longValue());
         if (result != null) {
             //放弃过期检查任务
             result.cancel();
-            //减少计数器
-            counter.decrementAndGet();
         }
         return result;
     }
@@ -148,12 +150,8 @@ public class FutureManager<I, M> {
      * @return
      */
     public void close() {
-        Map<I, EnhanceCompletableFuture<I, M>> futures = this.futures;
-        this.futures = new ConcurrentHashMap<>();
-        this.counter = new AtomicInteger();
         Exception exception = new ChannelClosedException("channel is inactive, address is " + channel.getRemoteAddress());
-        futures.forEach((id, future) -> future.cancel(exception));
-        futures.clear();
+        futures.clear(future -> future.cancel(exception));
     }
 
     /**
@@ -171,7 +169,7 @@ public class FutureManager<I, M> {
      * @return
      */
     public int size() {
-        return counter.get();
+        return futures.size();
     }
 
     /**
@@ -180,7 +178,7 @@ public class FutureManager<I, M> {
      * @return
      */
     public boolean isEmpty() {
-        return counter.get() == 0;
+        return futures.isEmpty();
     }
 
     /**
@@ -0,0 +1,199 @@
+package io.joyrpc.transport.channel;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.extension.URL;
+import io.joyrpc.transport.transport.ClientTransport;
+
+import java.net.InetSocketAddress;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.joyrpc.constants.Constants.*;
+
+/**
+ * 连接池通道管理器，每个节点最多维持固定数量的物理连接，传输通道按照绑定数量均匀分布到这些连接上。<br/>
+ * 均衡的粒度是传输通道而不是单个请求：会话协商和认证的状态保存在物理连接上，编解码在会话建立后会省略类名，
+ * 同一个传输通道的请求不能分散到不同的连接。因此：
+ * <ul>
+ * <li>连接在传输通道创建的时候选择，之后不会迁移，只有多个传输通道(例如多个接口)共享节点的时候才能分摊到多个连接；</li>
+ * <li>连接在第一个传输通道绑定的时候建立，在最后一个传输通道释放的时候关闭，不会根据负载扩容或缩容。</li>
+ * </ul>
+ * 每个连接的监控信息可以通过telnet的pool命令查看。
+ */
+public class PooledChannelManager extends AbstractChannelManager implements ChannelManager {
+
+    /**
+     * 每个节点的选择序号，绑定数相同的时候轮流选择，避免连接建立前创建的传输通道都落到同一个连接
+     */
+    protected Map<String, AtomicInteger> sequences = new ConcurrentHashMap<>();
+
+    public PooledChannelManager(URL url) {
+        super(url);
+    }
+
+    @Override
+    public String getChannelKey(final ClientTransport transport) {
+        if (transport == null) {
+            return null;
+        }
+        URL url = transport.getUrl();
+        String prefix = getPrefix(url);
+        int size = Math.max(url.getPositiveInt(CHANNEL_POOL_SIZE_OPTION), 1);
+        //选择绑定传输通道最少的连接，未建立的连接绑定数为0
+        int start = (sequences.computeIfAbsent(prefix, o -> new AtomicInteger()).getAndIncrement() & Integer.MAX_VALUE) % size;
+        int best = start;
+        long bestRefs = Long.MAX_VALUE;
+        PoolChannel channel;
+        long refs;
+        int index;
+        for (int i = 0; i < size; i++) {
+            index = (start + i) % size;
+            channel = channels.get(prefix + index);
+            refs = channel == null ? 0 : channel.counter.get();
+            if (refs < bestRefs) {
+                best = index;
+                bestRefs = refs;
+                if (refs == 0) {
+                    break;
+                }
+            }
+        }
+        return prefix + best;
+    }
+
+    /**
+     * 获取节点的连接前缀
+     *
+     * @param url url
+     * @return 前缀
+     */
+    protected String getPrefix(final URL url) {
+        return "ch-pooled-" + url.getProtocol() + "-" + url.getHost() + "-" + url.getPort() + "-";
+    }
+
+    /**
+     * 获取连接上的在途请求数
+     *
+     * @param channel 连接
+     * @return 在途请求数
+     */
+    protected int getInflight(final PoolChannel channel) {
+        Channel ch = channel.channel;
+        return ch == null ? 0 : ch.getFutureManager().size();
+    }
+
+    /**
+     * 获取连接池的监控快照
+     *
+     * @return 每个连接的监控信息
+     */
+    public List<PoolMetric> getMetrics() {
+        List<PoolMetric> result = new LinkedList<>();
+        Channel ch;
+        for (PoolChannel channel : channels.values()) {
+            ch = channel.channel;
+            result.add(new PoolMetric(channel.name, ch == null ? null : ch.getRemoteAddress(), channel.status.name(),
+                    channel.counter.get(), getInflight(channel), ch != null && ch.isWritable()));
+        }
+        return result;
+    }
+
+    /**
+     * 单个连接的监控信息
+     */
+    public static class PoolMetric {
+        /**
+         * 名称
+         */
+        protected final String name;
+        /**
+         * 远程地址
+         */
+        protected final InetSocketAddress remoteAddress;
+        /**
+         * 状态
+         */
+        protected final String status;
+        /**
+         * 绑定的传输通道数
+         */
+        protected final long transports;
+        /**
+         * 在途请求数
+         */
+        protected final int inflight;
+        /**
+         * 是否可写
+         */
+        protected final boolean writable;
+
+        public PoolMetric(String name, InetSocketAddress remoteAddress, String status, long transports, int inflight, boolean writable) {
+            this.name = name;
+            this.remoteAddress = remoteAddress;
+            this.status = status;
+            this.transports = transports;
+            this.inflight = inflight;
+            this.writable = writable;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public InetSocketAddress getRemoteAddress() {
+            return remoteAddress;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public long getTransports() {
+            return transports;
+        }
+
+        public int getInflight() {
+            return inflight;
+        }
+
+        public boolean isWritable() {
+            return writable;
+        }
+
+        @Override
+        public String toString() {
+            return "PoolMetric{" +
+                    "name='" + name + '\'' +
+                    ", remoteAddress=" + remoteAddress +
+                    ", status='" + status + '\'' +
+                    ", transports=" + transports +
+                    ", inflight=" + inflight +
+                    ", writable=" + writable +
+                    '}';
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package io.joyrpc.transport.channel;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.extension.Extension;
+import io.joyrpc.extension.URL;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @date: 2019/2/21
+ */
+@Extension(value = "pooled", singleton = true)
+public class PooledChannelManagerFactory implements ChannelManagerFactory {
+
+    private Map<String, PooledChannelManager> managers = new ConcurrentHashMap<>();
+
+    @Override
+    public ChannelManager getChannelManager(URL url) {
+        return managers.computeIfAbsent(
+                url.toString(false, false),
+                o -> new PooledChannelManager(url)
+        );
+    }
+
+    /**
+     * 获取所有的连接池管理器，用于输出监控信息
+     *
+     * @return 连接池管理器
+     */
+    public Collection<PooledChannelManager> getManagers() {
+        return managers.values();
+    }
+}
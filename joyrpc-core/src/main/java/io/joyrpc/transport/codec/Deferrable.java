@@ -0,0 +1,38 @@
+package io.joyrpc.transport.codec;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * 延迟解码，IO线程只解码消息头并持有消息体缓冲区，消息体在业务线程中解码
+ */
+public interface Deferrable {
+
+    /**
+     * 完成消息体解码，并释放持有的缓冲区
+     */
+    void decode();
+
+    /**
+     * 放弃解码，释放持有的缓冲区
+     */
+    void release();
+}
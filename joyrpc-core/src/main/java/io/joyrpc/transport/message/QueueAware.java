@@ -0,0 +1,42 @@
+package io.joyrpc.transport.message;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * 感知在业务线程池中排队时间的消息
+ */
+public interface QueueAware {
+
+    /**
+     * 设置在业务线程池中的排队时间
+     *
+     * @param queueTime 排队时间(毫秒)
+     */
+    void setQueueTime(long queueTime);
+
+    /**
+     * 获取在业务线程池中的排队时间
+     *
+     * @return 排队时间(毫秒)
+     */
+    long getQueueTime();
+}
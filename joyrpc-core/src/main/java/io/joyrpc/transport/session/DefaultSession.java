@@ -136,6 +136,10 @@ public class DefaultSession implements RpcSession {
      * 上次心跳时间
      */
     protected long lastTime;
+    /**
+     * 消息头字典
+     */
+    protected volatile HeaderDictionary headerDictionary;
 
     public DefaultSession() {
     }
@@ -340,6 +344,18 @@ public class DefaultSession implements RpcSession {
         this.lastTime = lastTime;
     }
 
+    @Override
+    public HeaderDictionary getHeaderDictionary() {
+        if (headerDictionary == null && Boolean.parseBoolean(attrs.get(HEADER_DICTIONARY_OPTION.getName()))) {
+            synchronized (this) {
+                if (headerDictionary == null) {
+                    headerDictionary = new HeaderDictionary();
+                }
+            }
+        }
+        return headerDictionary;
+    }
+
     @Override
     public String get(String key) {
         return key == null ? null : attrs.get(key);
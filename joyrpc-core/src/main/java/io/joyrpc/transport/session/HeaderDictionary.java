@@ -0,0 +1,171 @@
+package io.joyrpc.transport.session;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 会话级别的消息头字符串字典，在会话内重复出现的字符串只在第一次传输内容，后续用索引引用，类似HPACK。<br/>
+ * 编码器和解码器分别对应发送和接收方向，编解码都在连接的IO线程上按顺序执行，所以不需要加锁。
+ */
+public class HeaderDictionary {
+
+    /**
+     * 字典容量，两端必须一致
+     */
+    public static final int CAPACITY = 256;
+    /**
+     * 参与字典的字符串最大长度
+     */
+    public static final int MAX_LENGTH = 1024;
+
+    /**
+     * 编码器
+     */
+    protected final Encoder encoder = new Encoder();
+    /**
+     * 解码器
+     */
+    protected final Decoder decoder = new Decoder();
+
+    public Encoder getEncoder() {
+        return encoder;
+    }
+
+    public Decoder getDecoder() {
+        return decoder;
+    }
+
+    /**
+     * 发送方向的字典
+     */
+    public static class Encoder {
+        /**
+         * 字符串索引
+         */
+        protected final Map<String, Integer> indexes = new HashMap<>(CAPACITY);
+        /**
+         * 按照索引存放的字符串，用于回滚
+         */
+        protected final String[] values = new String[CAPACITY];
+        /**
+         * 每个属性上一次发送的值，连续两次相同才加入字典，避免追踪ID等一次性的值占满字典
+         */
+        protected final String[] lasts = new String[256];
+        /**
+         * 大小
+         */
+        protected int size;
+        /**
+         * 本次编码开始时候的大小
+         */
+        protected int mark;
+
+        /**
+         * 获取字符串的索引
+         *
+         * @param value 字符串
+         * @return 索引，不存在返回-1
+         */
+        public int get(final String value) {
+            Integer index = size == 0 ? null : indexes.get(value);
+            return index == null ? -1 : index;
+        }
+
+        /**
+         * 尝试把字符串加入字典
+         *
+         * @param key   属性键
+         * @param value 字符串
+         * @return 新分配的索引，不加入字典返回-1
+         */
+        public int add(final byte key, final String value) {
+            int pos = key & 0xFF;
+            String last = lasts[pos];
+            lasts[pos] = value;
+            if (size >= CAPACITY || value.length() > MAX_LENGTH || !value.equals(last)) {
+                return -1;
+            }
+            int index = size++;
+            values[index] = value;
+            indexes.put(value, index);
+            return index;
+        }
+
+        /**
+         * 开始编码一条消息
+         */
+        public void mark() {
+            mark = size;
+        }
+
+        /**
+         * 消息编码失败，撤销本次定义的字符串，防止对端收到未定义的引用
+         */
+        public void rollback() {
+            while (size > mark) {
+                indexes.remove(values[--size]);
+                values[size] = null;
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * 接收方向的字典
+     */
+    public static class Decoder {
+        /**
+         * 按照索引存放的字符串
+         */
+        protected final String[] values = new String[CAPACITY];
+
+        /**
+         * 定义字符串
+         *
+         * @param index 索引
+         * @param value 字符串
+         * @return 成功标识
+         */
+        public boolean put(final int index, final String value) {
+            if (index < 0 || index >= CAPACITY) {
+                return false;
+            }
+            values[index] = value;
+            return true;
+        }
+
+        /**
+         * 获取字符串
+         *
+         * @param index 索引
+         * @return 字符串
+         */
+        public String get(final int index) {
+            return index < 0 || index >= CAPACITY ? null : values[index];
+        }
+    }
+}
@@ -222,6 +222,15 @@ public interface Session {
     void setSerializations(List<String> serializations);
 
 
+    /**
+     * 获取协商的消息头字典
+     *
+     * @return 消息头字典，没有协商返回null
+     */
+    default HeaderDictionary getHeaderDictionary() {
+        return null;
+    }
+
     /**
      * 获取可用压缩算法
      *
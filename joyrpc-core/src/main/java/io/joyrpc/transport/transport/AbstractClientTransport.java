@@ -107,7 +107,9 @@ public abstract class AbstractClientTransport extends DefaultChannelTransport im
      */
     public AbstractClientTransport(URL url) {
         super(url);
-        this.channelManager = CHANNEL_MANAGER_FACTORY.getOrDefault(url.getString(CHANNEL_MANAGER_FACTORY_OPTION)).getChannelManager(url);
+        //兼容消费者配置的channelFactory参数
+        this.channelManager = CHANNEL_MANAGER_FACTORY.getOrDefault(url.getString(CHANNEL_MANAGER_FACTORY_OPTION.getName(),
+                CHANNEL_FACTORY_OPTION.getName(), CHANNEL_MANAGER_FACTORY_OPTION.getValue())).getChannelManager(url);
         this.channelName = channelManager.getChannelKey(this);
         this.publisher = EVENT_BUS.get().getPublisher(EVENT_PUBLISHER_CLIENT_NAME, channelName, EVENT_PUBLISHER_TRANSPORT_CONF);
     }
@@ -66,6 +66,23 @@ public class Futures {
         return result;
     }
 
+    /**
+     * 传递取消操作，派生的Future被取消时取消源Future
+     *
+     * @param source 源Future
+     * @param target 派生的Future
+     * @param <T>
+     * @return 派生的Future
+     */
+    public static <T> CompletableFuture<T> chainCancel(final CompletableFuture<?> source, final CompletableFuture<T> target) {
+        target.whenComplete((v, t) -> {
+            if (target.isCancelled()) {
+                source.cancel(false);
+            }
+        });
+        return target;
+    }
+
     /**
      * 出现异常
      *
@@ -0,0 +1,426 @@
+package io.joyrpc.util;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * 以long为键的无锁开放寻址表，适用于按递增消息ID存放待应答请求的场景。<br/>
+ * 键从值中提取，槽位只存放值，插入和删除都是对槽位的CAS操作，不分配额外对象；
+ * 数据超过负载或者连续探测失败的时候成倍扩容，迁移时旧槽位标记为已迁移，并发操作遇到该标记转到新槽位重试；
+ * 达到最大容量后才把少量数据溢出到ConcurrentHashMap中。调用方需要保证存活的键唯一。
+ */
+public class LongHashTable<V> {
+
+    /**
+     * 默认初始容量
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+    /**
+     * 默认最大容量
+     */
+    public static final int DEFAULT_MAX_CAPACITY = 1 << 20;
+    /**
+     * 最大探测次数
+     */
+    protected static final int MAX_PROBES = 16;
+    /**
+     * 已迁移标记
+     */
+    protected static final Object MOVED = new Object();
+
+    /**
+     * 初始容量，2的幂
+     */
+    protected final int initialCapacity;
+    /**
+     * 最大容量，2的幂
+     */
+    protected final int maxCapacity;
+    /**
+     * 从值中提取键的函数
+     */
+    protected final ToLongFunction<V> keyFunction;
+    /**
+     * 槽位，延迟初始化，有些连接不需要
+     */
+    protected volatile AtomicReferenceArray<Object> table;
+    /**
+     * 精确的数据条数
+     */
+    protected final AtomicInteger size = new AtomicInteger();
+    /**
+     * 溢出的数据条数，为0的时候不访问溢出表
+     */
+    protected final AtomicInteger spills = new AtomicInteger();
+    /**
+     * 溢出表
+     */
+    protected final Map<Long, V> spill = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param keyFunction 提取键的函数
+     */
+    public LongHashTable(final ToLongFunction<V> keyFunction) {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_CAPACITY, keyFunction);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param capacity    初始容量，会调整为2的幂
+     * @param keyFunction 提取键的函数
+     */
+    public LongHashTable(final int capacity, final ToLongFunction<V> keyFunction) {
+        this(capacity, Math.max(capacity, DEFAULT_MAX_CAPACITY), keyFunction);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param capacity    初始容量，会调整为2的幂
+     * @param maxCapacity 最大容量，会调整为2的幂
+     * @param keyFunction 提取键的函数
+     */
+    public LongHashTable(final int capacity, final int maxCapacity, final ToLongFunction<V> keyFunction) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        } else if (maxCapacity < capacity) {
+            throw new IllegalArgumentException("maxCapacity must be greater than or equal to capacity");
+        } else if (keyFunction == null) {
+            throw new NullPointerException("keyFunction can not be null.");
+        }
+        this.initialCapacity = powerOfTwo(capacity);
+        this.maxCapacity = powerOfTwo(maxCapacity);
+        this.keyFunction = keyFunction;
+    }
+
+    /**
+     * 调整为2的幂，不小于最大探测次数
+     *
+     * @param capacity 容量
+     * @return 2的幂
+     */
+    protected static int powerOfTwo(final int capacity) {
+        return capacity < MAX_PROBES ? MAX_PROBES : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * 获取槽位，延迟初始化
+     *
+     * @return 槽位
+     */
+    protected AtomicReferenceArray<Object> getTable() {
+        AtomicReferenceArray<Object> result = table;
+        if (result == null) {
+            synchronized (this) {
+                result = table;
+                if (result == null) {
+                    result = new AtomicReferenceArray<>(initialCapacity);
+                    table = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 等待迁移完成，返回新的槽位
+     *
+     * @param slots 正在迁移的槽位
+     * @return 新的槽位
+     */
+    protected AtomicReferenceArray<Object> await(final AtomicReferenceArray<Object> slots) {
+        AtomicReferenceArray<Object> result;
+        //扩容很少发生，迁移过程很短，让出CPU等待即可
+        while ((result = table) == slots) {
+            Thread.yield();
+        }
+        return result;
+    }
+
+    /**
+     * 计算起始槽位，消息ID连续递增，直接取低位
+     *
+     * @param key  键
+     * @param mask 掩码
+     * @return 槽位
+     */
+    protected int index(final long key, final int mask) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    /**
+     * 添加数据，调用方保证键唯一
+     *
+     * @param value 值
+     */
+    public void add(final V value) {
+        long key = keyFunction.applyAsLong(value);
+        //先增加计数，保证数据可见的时候计数已经包含该数据
+        int count = size.incrementAndGet();
+        AtomicReferenceArray<Object> slots = getTable();
+        while (true) {
+            int length = slots.length();
+            //超过3/4负载先扩容，保持探测序列较短
+            if (count > length - (length >>> 2) && length < maxCapacity) {
+                slots = resize(slots);
+                continue;
+            }
+            int mask = length - 1;
+            int index = index(key, mask);
+            Object old;
+            boolean moved = false;
+            for (int i = 0; i < MAX_PROBES; i++) {
+                old = slots.get(index);
+                if (old == MOVED) {
+                    moved = true;
+                    break;
+                } else if (old == null) {
+                    if (slots.compareAndSet(index, null, value)) {
+                        return;
+                    } else if (slots.get(index) == MOVED) {
+                        moved = true;
+                        break;
+                    }
+                }
+                index = (index + 1) & mask;
+            }
+            if (moved) {
+                slots = await(slots);
+            } else if (length < maxCapacity) {
+                //探测失败，扩容后重试
+                slots = resize(slots);
+            } else {
+                //已经达到最大容量，溢出
+                spills.incrementAndGet();
+                spill.put(key, value);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 成倍扩容，把旧槽位的数据迁移到新槽位
+     *
+     * @param slots 当前槽位
+     * @return 新的槽位
+     */
+    @SuppressWarnings("unchecked")
+    protected AtomicReferenceArray<Object> resize(final AtomicReferenceArray<Object> slots) {
+        synchronized (this) {
+            if (table != slots) {
+                //已经被其它线程扩容
+                return await(slots);
+            }
+            int length = slots.length();
+            AtomicReferenceArray<Object> result = new AtomicReferenceArray<>(length << 1);
+            int mask = result.length() - 1;
+            Object value;
+            for (int i = 0; i < length; i++) {
+                //标记为已迁移，并发的添加和删除会在新槽位上重试
+                value = slots.getAndSet(i, MOVED);
+                if (value != null) {
+                    long key = keyFunction.applyAsLong((V) value);
+                    int index = index(key, mask);
+                    boolean added = false;
+                    for (int j = 0; j < MAX_PROBES; j++) {
+                        if (result.get(index) == null) {
+                            result.set(index, value);
+                            added = true;
+                            break;
+                        }
+                        index = (index + 1) & mask;
+                    }
+                    if (!added) {
+                        spills.incrementAndGet();
+                        spill.put(key, (V) value);
+                    }
+                }
+            }
+            table = result;
+            return result;
+        }
+    }
+
+    /**
+     * 获取数据
+     *
+     * @param key 键
+     * @return 值
+     */
+    @SuppressWarnings("unchecked")
+    public V get(final long key) {
+        AtomicReferenceArray<Object> slots = table;
+        while (slots != null) {
+            int mask = slots.length() - 1;
+            int index = index(key, mask);
+            Object value;
+            boolean moved = false;
+            //删除会产生空洞，需要探测完整的范围
+            for (int i = 0; i < MAX_PROBES; i++) {
+                value = slots.get(index);
+                if (value == MOVED) {
+                    moved = true;
+                    break;
+                } else if (value != null && keyFunction.applyAsLong((V) value) == key) {
+                    return (V) value;
+                }
+                index = (index + 1) & mask;
+            }
+            slots = moved ? await(slots) : null;
+        }
+        return spills.get() > 0 ? spill.get(key) : null;
+    }
+
+    /**
+     * 删除数据
+     *
+     * @param key 键
+     * @return 删除的值
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(final long key) {
+        AtomicReferenceArray<Object> slots = table;
+        while (slots != null) {
+            int mask = slots.length() - 1;
+            int index = index(key, mask);
+            Object value;
+            boolean moved = false;
+            for (int i = 0; i < MAX_PROBES; i++) {
+                value = slots.get(index);
+                if (value == MOVED) {
+                    moved = true;
+                    break;
+                } else if (value != null && keyFunction.applyAsLong((V) value) == key) {
+                    if (slots.compareAndSet(index, value, null)) {
+                        size.decrementAndGet();
+                        return (V) value;
+                    } else if (slots.get(index) == MOVED) {
+                        //正在迁移，到新槽位重试
+                        moved = true;
+                        break;
+                    }
+                    //被并发删除
+                    return null;
+                }
+                index = (index + 1) & mask;
+            }
+            slots = moved ? await(slots) : null;
+        }
+        if (spills.get() > 0) {
+            V value = spill.remove(key);
+            if (value != null) {
+                spills.decrementAndGet();
+                size.decrementAndGet();
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 删除所有数据
+     *
+     * @param consumer 消费者
+     */
+    @SuppressWarnings("unchecked")
+    public void clear(final Consumer<V> consumer) {
+        AtomicReferenceArray<Object> slots = table;
+        while (slots != null) {
+            Object value;
+            boolean moved = false;
+            for (int i = 0; i < slots.length(); i++) {
+                value = slots.get(i);
+                if (value == MOVED) {
+                    moved = true;
+                } else if (value != null) {
+                    if (slots.compareAndSet(i, value, null)) {
+                        size.decrementAndGet();
+                        if (consumer != null) {
+                            consumer.accept((V) value);
+                        }
+                    } else if (slots.get(i) == MOVED) {
+                        moved = true;
+                    }
+                }
+            }
+            slots = moved ? await(slots) : null;
+        }
+        if (spills.get() > 0) {
+            for (Long key : spill.keySet()) {
+                V value = spill.remove(key);
+                if (value != null) {
+                    spills.decrementAndGet();
+                    size.decrementAndGet();
+                    if (consumer != null) {
+                        consumer.accept(value);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 数据条数
+     *
+     * @return 数据条数
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * 是否为空
+     *
+     * @return 为空标识
+     */
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    /**
+     * 当前容量
+     *
+     * @return 容量
+     */
+    public int getCapacity() {
+        AtomicReferenceArray<Object> slots = table;
+        return slots == null ? initialCapacity : slots.length();
+    }
+
+    /**
+     * 最大容量
+     *
+     * @return 最大容量
+     */
+    public int getMaxCapacity() {
+        return maxCapacity;
+    }
+}
@@ -0,0 +1,461 @@
+package io.joyrpc.util;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.context.GlobalContext;
+import io.joyrpc.extension.MapParametric;
+import io.joyrpc.extension.Parametric;
+import io.joyrpc.thread.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import static io.joyrpc.Plugin.ENVIRONMENT;
+import static io.joyrpc.constants.Constants.TIMER_THREADS;
+import static io.joyrpc.constants.Constants.TIMEOUT_TIMER_STRIPES;
+
+/**
+ * 分段的高精度超时定时器，用于请求超时检查。<br/>
+ * 每个分段有独立的时间轮和调度线程，默认一跳1毫秒，添加和放弃任务的复杂度都是O(1)且不加锁，
+ * 放弃的任务在调度线程遍历到其所在的时间槽时才移除。没有待处理的任务时调度线程挂起。
+ */
+public class StripedTimer {
+
+    private final static Logger logger = LoggerFactory.getLogger(StripedTimer.class);
+
+    /**
+     * 默认定时器
+     */
+    protected static volatile StripedTimer timer;
+
+    /**
+     * 分段
+     */
+    protected final Stripe[] stripes;
+    /**
+     * 分配分段的计数器
+     */
+    protected final AtomicInteger counter = new AtomicInteger();
+    /**
+     * 过期任务执行线程，避免业务回调阻塞调度线程
+     */
+    protected final ExecutorService workerPool;
+
+    /**
+     * 构造函数
+     *
+     * @param name          名称
+     * @param tickTime      每一跳时间(纳秒)
+     * @param ticks         时间轮有几跳，会调整为2的幂
+     * @param stripes       分段数
+     * @param workerThreads 工作线程数
+     */
+    public StripedTimer(final String name, final long tickTime, final int ticks, final int stripes, final int workerThreads) {
+        if (tickTime <= 0) {
+            throw new IllegalArgumentException("tickTime must be greater than 0");
+        } else if (ticks <= 0) {
+            throw new IllegalArgumentException("ticks must be greater than 0");
+        } else if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes must be greater than 0");
+        } else if (workerThreads <= 0) {
+            throw new IllegalArgumentException("workerThreads must be greater than 0");
+        }
+        String prefix = name == null || name.isEmpty() ? "striped-timer" : name;
+        int size = ticks == 1 ? 1 : Integer.highestOneBit(ticks - 1) << 1;
+        this.workerPool = Executors.newFixedThreadPool(workerThreads, new NamedThreadFactory(prefix + "-worker", true));
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe(tickTime, size, workerPool);
+            Thread thread = new Thread(this.stripes[i], prefix + "-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * 获取默认的请求超时定时器，一跳1毫秒
+     *
+     * @return 定时器
+     */
+    public static StripedTimer timer() {
+        if (timer == null) {
+            synchronized (StripedTimer.class) {
+                if (timer == null) {
+                    Parametric parametric = new MapParametric<>(GlobalContext.getContext());
+                    int cpus = ENVIRONMENT.get().cpuCores();
+                    timer = new StripedTimer("timeout", TimeUnit.MILLISECONDS.toNanos(1), 1024,
+                            parametric.getPositive(TIMEOUT_TIMER_STRIPES, Math.min(Math.max(cpus / 2, 1), 8)),
+                            parametric.getPositive(TIMER_THREADS, Math.min(cpus * 2 + 2, 10)));
+                }
+            }
+        }
+        return timer;
+    }
+
+    /**
+     * 轮流分配分段，同一个连接的请求使用同一个分段
+     *
+     * @return 分段
+     */
+    public Stripe stripe() {
+        return stripes[(counter.getAndIncrement() & Integer.MAX_VALUE) % stripes.length];
+    }
+
+    /**
+     * 添加延迟任务，使用当前线程对应的分段
+     *
+     * @param delay    延迟时间(毫秒)
+     * @param runnable 任务
+     * @return 超时对象
+     */
+    public Timer.Timeout delay(final long delay, final Runnable runnable) {
+        return stripes[(int) (Thread.currentThread().getId() % stripes.length)].delay(delay, runnable);
+    }
+
+    /**
+     * 分段，单个调度线程的时间轮
+     */
+    public static class Stripe implements Runnable {
+
+        protected static final AtomicReferenceFieldUpdater<Stripe, Entry> TAIL_UPDATER =
+                AtomicReferenceFieldUpdater.newUpdater(Stripe.class, Entry.class, "tail");
+
+        /**
+         * 一跳的时间(纳秒)
+         */
+        protected final long tickTime;
+        /**
+         * 时间槽掩码
+         */
+        protected final int mask;
+        /**
+         * 时间槽
+         */
+        protected final Entry[] buckets;
+        /**
+         * 过期任务执行线程
+         */
+        protected final ExecutorService workerPool;
+        /**
+         * 待处理的任务数(不含已放弃的)
+         */
+        protected final AtomicInteger pending = new AtomicInteger();
+        /**
+         * 新增任务队列的头部，只有调度线程访问
+         */
+        protected Entry head;
+        /**
+         * 新增任务队列的尾部
+         */
+        protected volatile Entry tail;
+        /**
+         * 调度线程
+         */
+        protected volatile Thread thread;
+        /**
+         * 调度线程是否挂起
+         */
+        protected volatile boolean sleeping;
+        /**
+         * 时间轮的起始时间
+         */
+        protected long startTime;
+        /**
+         * 当前跳数
+         */
+        protected long tick;
+
+        /**
+         * 构造函数
+         *
+         * @param tickTime   一跳的时间(纳秒)
+         * @param ticks      时间槽数量，2的幂
+         * @param workerPool 过期任务执行线程
+         */
+        public Stripe(final long tickTime, final int ticks, final ExecutorService workerPool) {
+            this.tickTime = tickTime;
+            this.mask = ticks - 1;
+            this.buckets = new Entry[ticks];
+            for (int i = 0; i < ticks; i++) {
+                //每个时间槽是一个带根节点的双向循环链表
+                Entry root = new Entry(null, 0, null);
+                root.next = root;
+                root.pre = root;
+                buckets[i] = root;
+            }
+            this.workerPool = workerPool;
+            this.head = new Entry(null, 0, null);
+            this.tail = head;
+        }
+
+        /**
+         * 添加延迟任务
+         *
+         * @param delay    延迟时间(毫秒)
+         * @param runnable 任务
+         * @return 超时对象
+         */
+        public Timer.Timeout delay(final long delay, final Runnable runnable) {
+            if (runnable == null) {
+                return null;
+            }
+            Entry entry = new Entry(this, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(delay, 0)), runnable);
+            pending.incrementAndGet();
+            //无锁的多生产者单消费者入队
+            Entry pre = TAIL_UPDATER.getAndSet(this, entry);
+            pre.link = entry;
+            if (sleeping) {
+                LockSupport.unpark(thread);
+            }
+            return entry;
+        }
+
+        /**
+         * 待处理的任务数
+         *
+         * @return 任务数
+         */
+        public int size() {
+            return pending.get();
+        }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            startTime = System.nanoTime();
+            while (!Shutdown.isShutdown()) {
+                try {
+                    if (pending.get() == 0) {
+                        //没有任务，挂起等待
+                        idle();
+                    }
+                    waitForNextTick();
+                    transfer();
+                    expire(buckets[(int) (tick & mask)]);
+                    tick++;
+                } catch (Throwable e) {
+                    logger.error(e.getMessage(), e);
+                }
+            }
+        }
+
+        /**
+         * 没有任务的时候挂起
+         */
+        protected void idle() {
+            sleeping = true;
+            try {
+                while (pending.get() == 0 && !Shutdown.isShutdown()) {
+                    LockSupport.park(this);
+                }
+            } finally {
+                sleeping = false;
+            }
+            //时间轮中只剩下放弃的任务，从当前时间重新开始计算
+            startTime = System.nanoTime() - tick * tickTime;
+        }
+
+        /**
+         * 等待下一跳
+         */
+        protected void waitForNextTick() {
+            long deadline = tickTime * (tick + 1);
+            long current;
+            long sleep;
+            while (true) {
+                current = System.nanoTime() - startTime;
+                sleep = deadline - current;
+                if (sleep <= 0) {
+                    return;
+                }
+                LockSupport.parkNanos(this, sleep);
+            }
+        }
+
+        /**
+         * 把新增的任务放入时间槽
+         */
+        protected void transfer() {
+            Entry entry;
+            //一跳最多10万个任务
+            for (int i = 0; i < 100000; i++) {
+                entry = head.link;
+                if (entry == null) {
+                    break;
+                }
+                head.link = null;
+                head = entry;
+                if (entry.state == Entry.INIT) {
+                    long calculated = (entry.deadline - startTime) / tickTime;
+                    entry.rounds = (calculated - tick) / buckets.length;
+                    //过期的任务放在当前槽立即执行
+                    long ticks = Math.max(calculated, tick);
+                    Entry root = buckets[(int) (ticks & mask)];
+                    Entry last = root.pre;
+                    entry.next = root;
+                    entry.pre = last;
+                    last.next = entry;
+                    root.pre = entry;
+                }
+            }
+        }
+
+        /**
+         * 处理时间槽中过期的任务
+         *
+         * @param root 时间槽根节点
+         */
+        protected void expire(final Entry root) {
+            Entry entry = root.next;
+            Entry next;
+            while (entry != root) {
+                next = entry.next;
+                if (entry.state != Entry.INIT) {
+                    //已经放弃的任务
+                    entry.remove();
+                } else if (entry.rounds <= 0) {
+                    //按照向下取整放入时间槽，处理该槽的时候已经过期
+                    entry.remove();
+                    entry.expire();
+                } else {
+                    entry.rounds--;
+                }
+                entry = next;
+            }
+        }
+    }
+
+    /**
+     * 超时任务
+     */
+    protected static class Entry implements Timer.Timeout {
+        protected static final int INIT = 0;
+        protected static final int CANCELLED = 1;
+        protected static final int EXPIRED = 2;
+        protected static final AtomicIntegerFieldUpdater<Entry> STATE_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+
+        /**
+         * 分段
+         */
+        protected final Stripe stripe;
+        /**
+         * 过期时间(纳秒)
+         */
+        protected final long deadline;
+        /**
+         * 任务
+         */
+        protected Runnable runnable;
+        /**
+         * 剩余的圈数
+         */
+        protected long rounds;
+        /**
+         * 时间槽链表的下一个节点
+         */
+        protected Entry next;
+        /**
+         * 时间槽链表的上一个节点
+         */
+        protected Entry pre;
+        /**
+         * 新增队列的下一个节点
+         */
+        protected volatile Entry link;
+        /**
+         * 状态
+         */
+        protected volatile int state = INIT;
+
+        /**
+         * 构造函数
+         *
+         * @param stripe   分段
+         * @param deadline 过期时间
+         * @param runnable 任务
+         */
+        public Entry(final Stripe stripe, final long deadline, final Runnable runnable) {
+            this.stripe = stripe;
+            this.deadline = deadline;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (STATE_UPDATER.compareAndSet(this, INIT, CANCELLED)) {
+                //延迟到调度线程遍历时间槽时移除，释放任务引用
+                runnable = null;
+                stripe.pending.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * 过期执行
+         */
+        protected void expire() {
+            if (STATE_UPDATER.compareAndSet(this, INIT, EXPIRED)) {
+                Runnable task = runnable;
+                runnable = null;
+                stripe.pending.decrementAndGet();
+                if (task != null) {
+                    try {
+                        stripe.workerPool.execute(task);
+                    } catch (Throwable e) {
+                        logger.error("Error occurs while executing timeout task. caused by " + e.getMessage(), e);
+                    }
+                }
+            }
+        }
+
+        /**
+         * 从时间槽移除
+         */
+        protected void remove() {
+            if (pre != null) {
+                pre.next = next;
+                next.pre = pre;
+                pre = null;
+                next = null;
+            }
+        }
+    }
+}
@@ -34,6 +34,7 @@ import io.joyrpc.protocol.dubbo.message.DubboResponsePayload;
 import io.joyrpc.protocol.message.MessageHeader;
 import io.joyrpc.protocol.message.RequestMessage;
 import io.joyrpc.transport.buffer.ChannelBuffer;
+import io.joyrpc.transport.codec.DecodeContext;
 import io.joyrpc.transport.codec.EncodeContext;
 import io.joyrpc.transport.message.Header;
 import io.joyrpc.transport.message.Message;
@@ -110,7 +111,7 @@ public class DubboCodec extends AbstractCodec {
     }
 
     @Override
-    protected Header decodeHeader(final ChannelBuffer buffer) {
+    protected Header decodeHeader(final DecodeContext context, final ChannelBuffer buffer) {
         DubboMessageHeader header = new DubboMessageHeader();
 
         byte flag = buffer.readByte();
@@ -23,7 +23,12 @@ package io.joyrpc.protocol.telnet.handler;
  * #L%
  */
 
+import io.joyrpc.invoker.Exporter;
 import io.joyrpc.invoker.ServiceManager;
+import io.joyrpc.thread.DeadlineQueue;
+import io.joyrpc.thread.adaptive.AdaptiveThreadPoolExecutor;
+import io.joyrpc.thread.virtual.VirtualThreadExecutor;
+import io.joyrpc.thread.virtual.VirtualThreads;
 import io.joyrpc.transport.Server;
 import io.joyrpc.transport.channel.Channel;
 import io.joyrpc.transport.telnet.TelnetResponse;
@@ -76,6 +81,7 @@ public class BizThreadTelnetHandler extends AbstractTelnetHandler {
             Map<String, Object> result = new HashMap<>(100);
             export(CALLBACK, ServiceManager.getCallbackThreadPool(), result);
             export(ServiceManager.getServers(), result);
+            ServiceManager.exports(o -> export(o, result));
             return new TelnetResponse(JSON.get().toJSONString(result));
         } else {
             String port = cmd.getOptionValue("p", String.valueOf(channel.getLocalAddress().getPort()));
@@ -157,6 +163,20 @@ public class BizThreadTelnetHandler extends AbstractTelnetHandler {
         export(String.valueOf(server.getLocalAddress().getPort()), server.getBizThreadPool(), result);
     }
 
+    /**
+     * 输出服务的方法隔离线程池信息
+     * @param exporter
+     * @param result
+     */
+    protected void export(final Exporter exporter, final Map<String, Object> result) {
+        exporter.getBulkheads().forEach((name, bulkhead) -> {
+            Map<String, Object> map = export(bulkhead.getExecutor());
+            map.put("rejects", bulkhead.getRejects());
+            map.put("callerRuns", bulkhead.isCallerRuns());
+            result.put(exporter.getPort() + "/" + exporter.getInterfaceName() + "/" + exporter.getAlias() + "/" + name, map);
+        });
+    }
+
     /**
      * 线程池信息
      * @param name
@@ -179,6 +199,35 @@ public class BizThreadTelnetHandler extends AbstractTelnetHandler {
         result.put("current", executor.getPoolSize());
         result.put("active", executor.getActiveCount());
         result.put("queue", executor.getQueue().size());
+        if (executor.getQueue() instanceof DeadlineQueue) {
+            DeadlineQueue queue = (DeadlineQueue) executor.getQueue();
+            result.put("dequeues", queue.getDequeues());
+            result.put("avgWait", queue.getAvgWaitTime());
+            result.put("maxWait", queue.getMaxWaitTime());
+            result.put("expires", queue.getExpires());
+        }
+        if (executor instanceof AdaptiveThreadPoolExecutor) {
+            AdaptiveThreadPoolExecutor adaptive = (AdaptiveThreadPoolExecutor) executor;
+            result.put("rejects", adaptive.getRejects());
+            if (adaptive.isTuning()) {
+                Map<String, Object> tuning = new HashMap<>(8);
+                tuning.put("min", adaptive.getMinSize());
+                tuning.put("max", adaptive.getMaxSize());
+                tuning.put("sample", adaptive.getSample());
+                tuning.put("decisions", adaptive.getDecisions());
+                result.put("tuning", tuning);
+            }
+        }
+        if (executor instanceof VirtualThreadExecutor) {
+            result.put("virtual", true);
+            result.put("rejects", ((VirtualThreadExecutor) executor).getRejects());
+            result.put("pinned", VirtualThreads.getPinned());
+            result.put("pinnedTime", VirtualThreads.getPinnedTime());
+            result.put("carrierParallelism", VirtualThreads.getCarrierParallelism());
+            result.put("carrierPoolSize", VirtualThreads.getCarrierPoolSize());
+            result.put("mounted", VirtualThreads.getMountedCount());
+            result.put("queued", VirtualThreads.getQueuedCount());
+        }
         return result;
     }
 }
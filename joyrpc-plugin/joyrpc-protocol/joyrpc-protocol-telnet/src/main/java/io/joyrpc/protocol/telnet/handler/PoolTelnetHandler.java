@@ -0,0 +1,98 @@
+package io.joyrpc.protocol.telnet.handler;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.transport.channel.Channel;
+import io.joyrpc.transport.channel.ChannelManagerFactory;
+import io.joyrpc.transport.channel.PooledChannelManager;
+import io.joyrpc.transport.channel.PooledChannelManager.PoolMetric;
+import io.joyrpc.transport.channel.PooledChannelManagerFactory;
+import io.joyrpc.transport.telnet.TelnetResponse;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Options;
+
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static io.joyrpc.Plugin.CHANNEL_MANAGER_FACTORY;
+import static io.joyrpc.Plugin.JSON;
+
+/**
+ * 输出消费者连接池中每个连接的监控信息
+ */
+public class PoolTelnetHandler extends AbstractTelnetHandler {
+
+    public PoolTelnetHandler() {
+        options = new Options()
+                .addOption(HELP_SHORT, HELP_LONG, false, "show help message for command pool");
+    }
+
+    @Override
+    public String type() {
+        return "pool";
+    }
+
+    @Override
+    public String description() {
+        return "Display the connections of the pooled channel manager.";
+    }
+
+    @Override
+    public String shortDescription() {
+        return "Display the channel pool information.";
+    }
+
+    @Override
+    public TelnetResponse telnet(final Channel channel, final String[] args) {
+        CommandLine cmd = getCommand(options, args);
+        if (cmd.hasOption(HELP_SHORT)) {
+            return new TelnetResponse(help());
+        }
+        Map<String, Object> result = new TreeMap<>();
+        ChannelManagerFactory factory = CHANNEL_MANAGER_FACTORY.get("pooled");
+        if (factory instanceof PooledChannelManagerFactory) {
+            for (PooledChannelManager manager : ((PooledChannelManagerFactory) factory).getManagers()) {
+                manager.getMetrics().forEach(o -> result.put(o.getName(), export(o)));
+            }
+        }
+        return new TelnetResponse(JSON.get().toJSONString(result));
+    }
+
+    /**
+     * 连接信息
+     *
+     * @param metric 连接监控信息
+     * @return 连接信息
+     */
+    protected Map<String, Object> export(final PoolMetric metric) {
+        Map<String, Object> result = new HashMap<>(8);
+        InetSocketAddress address = metric.getRemoteAddress();
+        result.put("remoteAddress", address == null ? null : address.getHostString() + ":" + address.getPort());
+        result.put("status", metric.getStatus());
+        result.put("transports", metric.getTransports());
+        result.put("inflight", metric.getInflight());
+        result.put("writable", metric.isWritable());
+        return result;
+    }
+}
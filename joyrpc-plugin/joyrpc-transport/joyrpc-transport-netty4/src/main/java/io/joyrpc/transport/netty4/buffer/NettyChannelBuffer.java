@@ -192,6 +192,11 @@ public class NettyChannelBuffer implements ChannelBuffer {
         return new NettyChannelBuffer(byteBuf.readSlice(length));
     }
 
+    @Override
+    public ChannelBuffer readRetainedSlice(final int length) {
+        return new NettyChannelBuffer(byteBuf.readRetainedSlice(length));
+    }
+
     @Override
     public void setInt(final int index, final int value) {
         byteBuf.setInt(index, value);
@@ -0,0 +1,91 @@
+package io.joyrpc.transport.netty4.channel;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.event.AsyncResult;
+import io.joyrpc.transport.channel.Channel;
+import io.joyrpc.transport.netty4.handler.ShardStatHandler;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 分片的服务端通道，多个监听通过SO_REUSEPORT绑定在同一个端口上，每个分片有独立的boss和worker线程池。<br/>
+ * 第一个分片作为主通道，关闭的时候关闭所有分片。
+ */
+public class NettyShardedServerChannel extends NettyServerChannel {
+
+    /**
+     * 其它分片
+     */
+    protected List<NettyServerChannel> shards;
+    /**
+     * 分片统计
+     */
+    protected List<ShardStatHandler> stats;
+
+    /**
+     * 构造函数
+     *
+     * @param primary 主分片
+     * @param shards  其它分片
+     * @param stats   分片统计
+     */
+    public NettyShardedServerChannel(final NettyServerChannel primary,
+                                     final List<NettyServerChannel> shards,
+                                     final List<ShardStatHandler> stats) {
+        super(primary.channel, primary.bossGroup, primary.workerGroup, primary.supplier);
+        this.shards = shards;
+        this.stats = stats;
+    }
+
+    /**
+     * 获取分片统计
+     *
+     * @return 分片统计
+     */
+    public List<ShardStatHandler> getStats() {
+        return stats;
+    }
+
+    @Override
+    public void close(final Consumer<AsyncResult<Channel>> consumer) {
+        List<Throwable> throwables = new LinkedList<>();
+        AtomicInteger counter = new AtomicInteger(shards.size() + 1);
+        Consumer<AsyncResult<Channel>> c = r -> {
+            if (!r.isSuccess()) {
+                synchronized (throwables) {
+                    throwables.add(r.getThrowable());
+                }
+            }
+            if (counter.decrementAndGet() == 0 && consumer != null) {
+                consumer.accept(throwables.isEmpty() ? new AsyncResult<>(this) : new AsyncResult<>(this, throwables.get(0)));
+            }
+        };
+        for (NettyServerChannel shard : shards) {
+            shard.close(c);
+        }
+        super.close(c);
+    }
+}
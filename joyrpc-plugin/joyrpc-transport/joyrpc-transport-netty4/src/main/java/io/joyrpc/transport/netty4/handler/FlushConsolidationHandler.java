@@ -0,0 +1,232 @@
+package io.joyrpc.transport.netty4.handler;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.constants.Constants;
+import io.joyrpc.extension.URL;
+import io.joyrpc.transport.channel.FlushCounter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+/**
+ * 写合并处理器，把同一个事件循环内的多次刷新合并成一次，减少write系统调用。<br/>
+ * 未刷新的消息数或字节数超过阈值时立即刷新，读事件进行中的刷新延迟到读完成时执行。
+ */
+public class FlushConsolidationHandler extends ChannelDuplexHandler {
+
+    /**
+     * 最大合并消息数
+     */
+    protected final int maxMessages;
+    /**
+     * 最大合并字节数
+     */
+    protected final int maxBytes;
+    /**
+     * 计数器
+     */
+    protected final FlushCounter counter;
+    /**
+     * 未刷新的消息数
+     */
+    protected int pendingMessages;
+    /**
+     * 未刷新的字节数
+     */
+    protected long pendingBytes;
+    /**
+     * 是否有待执行的刷新请求
+     */
+    protected boolean flushPending;
+    /**
+     * 是否正在读
+     */
+    protected boolean readInProgress;
+    /**
+     * 是否已经调度了刷新任务
+     */
+    protected boolean scheduled;
+    /**
+     * 上下文
+     */
+    protected ChannelHandlerContext ctx;
+    /**
+     * 刷新任务
+     */
+    protected final Runnable flushTask = () -> {
+        scheduled = false;
+        if (flushPending && !readInProgress) {
+            flushNow(ctx);
+        }
+    };
+
+    /**
+     * 构造函数
+     *
+     * @param url     url
+     * @param counter 计数器
+     */
+    public FlushConsolidationHandler(final URL url, final FlushCounter counter) {
+        this(url.getPositiveInt(Constants.WRITE_COALESCING_MESSAGES_OPTION),
+                url.getPositiveInt(Constants.WRITE_COALESCING_BYTES_OPTION), counter);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param maxMessages 最大合并消息数
+     * @param maxBytes    最大合并字节数
+     * @param counter     计数器
+     */
+    public FlushConsolidationHandler(final int maxMessages, final int maxBytes, final FlushCounter counter) {
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.counter = counter == null ? new FlushCounter() : counter;
+    }
+
+    public FlushCounter getCounter() {
+        return counter;
+    }
+
+    @Override
+    public void handlerAdded(final ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) throws Exception {
+        int size = size(msg);
+        pendingMessages++;
+        pendingBytes += size;
+        counter.onWrite(size);
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(final ChannelHandlerContext ctx) throws Exception {
+        flushPending = true;
+        if (pendingMessages >= maxMessages || pendingBytes >= maxBytes) {
+            //超过阈值立即刷新
+            flushNow(ctx);
+        } else if (!readInProgress && !scheduled) {
+            //在当前事件循环的任务之后执行刷新，合并期间写入的消息
+            scheduled = true;
+            ctx.executor().execute(flushTask);
+        }
+    }
+
+    @Override
+    public void channelRead(final ChannelHandlerContext ctx, final Object msg) throws Exception {
+        readInProgress = true;
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelReadComplete(final ChannelHandlerContext ctx) throws Exception {
+        resetReadAndFlush(ctx);
+        ctx.fireChannelReadComplete();
+    }
+
+    @Override
+    public void channelWritabilityChanged(final ChannelHandlerContext ctx) throws Exception {
+        if (!ctx.channel().isWritable()) {
+            //不可写的时候尽快把缓冲区数据刷出去
+            flushIfNeeded(ctx);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void exceptionCaught(final ChannelHandlerContext ctx, final Throwable cause) throws Exception {
+        resetReadAndFlush(ctx);
+        ctx.fireExceptionCaught(cause);
+    }
+
+    @Override
+    public void disconnect(final ChannelHandlerContext ctx, final ChannelPromise promise) throws Exception {
+        resetReadAndFlush(ctx);
+        ctx.disconnect(promise);
+    }
+
+    @Override
+    public void close(final ChannelHandlerContext ctx, final ChannelPromise promise) throws Exception {
+        resetReadAndFlush(ctx);
+        ctx.close(promise);
+    }
+
+    @Override
+    public void handlerRemoved(final ChannelHandlerContext ctx) throws Exception {
+        flushIfNeeded(ctx);
+    }
+
+    /**
+     * 读结束，执行刷新
+     *
+     * @param ctx 上下文
+     */
+    protected void resetReadAndFlush(final ChannelHandlerContext ctx) {
+        readInProgress = false;
+        flushIfNeeded(ctx);
+    }
+
+    /**
+     * 有待刷新请求则刷新
+     *
+     * @param ctx 上下文
+     */
+    protected void flushIfNeeded(final ChannelHandlerContext ctx) {
+        if (flushPending) {
+            flushNow(ctx);
+        }
+    }
+
+    /**
+     * 立即刷新
+     *
+     * @param ctx 上下文
+     */
+    protected void flushNow(final ChannelHandlerContext ctx) {
+        flushPending = false;
+        pendingMessages = 0;
+        pendingBytes = 0;
+        counter.onFlush();
+        ctx.flush();
+    }
+
+    /**
+     * 计算消息大小
+     *
+     * @param msg 消息
+     * @return 字节数
+     */
+    protected int size(final Object msg) {
+        if (msg instanceof ByteBuf) {
+            return ((ByteBuf) msg).readableBytes();
+        } else if (msg instanceof ByteBufHolder) {
+            return ((ByteBufHolder) msg).content().readableBytes();
+        }
+        return 0;
+    }
+}
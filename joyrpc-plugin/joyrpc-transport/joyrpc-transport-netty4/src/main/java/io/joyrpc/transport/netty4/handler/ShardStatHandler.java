@@ -0,0 +1,123 @@
+package io.joyrpc.transport.netty4.handler;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 监听分片统计，统计分片上的连接数和读写字节数，放在管道最前面统计原始字节
+ */
+@ChannelHandler.Sharable
+public class ShardStatHandler extends ChannelDuplexHandler {
+
+    /**
+     * 分片序号
+     */
+    protected final int shard;
+    /**
+     * 当前连接数
+     */
+    protected final AtomicLong connections = new AtomicLong();
+    /**
+     * 累计接入的连接数
+     */
+    protected final AtomicLong accepted = new AtomicLong();
+    /**
+     * 读取字节数
+     */
+    protected final LongAdder readBytes = new LongAdder();
+    /**
+     * 写入字节数
+     */
+    protected final LongAdder writtenBytes = new LongAdder();
+
+    public ShardStatHandler(int shard) {
+        this.shard = shard;
+    }
+
+    @Override
+    public void channelActive(final ChannelHandlerContext ctx) throws Exception {
+        connections.incrementAndGet();
+        accepted.incrementAndGet();
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(final ChannelHandlerContext ctx) throws Exception {
+        connections.decrementAndGet();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void channelRead(final ChannelHandlerContext ctx, final Object msg) throws Exception {
+        if (msg instanceof ByteBuf) {
+            readBytes.add(((ByteBuf) msg).readableBytes());
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    @Override
+    public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) throws Exception {
+        if (msg instanceof ByteBuf) {
+            writtenBytes.add(((ByteBuf) msg).readableBytes());
+        }
+        super.write(ctx, msg, promise);
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public long getConnections() {
+        return connections.get();
+    }
+
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    public long getReadBytes() {
+        return readBytes.sum();
+    }
+
+    public long getWrittenBytes() {
+        return writtenBytes.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "ShardStat{" +
+                "shard=" + shard +
+                ", connections=" + connections.get() +
+                ", accepted=" + accepted.get() +
+                ", readBytes=" + readBytes.sum() +
+                ", writtenBytes=" + writtenBytes.sum() +
+                '}';
+    }
+}
@@ -83,6 +83,36 @@ public class EventLoopGroupFactory {
         return result;
     }
 
+    /**
+     * 获取监听分片的boss线程EventLoop，每个分片一个线程，不共享
+     *
+     * @param url   url实例
+     * @param shard 分片序号
+     * @return EventLoopGroup
+     */
+    public static EventLoopGroup getBossGroup(final URL url, final int shard) {
+        ReferenceEventLoopGroup result = groups.computeIfAbsent(getKey(url, EVENT_LOOP_GROUP_BOSS, false) + "." + shard,
+                o -> create(o, url, EVENT_LOOP_GROUP_BOSS + "-" + shard, 1, false));
+        result.addRef();
+        return result;
+    }
+
+    /**
+     * 获取监听分片的worker线程EventLoop，IO线程数按照分片数平分，不共享
+     *
+     * @param url    url实例
+     * @param shard  分片序号
+     * @param shards 分片数
+     * @return EventLoopGroup
+     */
+    public static EventLoopGroup getWorkerGroup(final URL url, final int shard, final int shards) {
+        ReferenceEventLoopGroup result = groups.computeIfAbsent(getKey(url, EVENT_LOOP_GROUP_WORKER, false) + "." + shard,
+                o -> create(o, url, EVENT_LOOP_GROUP_WORKER + "-" + shard,
+                        Math.max(url.getPositiveInt(IO_THREAD_OPTION) / shards, 1), false));
+        result.addRef();
+        return result;
+    }
+
     /**
      * 通过url获取client端worker线程EventLoop
      *
@@ -125,9 +155,26 @@ public class EventLoopGroupFactory {
                                                     final String threadName,
                                                     final URLOption<Integer> ioThread,
                                                     final boolean share) {
-        int threads = url.getPositiveInt(ioThread);
+        return create(name, url, threadName, url.getPositiveInt(ioThread), share);
+    }
+
+    /**
+     * 创建EventLoop
+     *
+     * @param name       名称
+     * @param url        url
+     * @param threadName 线程名称
+     * @param threads    线程数
+     * @param share      共享标识
+     * @return
+     */
+    protected static ReferenceEventLoopGroup create(final String name,
+                                                    final URL url,
+                                                    final String threadName,
+                                                    final int threads,
+                                                    final boolean share) {
         boolean epoll = isUseEpoll(url);
-        logger.info(String.format("Success creating eventLoopGroup. name:%s, threads:%d, epoll:%b. ", ioThread.getName(), threads, epoll));
+        logger.info(String.format("Success creating eventLoopGroup. name:%s, threads:%d, epoll:%b. ", name, threads, epoll));
         return new ReferenceEventLoopGroup(name,
                 epoll ?
                         new EpollEventLoopGroup(threads, new NamedThreadFactory(threadName, true)) :
@@ -27,11 +27,13 @@ import io.joyrpc.exception.SslException;
 import io.joyrpc.extension.URL;
 import io.joyrpc.transport.channel.Channel;
 import io.joyrpc.transport.channel.ChannelManager.Connector;
+import io.joyrpc.transport.channel.FlushCounter;
 import io.joyrpc.transport.heartbeat.HeartbeatStrategy.HeartbeatMode;
 import io.joyrpc.transport.netty4.Plugin;
 import io.joyrpc.transport.netty4.binder.HandlerBinder;
 import io.joyrpc.transport.netty4.channel.NettyClientChannel;
 import io.joyrpc.transport.netty4.handler.ConnectionChannelHandler;
+import io.joyrpc.transport.netty4.handler.FlushConsolidationHandler;
 import io.joyrpc.transport.netty4.handler.IdleHeartbeatHandler;
 import io.joyrpc.transport.netty4.ssl.SslContextManager;
 import io.joyrpc.transport.transport.AbstractClientTransport;
@@ -159,6 +161,12 @@ public class NettyClientTransport extends AbstractClientTransport {
                                     addLast("idleState", new IdleStateHandler(0, heartbeatStrategy.getInterval(), 0, TimeUnit.MILLISECONDS)).
                                     addLast("idleHeartbeat", new IdleHeartbeatHandler());
                         }
+                        //写合并，放在编码器之后，能够统计编码后的字节数
+                        if (url.getBoolean(WRITE_COALESCING_OPTION)) {
+                            FlushCounter counter = new FlushCounter();
+                            channels[0].setAttribute(Channel.FLUSH_COUNTER, counter);
+                            ch.pipeline().addFirst("flushConsolidation", new FlushConsolidationHandler(url, counter));
+                        }
                         if (sslContext != null) {
                             ch.pipeline().addFirst("ssl", sslContext.newHandler(ch.alloc()));
                         }
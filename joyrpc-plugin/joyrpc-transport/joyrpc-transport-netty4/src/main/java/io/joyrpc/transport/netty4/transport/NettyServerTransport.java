@@ -25,26 +25,38 @@ import io.joyrpc.event.AsyncResult;
 import io.joyrpc.exception.ConnectionException;
 import io.joyrpc.extension.URL;
 import io.joyrpc.transport.channel.Channel;
+import io.joyrpc.transport.channel.FlushCounter;
 import io.joyrpc.transport.codec.AdapterContext;
 import io.joyrpc.transport.netty4.channel.NettyChannel;
 import io.joyrpc.transport.netty4.channel.NettyServerChannel;
+import io.joyrpc.transport.netty4.channel.NettyShardedServerChannel;
 import io.joyrpc.transport.netty4.codec.ProtocolAdapterContext;
 import io.joyrpc.transport.netty4.handler.ConnectionChannelHandler;
+import io.joyrpc.transport.netty4.handler.FlushConsolidationHandler;
 import io.joyrpc.transport.netty4.handler.ProtocolAdapterDecoder;
+import io.joyrpc.transport.netty4.handler.ShardStatHandler;
 import io.joyrpc.transport.netty4.ssl.SslContextManager;
 import io.joyrpc.transport.transport.AbstractServerTransport;
 import io.joyrpc.transport.transport.ChannelTransport;
 import io.joyrpc.transport.transport.ServerTransport;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
 import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.ssl.SslContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -57,6 +69,8 @@ import java.util.function.Supplier;
  */
 public class NettyServerTransport extends AbstractServerTransport {
 
+    private static final Logger logger = LoggerFactory.getLogger(NettyServerTransport.class);
+
     protected final BiFunction<Channel, URL, ChannelTransport> function;
 
     protected final Supplier<List<Channel>> supplier = this::getChannels;
@@ -99,6 +113,16 @@ public class NettyServerTransport extends AbstractServerTransport {
         } else {
             try {
                 SslContext sslContext = SslContextManager.getServerSslContext(url);
+                int shards = url.getPositiveInt(Constants.ACCEPT_SHARDS_OPTION);
+                if (shards > 1 && !(Constants.isUseEpoll(url) && Epoll.isAvailable())) {
+                    //SO_REUSEPORT分片只支持epoll，降级为单个监听
+                    logger.warn(String.format("Accept shards %d is ignored at %s:%d, caused by epoll is not available.", shards, host, port));
+                    shards = 1;
+                }
+                if (shards > 1) {
+                    bind(host, port, shards, sslContext, consumer);
+                    return;
+                }
                 EventLoopGroup bossGroup = EventLoopGroupFactory.getBossGroup(url);
                 EventLoopGroup workerGroup = EventLoopGroupFactory.getWorkerGroup(url);
                 ServerBootstrap bootstrap = configure(new ServerBootstrap().group(bossGroup, workerGroup), sslContext);
@@ -121,6 +145,52 @@ public class NettyServerTransport extends AbstractServerTransport {
         }
     }
 
+    /**
+     * 通过SO_REUSEPORT在同一端口上绑定多个监听，每个分片有独立的boss和worker线程池，由内核把连接分散到各个分片
+     *
+     * @param host       地址
+     * @param port       端口
+     * @param shards     分片数
+     * @param sslContext SSL上下文
+     * @param consumer   消费者
+     */
+    protected void bind(final String host, final int port, final int shards, final SslContext sslContext,
+                        final Consumer<AsyncResult<Channel>> consumer) {
+        NettyServerChannel[] channels = new NettyServerChannel[shards];
+        List<ShardStatHandler> stats = new ArrayList<>(shards);
+        AtomicInteger counter = new AtomicInteger(shards);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        for (int i = 0; i < shards; i++) {
+            final int shard = i;
+            ShardStatHandler stat = new ShardStatHandler(i);
+            stats.add(stat);
+            EventLoopGroup bossGroup = EventLoopGroupFactory.getBossGroup(url, i);
+            EventLoopGroup workerGroup = EventLoopGroupFactory.getWorkerGroup(url, i, shards);
+            ServerBootstrap bootstrap = configure(new ServerBootstrap().group(bossGroup, workerGroup), sslContext, stat)
+                    .option(EpollChannelOption.SO_REUSEPORT, true);
+            bootstrap.bind(new InetSocketAddress(host, port)).addListener((ChannelFutureListener) f -> {
+                channels[shard] = new NettyServerChannel(f.channel(), bossGroup, workerGroup, supplier);
+                if (!f.isSuccess()) {
+                    error.compareAndSet(null, f.cause());
+                }
+                if (counter.decrementAndGet() == 0) {
+                    NettyShardedServerChannel channel = new NettyShardedServerChannel(channels[0],
+                            Arrays.asList(channels).subList(1, shards), stats);
+                    Throwable throwable = error.get();
+                    if (throwable == null) {
+                        consumer.accept(new AsyncResult<>(channel));
+                    } else {
+                        //任何一个分片失败，解绑所有分片
+                        channel.close(o -> consumer.accept(new AsyncResult<>(
+                                new ConnectionException(
+                                        String.format("Failed binding server at %s:%d, caused by %s",
+                                                host, port, throwable.getMessage()), throwable))));
+                    }
+                }
+            });
+        }
+    }
+
     /**
      * 配置
      *
@@ -128,9 +198,20 @@ public class NettyServerTransport extends AbstractServerTransport {
      * @param sslContext
      */
     protected ServerBootstrap configure(final ServerBootstrap bootstrap, final SslContext sslContext) {
+        return configure(bootstrap, sslContext, null);
+    }
+
+    /**
+     * 配置
+     *
+     * @param bootstrap
+     * @param sslContext
+     * @param stat       分片统计
+     */
+    protected ServerBootstrap configure(final ServerBootstrap bootstrap, final SslContext sslContext, final ShardStatHandler stat) {
         //io.netty.bootstrap.Bootstrap - Unknown channel option 'SO_BACKLOG' for channel
         bootstrap.channel(Constants.isUseEpoll(url) ? EpollServerSocketChannel.class : NioServerSocketChannel.class)
-                .childHandler(new MyChannelInitializer(url, sslContext))
+                .childHandler(new MyChannelInitializer(url, sslContext, stat))
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, url.getPositiveInt(Constants.CONNECT_TIMEOUT_OPTION))
                 .option(ChannelOption.SO_REUSEADDR, url.getBoolean(Constants.SO_REUSE_PORT_OPTION))
                 .option(ChannelOption.SO_BACKLOG, url.getPositiveInt(Constants.SO_BACKLOG_OPTION))
@@ -158,6 +239,10 @@ public class NettyServerTransport extends AbstractServerTransport {
          * SSL上下文
          */
         protected SslContext sslContext;
+        /**
+         * 分片统计
+         */
+        protected ShardStatHandler stat;
 
         /**
          * 构造函数
@@ -166,8 +251,20 @@ public class NettyServerTransport extends AbstractServerTransport {
          * @param sslContext
          */
         public MyChannelInitializer(URL url, SslContext sslContext) {
+            this(url, sslContext, null);
+        }
+
+        /**
+         * 构造函数
+         *
+         * @param url
+         * @param sslContext
+         * @param stat
+         */
+        public MyChannelInitializer(URL url, SslContext sslContext, ShardStatHandler stat) {
             this.url = url;
             this.sslContext = sslContext;
+            this.stat = stat;
         }
 
         @Override
@@ -180,6 +277,16 @@ public class NettyServerTransport extends AbstractServerTransport {
             if (sslContext != null) {
                 ch.pipeline().addFirst("ssl", sslContext.newHandler(ch.alloc()));
             }
+            if (stat != null) {
+                //放在最前面，统计原始字节数
+                ch.pipeline().addFirst("shardStat", stat);
+            }
+            //写合并
+            if (url.getBoolean(Constants.WRITE_COALESCING_OPTION)) {
+                FlushCounter counter = new FlushCounter();
+                channel.setAttribute(Channel.FLUSH_COUNTER, counter);
+                ch.pipeline().addLast("flushConsolidation", new FlushConsolidationHandler(url, counter));
+            }
             ch.pipeline().addLast("connection", new ConnectionChannelHandler(channel, publisher) {
                 @Override
                 public void channelInactive(final ChannelHandlerContext ctx) throws Exception {
@@ -0,0 +1,83 @@
+package io.joyrpc.cluster.benchmark;
+
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.Shard;
+import io.joyrpc.cluster.Shard.ShardState;
+import io.joyrpc.cluster.distribution.selector.CandidateCache;
+import io.joyrpc.cluster.distribution.selector.tag.TagSelector;
+import io.joyrpc.extension.URL;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 路由候选者缓存性能测试，按照标签选择一半的节点，对比每次选择和缓存选择结果
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CandidateCacheBenchmark {
+
+    /**
+     * 集群节点数
+     */
+    @Param({"10", "100", "1000"})
+    protected int size;
+
+    protected List<Node> nodes;
+
+    protected TagSelector selector;
+
+    protected CandidateCache cache;
+
+    protected RequestMessage<Invocation> request;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String name = "test";
+        URL url = URL.valueOf("joyrpc://127.0.0.1/io.joyrpc.EchoService?tagKey=serviceTag&serviceTag=a");
+        nodes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            URL shardUrl = URL.valueOf("joyrpc://192.168." + (i / 250) + "." + (i % 250 + 1) + ":22000?serviceTag=" + (i % 2 == 0 ? "a" : "b"));
+            nodes.add(new Node(name, url, new Shard.DefaultShard("shard" + i, "huabei", "lf", "joyrpc", shardUrl, 100, ShardState.CONNECTED)));
+        }
+        selector = new TagSelector();
+        selector.setUrl(url);
+        selector.setup();
+        cache = new CandidateCache(null, selector);
+        request = RequestMessage.build(new Invocation("io.joyrpc.EchoService", "", "echo"));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Candidate select() {
+        List<Node> result = selector.select(new Candidate(null, null, nodes, nodes.size()), request);
+        return new Candidate(null, null, result, result.size());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Candidate cache() {
+        return cache.get(nodes, request);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(CandidateCacheBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,255 @@
+package io.joyrpc.codec;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.context.GlobalContext;
+import io.joyrpc.exception.CodecException;
+import io.joyrpc.exception.OverloadException;
+import io.joyrpc.protocol.MsgType;
+import io.joyrpc.protocol.joy.JoyClientProtocol;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.MessageHeader;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.thread.DeadlineQueue;
+import io.joyrpc.transport.buffer.ChannelBuffer;
+import io.joyrpc.transport.channel.ChainChannelHandler;
+import io.joyrpc.transport.channel.ChannelHandlerChain;
+import io.joyrpc.transport.codec.Codec;
+import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.Plugin.SERIALIZATION;
+import static io.joyrpc.constants.Constants.DEFERRED_DECODE_THRESHOLD;
+
+/**
+ * 延迟解码的缓冲区引用计数测试，消息体切片在各种路径下都要释放
+ */
+public class DeferredDecodeTest {
+
+    /**
+     * 延迟解码阈值
+     */
+    protected static final int THRESHOLD = 1024;
+
+    static {
+        //编解码器在构造的时候读取阈值
+        GlobalContext.put(DEFERRED_DECODE_THRESHOLD, String.valueOf(THRESHOLD));
+    }
+
+    protected JoyClientProtocol protocol = new JoyClientProtocol();
+
+    protected Codec codec = protocol.getCodec();
+
+    /**
+     * 业务线程正常解码
+     */
+    @Test
+    public void testDecode() {
+        String arg = text(THRESHOLD * 4);
+        ByteBuf frame = frame(5000, arg);
+        RequestMessage<?> message = decode(frame);
+        Assert.assertTrue(message.getPayLoad() instanceof Invocation);
+        Assert.assertEquals(arg, ((Invocation) message.getPayLoad()).getArgs()[0]);
+        Assert.assertEquals(0, frame.refCnt());
+    }
+
+    /**
+     * 小的消息体直接在IO线程解码，不持有缓冲区
+     */
+    @Test
+    public void testSmallPayload() {
+        ByteBuf frame = frame(5000, "hello");
+        ChannelBuffer buffer = new NettyChannelBuffer(frame);
+        RequestMessage<?> message = (RequestMessage<?>) codec.decode(() -> null, buffer);
+        Assert.assertTrue(message.getPayLoad() instanceof Invocation);
+        frame.release();
+        Assert.assertEquals(0, frame.refCnt());
+    }
+
+    /**
+     * 消息体损坏，解码失败
+     */
+    @Test
+    public void testDecodeFailure() {
+        ByteBuf frame = frame(5000, text(THRESHOLD * 4));
+        //跳过总长度和消息头，破坏序列化的流头部
+        int payload = 4 + frame.getShort(4);
+        frame.setInt(payload, 0);
+        RequestMessage<?> message = deferred(frame);
+        try {
+            message.decode();
+            Assert.fail("decoding must fail");
+        } catch (CodecException e) {
+            Assert.assertNotNull(e.getHeader());
+        }
+        Assert.assertEquals(0, frame.refCnt());
+    }
+
+    /**
+     * 线程池过载拒绝
+     */
+    @Test
+    public void testRejected() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>(),
+                (r, e) -> {
+                    throw new OverloadException("too many requests.");
+                });
+        try {
+            executor.execute(() -> await(latch));
+            ByteBuf frame = frame(5000, text(THRESHOLD * 4));
+            RequestMessage<?> message = deferred(frame);
+            ChainChannelHandler handler = new ChainChannelHandler(new ChannelHandlerChain(), executor);
+            try {
+                handler.received(null, message);
+                Assert.fail("execution must be rejected");
+            } catch (OverloadException ignored) {
+            }
+            Assert.assertEquals(0, frame.refCnt());
+        } finally {
+            latch.countDown();
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 按截止时间排队，出队的时候已经过期丢弃
+     */
+    @Test
+    public void testExpired() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new DeadlineQueue());
+        executor.execute(() -> await(latch));
+        ByteBuf frame = frame(1, text(THRESHOLD * 4));
+        RequestMessage<?> message = deferred(frame);
+        ChainChannelHandler handler = new ChainChannelHandler(new ChannelHandlerChain(), executor);
+        handler.received(null, message);
+        //等待超过截止时间再让出线程
+        Thread.sleep(50);
+        Assert.assertEquals(1, frame.refCnt());
+        latch.countDown();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+        Assert.assertEquals(0, frame.refCnt());
+    }
+
+    /**
+     * 解码并在业务线程完成消息体解码
+     *
+     * @param frame 数据帧
+     * @return 请求
+     */
+    protected RequestMessage<?> decode(final ByteBuf frame) {
+        RequestMessage<?> message = deferred(frame);
+        message.decode();
+        return message;
+    }
+
+    /**
+     * IO线程解码，只解码消息头，释放数据帧，和LengthFieldFrameDecodeHandler保持一致
+     *
+     * @param frame 数据帧
+     * @return 请求
+     */
+    protected RequestMessage<?> deferred(final ByteBuf frame) {
+        RequestMessage<?> message = (RequestMessage<?>) codec.decode(() -> null, new NettyChannelBuffer(frame));
+        Assert.assertNull(message.getPayLoad());
+        //消息体切片持有引用
+        Assert.assertEquals(2, frame.refCnt());
+        frame.release();
+        Assert.assertEquals(1, frame.refCnt());
+        return message;
+    }
+
+    /**
+     * 编码请求，返回池化的去掉魔术位的数据帧
+     *
+     * @param timeout 超时时间
+     * @param arg     参数
+     * @return 数据帧
+     */
+    protected ByteBuf frame(final int timeout, final String arg) {
+        MessageHeader header = new MessageHeader(MsgType.BizReq.getType());
+        header.setMsgId(1);
+        header.setTimeout(timeout);
+        header.setSerialization(SERIALIZATION.get("java").getTypeId());
+        Method method;
+        try {
+            method = EchoService.class.getMethod("echo", String.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuf encodeBuf = Unpooled.buffer(arg.length() * 2);
+        codec.encode(() -> null, new NettyChannelBuffer(encodeBuf),
+                new RequestMessage<>(header, new Invocation(EchoService.class, method, new Object[]{arg})));
+        int magic = protocol.getMagicCode().length;
+        ByteBuf result = PooledByteBufAllocator.DEFAULT.buffer(encodeBuf.readableBytes());
+        result.writeBytes(encodeBuf, encodeBuf.readerIndex() + magic, encodeBuf.readableBytes() - magic);
+        encodeBuf.release();
+        return result;
+    }
+
+    /**
+     * 构造文本
+     *
+     * @param length 长度
+     * @return 文本
+     */
+    protected static String text(final int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append((char) ('a' + i % 26));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 等待
+     *
+     * @param latch 门闩
+     */
+    protected static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    /**
+     * 测试的服务接口
+     */
+    public interface EchoService {
+
+        String echo(String value);
+    }
+}
@@ -0,0 +1,265 @@
+package io.joyrpc.codec;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.exception.CodecException;
+import io.joyrpc.protocol.MsgType;
+import io.joyrpc.protocol.joy.JoyClientProtocol;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.MessageHeader;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.transport.buffer.ChannelBuffer;
+import io.joyrpc.transport.channel.Channel;
+import io.joyrpc.transport.codec.Codec;
+import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
+import io.joyrpc.transport.session.DefaultSession;
+import io.joyrpc.transport.session.HeaderDictionary;
+import io.joyrpc.transport.session.Session;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.joyrpc.Plugin.SERIALIZATION;
+import static io.joyrpc.constants.Constants.HEADER_DICTIONARY_OPTION;
+
+/**
+ * 消息头字典的编解码测试，客户端会话负责编码，服务端会话负责解码
+ */
+public class HeaderDictionaryTest {
+
+    protected static final byte APP = 101;
+    protected static final byte ALIAS = 102;
+    protected static final int SESSION_ID = 1;
+
+    protected JoyClientProtocol protocol = new JoyClientProtocol();
+
+    protected Codec codec = protocol.getCodec();
+
+    /**
+     * 没有协商字典，字符串每次都按原文传输
+     */
+    @Test
+    public void testNotNegotiated() {
+        Session client = new DefaultSession(SESSION_ID);
+        Session server = new DefaultSession(SESSION_ID);
+        Assert.assertNull(client.getHeaderDictionary());
+        Map<Byte, Object> attributes = attributes("order-service", "order-alias");
+        int length = -1;
+        for (int i = 0; i < 3; i++) {
+            ChannelBuffer buffer = encode(client, attributes, "hello");
+            if (length < 0) {
+                length = buffer.readableBytes();
+            }
+            Assert.assertEquals(length, buffer.readableBytes());
+            Assert.assertEquals(attributes, decode(server, buffer).getHeader().getAttributes());
+        }
+    }
+
+    /**
+     * 协商了字典，第一次原文，第二次定义，后续引用
+     */
+    @Test
+    public void testDefineAndReference() {
+        Session client = negotiated();
+        Session server = negotiated();
+        Map<Byte, Object> attributes = attributes("order-service", "order-alias");
+        //原文
+        ChannelBuffer buffer = encode(client, attributes, "hello");
+        int plain = buffer.readableBytes();
+        Assert.assertEquals(attributes, decode(server, buffer).getHeader().getAttributes());
+        HeaderDictionary.Encoder encoder = client.getHeaderDictionary().getEncoder();
+        Assert.assertEquals(0, encoder.size());
+        //定义，每个字符串多了2个字节的索引
+        buffer = encode(client, attributes, "hello");
+        Assert.assertEquals(plain + 4, buffer.readableBytes());
+        Assert.assertEquals(attributes, decode(server, buffer).getHeader().getAttributes());
+        Assert.assertEquals(2, encoder.size());
+        HeaderDictionary.Decoder decoder = server.getHeaderDictionary().getDecoder();
+        Assert.assertEquals("order-service", decoder.get(encoder.get("order-service")));
+        Assert.assertEquals("order-alias", decoder.get(encoder.get("order-alias")));
+        //引用，只传输索引
+        for (int i = 0; i < 3; i++) {
+            buffer = encode(client, attributes, "hello");
+            Assert.assertEquals(plain - "order-service".length() - "order-alias".length(), buffer.readableBytes());
+            Assert.assertEquals(attributes, decode(server, buffer).getHeader().getAttributes());
+        }
+        Assert.assertEquals(2, encoder.size());
+    }
+
+    /**
+     * 对端没有协商字典，收到定义或引用都要报错
+     */
+    @Test
+    public void testPeerNotNegotiated() {
+        Session client = negotiated();
+        Session server = new DefaultSession(SESSION_ID);
+        Map<Byte, Object> attributes = attributes("order-service", "order-alias");
+        Assert.assertEquals(attributes, decode(server, encode(client, attributes, "hello")).getHeader().getAttributes());
+        try {
+            decode(server, encode(client, attributes, "hello"));
+            Assert.fail("definition must be rejected");
+        } catch (CodecException ignored) {
+        }
+        try {
+            decode(server, encode(client, attributes, "hello"));
+            Assert.fail("reference must be rejected");
+        } catch (CodecException ignored) {
+        }
+    }
+
+    /**
+     * 字典满了以后按原文传输，已经定义的字符串继续引用
+     */
+    @Test
+    public void testCapacity() {
+        Session client = negotiated();
+        Session server = negotiated();
+        int count = HeaderDictionary.CAPACITY + 44;
+        Map<Byte, Object> attributes;
+        for (int i = 0; i < count; i++) {
+            attributes = attributes("service-" + i, null);
+            for (int j = 0; j < 2; j++) {
+                Assert.assertEquals(attributes, decode(server, encode(client, attributes, "hello")).getHeader().getAttributes());
+            }
+        }
+        HeaderDictionary.Encoder encoder = client.getHeaderDictionary().getEncoder();
+        Assert.assertEquals(HeaderDictionary.CAPACITY, encoder.size());
+        Assert.assertEquals(-1, encoder.get("service-" + (count - 1)));
+        //超出容量的按原文
+        attributes = attributes("service-" + (count - 1), null);
+        ChannelBuffer buffer = encode(client, attributes, "hello");
+        int plain = buffer.readableBytes();
+        Assert.assertEquals(attributes, decode(server, buffer).getHeader().getAttributes());
+        //字典中的最后一个按引用，service-255和service-299长度相同
+        attributes = attributes("service-" + (HeaderDictionary.CAPACITY - 1), null);
+        buffer = encode(client, attributes, "hello");
+        Assert.assertEquals(plain - ("service-" + (HeaderDictionary.CAPACITY - 1)).length(), buffer.readableBytes());
+        Assert.assertEquals(attributes, decode(server, buffer).getHeader().getAttributes());
+        Assert.assertEquals(HeaderDictionary.CAPACITY, encoder.size());
+    }
+
+    /**
+     * 编码失败的消息不会发送，撤销其中的定义，下一次重新定义
+     */
+    @Test
+    public void testRollback() {
+        Session client = negotiated();
+        Session server = negotiated();
+        Map<Byte, Object> attributes = attributes("order-service", "order-alias");
+        Assert.assertEquals(attributes, decode(server, encode(client, attributes, "hello")).getHeader().getAttributes());
+        HeaderDictionary.Encoder encoder = client.getHeaderDictionary().getEncoder();
+        //参数不能序列化，消息头已经定义了字符串
+        try {
+            encode(client, attributes, new Object());
+            Assert.fail("encoding must fail");
+        } catch (CodecException ignored) {
+        }
+        Assert.assertEquals(0, encoder.size());
+        Assert.assertEquals(-1, encoder.get("order-service"));
+        //对端没有收到失败的消息，重新定义后能正常引用
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(attributes, decode(server, encode(client, attributes, "hello")).getHeader().getAttributes());
+        }
+        Assert.assertEquals(2, encoder.size());
+    }
+
+    /**
+     * 开启字典的会话
+     *
+     * @return 会话
+     */
+    protected Session negotiated() {
+        DefaultSession session = new DefaultSession(SESSION_ID);
+        session.put(HEADER_DICTIONARY_OPTION.getName(), "true");
+        return session;
+    }
+
+    /**
+     * 构造扩展属性
+     *
+     * @param app   应用
+     * @param alias 别名
+     * @return 扩展属性
+     */
+    protected Map<Byte, Object> attributes(final String app, final String alias) {
+        Map<Byte, Object> result = new HashMap<>();
+        result.put(APP, app);
+        if (alias != null) {
+            result.put(ALIAS, alias);
+        }
+        return result;
+    }
+
+    /**
+     * 编码请求，返回去掉魔术位的数据，和LengthFieldFrameDecodeHandler保持一致
+     *
+     * @param session    会话
+     * @param attributes 扩展属性
+     * @param arg        参数
+     * @return 缓冲区
+     */
+    protected ChannelBuffer encode(final Session session, final Map<Byte, Object> attributes, final Object arg) {
+        MessageHeader header = new MessageHeader(MsgType.BizReq.getType());
+        header.setMsgId(1);
+        header.setTimeout(5000);
+        header.setSerialization(SERIALIZATION.get("java").getTypeId());
+        header.setSessionId(session.getSessionId());
+        header.setSession(session);
+        attributes.forEach(header::addAttribute);
+        Method method;
+        try {
+            method = EchoService.class.getMethod("echo", Object.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+        ChannelBuffer buffer = new NettyChannelBuffer(Unpooled.buffer(256));
+        codec.encode(() -> null, buffer, new RequestMessage<>(header, new Invocation(EchoService.class, method, new Object[]{arg})));
+        buffer.skipBytes(protocol.getMagicCode().length);
+        return buffer;
+    }
+
+    /**
+     * 解码请求
+     *
+     * @param session 会话
+     * @param buffer  缓冲区
+     * @return 请求
+     */
+    protected RequestMessage<?> decode(final Session session, final ChannelBuffer buffer) {
+        Channel channel = (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class[]{Channel.class},
+                (proxy, method, args) -> "getSession".equals(method.getName()) ? session : null);
+        return (RequestMessage<?>) codec.decode(() -> channel, buffer);
+    }
+
+    /**
+     * 测试的服务接口
+     */
+    public interface EchoService {
+
+        Object echo(Object value);
+    }
+}
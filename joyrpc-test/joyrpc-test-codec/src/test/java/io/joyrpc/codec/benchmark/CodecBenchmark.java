@@ -0,0 +1,310 @@
+package io.joyrpc.codec.benchmark;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.codec.compression.Compression;
+import io.joyrpc.protocol.MsgType;
+import io.joyrpc.protocol.joy.JoyClientProtocol;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.MessageHeader;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.transport.buffer.ChannelBuffer;
+import io.joyrpc.transport.codec.Codec;
+import io.joyrpc.transport.codec.DecodeContext;
+import io.joyrpc.transport.codec.EncodeContext;
+import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.Plugin.COMPRESSION;
+import static io.joyrpc.Plugin.SERIALIZATION;
+
+/**
+ * JoyCodec编解码基准测试，覆盖所有序列化和压缩插件的组合。<br/>
+ * 运行的时候开启gc分析器，gc.alloc.rate.norm即为每次操作分配的字节数，编码后的报文大小通过辅助计数器encodedBytes输出。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+
+    /**
+     * 序列化
+     */
+    @Param({"hessian", "protostuff", "protobuf", "kryo", "fst", "json", "java"})
+    protected String serialization;
+    /**
+     * 压缩，none表示不压缩
+     */
+    @Param({"none", "snappy", "snappyf", "lz4", "lz4f", "zlib", "gzip", "deflate", "lzma"})
+    protected String compression;
+    /**
+     * 参数大约的字节数
+     */
+    @Param({"1024", "16384", "65536"})
+    protected int size;
+
+    protected Codec codec;
+
+    protected RequestMessage<Invocation> request;
+
+    protected EncodeContext encodeContext = () -> null;
+
+    protected DecodeContext decodeContext = () -> null;
+
+    protected ByteBuf encodeBuf;
+
+    protected ChannelBuffer encodeBuffer;
+
+    protected ByteBuf decodeBuf;
+
+    protected ChannelBuffer decodeBuffer;
+
+    @Setup(Level.Trial)
+    public void setup() throws NoSuchMethodException {
+        JoyClientProtocol protocol = new JoyClientProtocol();
+        codec = protocol.getCodec();
+        MessageHeader header = new MessageHeader(MsgType.BizReq.getType());
+        header.setMsgId(1);
+        header.setTimeout(5000);
+        header.setSerialization(SERIALIZATION.get(serialization).getTypeId());
+        header.setCompression("none".equals(compression) ? Compression.NONE : COMPRESSION.get(compression).getTypeId());
+        Method method = OrderService.class.getMethod("submit", Order.class, String.class);
+        request = new RequestMessage<>(header, new Invocation(OrderService.class, method, new Object[]{Order.create(size), "trace"}));
+
+        encodeBuf = PooledByteBufAllocator.DEFAULT.buffer(size * 2);
+        encodeBuffer = new NettyChannelBuffer(encodeBuf);
+        codec.encode(encodeContext, encodeBuffer, request);
+        //解码不包括魔术位，和LengthFieldFrameDecodeHandler保持一致
+        int magic = protocol.getMagicCode().length;
+        decodeBuf = PooledByteBufAllocator.DEFAULT.buffer(encodeBuf.readableBytes());
+        decodeBuf.writeBytes(encodeBuf, encodeBuf.readerIndex() + magic, encodeBuf.readableBytes() - magic);
+        decodeBuffer = new NettyChannelBuffer(decodeBuf);
+        Object message = codec.decode(decodeContext, decodeBuffer);
+        if (!(message instanceof RequestMessage) || !(((RequestMessage) message).getPayLoad() instanceof Invocation)) {
+            throw new IllegalStateException("round trip failed for " + serialization + "/" + compression);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        encodeBuf.release();
+        decodeBuf.release();
+    }
+
+    @Benchmark
+    public Object encode(final EncodeCounter counter) {
+        encodeBuf.clear();
+        codec.encode(encodeContext, encodeBuffer, request);
+        counter.encodedBytes = encodeBuf.readableBytes();
+        return encodeBuf;
+    }
+
+    @Benchmark
+    public Object decode() {
+        decodeBuf.readerIndex(0);
+        return codec.decode(decodeContext, decodeBuffer);
+    }
+
+    /**
+     * 编码辅助计数器，记录编码后的报文大小
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class EncodeCounter {
+        /**
+         * 编码后的字节数，每次赋值而不是累加，输出的即为单个报文的大小
+         */
+        public long encodedBytes;
+    }
+
+    /**
+     * 测试的服务接口
+     */
+    public interface OrderService {
+
+        Order submit(Order order, String traceId);
+    }
+
+    /**
+     * 订单
+     */
+    public static class Order implements Serializable {
+
+        private long id;
+
+        private String customer;
+
+        private Date createTime;
+
+        private List<Item> items;
+
+        private Map<String, String> attributes;
+
+        public Order() {
+        }
+
+        /**
+         * 构造大约指定字节数的订单
+         *
+         * @param size 字节数
+         * @return 订单
+         */
+        public static Order create(final int size) {
+            Random random = new Random(size);
+            Order order = new Order();
+            order.setId(random.nextLong());
+            order.setCustomer("customer-" + random.nextInt(1000));
+            order.setCreateTime(new Date(1577808000000L));
+            Map<String, String> attributes = new HashMap<>();
+            attributes.put("channel", "app");
+            attributes.put("region", "north");
+            order.setAttributes(attributes);
+            int count = Math.max(size / 64, 1);
+            List<Item> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                //重复度较高的文本，接近真实业务数据
+                items.add(new Item("sku-" + random.nextInt(100), "product name " + random.nextInt(50),
+                        random.nextInt(10000) / 100.0, random.nextInt(10) + 1));
+            }
+            order.setItems(items);
+            return order;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getCustomer() {
+            return customer;
+        }
+
+        public void setCustomer(String customer) {
+            this.customer = customer;
+        }
+
+        public Date getCreateTime() {
+            return createTime;
+        }
+
+        public void setCreateTime(Date createTime) {
+            this.createTime = createTime;
+        }
+
+        public List<Item> getItems() {
+            return items;
+        }
+
+        public void setItems(List<Item> items) {
+            this.items = items;
+        }
+
+        public Map<String, String> getAttributes() {
+            return attributes;
+        }
+
+        public void setAttributes(Map<String, String> attributes) {
+            this.attributes = attributes;
+        }
+    }
+
+    /**
+     * 订单项
+     */
+    public static class Item implements Serializable {
+
+        private String sku;
+
+        private String name;
+
+        private double price;
+
+        private int quantity;
+
+        public Item() {
+        }
+
+        public Item(String sku, String name, double price, int quantity) {
+            this.sku = sku;
+            this.name = name;
+            this.price = price;
+            this.quantity = quantity;
+        }
+
+        public String getSku() {
+            return sku;
+        }
+
+        public void setSku(String sku) {
+            this.sku = sku;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public void setPrice(double price) {
+            this.price = price;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(CodecBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(opt).run();
+    }
+}
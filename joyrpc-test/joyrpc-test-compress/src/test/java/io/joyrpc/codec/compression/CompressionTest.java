@@ -22,7 +22,9 @@ package io.joyrpc.codec.compression;
 
 import io.joyrpc.codec.serialization.UnsafeByteArrayOutputStream;
 import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -158,4 +160,56 @@ public class CompressionTest {
 
     }
 
+    @Test
+    public void testAdaptiveRoundTrip() throws IOException {
+        Compression lz4 = COMPRESSION.get("lz4");
+        byte[] data = new byte[4096];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 31);
+        }
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer(1024);
+        try {
+            //已经写入的消息头，压缩不能覆盖
+            buf.writeInt(0x12345678);
+            AdaptiveCompressOutputStream acos = new AdaptiveCompressOutputStream(new NettyChannelBuffer(buf), lz4, 128);
+            //阈值内的数据先写入缓冲区，超过阈值后拷贝出来压缩写回
+            acos.write(data, 0, 100);
+            acos.write(data, 100, data.length - 100);
+            acos.finish();
+            Assert.assertTrue(acos.isCompressed());
+            Assert.assertEquals(0x12345678, buf.readInt());
+            Assert.assertTrue(buf.readableBytes() < data.length);
+            byte[] bytes = new byte[buf.readableBytes()];
+            buf.readBytes(bytes);
+            InputStream is = lz4.decompress(new ByteArrayInputStream(bytes));
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(data.length);
+            byte[] block = new byte[1024];
+            int n;
+            while ((n = is.read(block)) > 0) {
+                baos.write(block, 0, n);
+            }
+            Assert.assertArrayEquals(data, baos.toByteArray());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testAdaptiveThreshold() {
+        AdaptiveThreshold threshold = new AdaptiveThreshold(128, 1024, 0.9);
+        Assert.assertEquals(128, threshold.get());
+        //压缩效果差，逐步提高阈值
+        threshold.update(1000, 990);
+        Assert.assertEquals(256, threshold.getThreshold());
+        threshold.update(1000, 1000);
+        threshold.update(1000, 1000);
+        threshold.update(1000, 1000);
+        Assert.assertEquals(1024, threshold.getThreshold());
+        //压缩效果恢复，逐步降低阈值
+        for (int i = 0; i < 10; i++) {
+            threshold.update(1000, 100);
+        }
+        Assert.assertEquals(128, threshold.getThreshold());
+    }
+
 }
@@ -0,0 +1,46 @@
+package io.joyrpc.loadtest;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 压测回显服务
+ */
+public interface EchoService {
+
+    /**
+     * 同步回显
+     *
+     * @param payload 负载
+     * @return 负载
+     */
+    byte[] echo(byte[] payload);
+
+    /**
+     * 异步回显
+     *
+     * @param payload 负载
+     * @return 负载
+     */
+    CompletableFuture<byte[]> echoAsync(byte[] payload);
+}
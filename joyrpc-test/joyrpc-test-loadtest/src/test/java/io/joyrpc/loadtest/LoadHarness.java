@@ -0,0 +1,324 @@
+package io.joyrpc.loadtest;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import io.joyrpc.config.ConsumerConfig;
+import io.joyrpc.config.ProviderConfig;
+import io.joyrpc.config.RegistryConfig;
+import io.joyrpc.config.ServerConfig;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 回环端到端压测，在同一进程内通过内存注册中心启动服务提供者和消费者。<br/>
+ * 通过系统属性配置扫描范围，每个场景输出一个JSON文件，另外输出汇总文件summary.json，便于跨提交对比。
+ * <pre>
+ * loadtest.mode            模式，closed(闭环)或open(开环)，可以逗号分隔同时扫描，默认closed
+ * loadtest.sizes           负载大小，默认256,4096,65536
+ * loadtest.concurrencies   并发数，开环模式下为发送线程数，默认1,16,64
+ * loadtest.rates           开环模式下的到达速率(次/秒)，默认10000
+ * loadtest.serializations  序列化，默认hessian,protostuff
+ * loadtest.compressions    压缩，none表示不压缩，默认none,lz4
+ * loadtest.threadPool      业务线程池类型，默认adaptive
+ * loadtest.threads         业务线程池，格式为核心线程数:最大线程数，默认20:200
+ * loadtest.warmup          预热时长(秒)，默认5
+ * loadtest.duration        统计时长(秒)，默认15
+ * loadtest.timeout         调用超时(毫秒)，默认5000
+ * loadtest.port            起始端口，每个场景递增，默认22900
+ * loadtest.label           标签，例如提交号，默认为当前时间
+ * loadtest.output          输出目录，默认target/loadtest
+ * </pre>
+ */
+public class LoadHarness {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadHarness.class);
+
+    /**
+     * 直方图最大可记录延迟
+     */
+    protected static final long MAX_LATENCY = TimeUnit.MINUTES.toNanos(1);
+
+    protected final String label;
+    protected final int warmup;
+    protected final int duration;
+    protected final int timeout;
+    protected final File output;
+    protected int port;
+
+    public LoadHarness(final String label, final int warmup, final int duration, final int timeout,
+                       final int port, final File output) {
+        this.label = label;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.timeout = timeout;
+        this.port = port;
+        this.output = output;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String label = System.getProperty("loadtest.label", new SimpleDateFormat("yyyyMMddHHmmss").format(new Date()));
+        LoadHarness harness = new LoadHarness(label,
+                Integer.getInteger("loadtest.warmup", 5),
+                Integer.getInteger("loadtest.duration", 15),
+                Integer.getInteger("loadtest.timeout", 5000),
+                Integer.getInteger("loadtest.port", 22900),
+                new File(System.getProperty("loadtest.output", "target/loadtest"), label));
+        List<LoadResult> results = new ArrayList<>();
+        for (LoadScenario scenario : scenarios()) {
+            LoadResult result = harness.run(scenario);
+            logger.info(result.toString());
+            results.add(result);
+        }
+        harness.write("summary", results);
+        System.exit(0);
+    }
+
+    /**
+     * 根据系统属性构造扫描场景
+     *
+     * @return 场景列表
+     */
+    protected static List<LoadScenario> scenarios() {
+        String threadPool = System.getProperty("loadtest.threadPool", "adaptive");
+        List<LoadScenario> result = new ArrayList<>();
+        for (String mode : split("loadtest.mode", LoadScenario.CLOSED_LOOP)) {
+            boolean open = LoadScenario.OPEN_LOOP.equals(mode);
+            for (String serialization : split("loadtest.serializations", "hessian,protostuff")) {
+                for (String compression : split("loadtest.compressions", "none,lz4")) {
+                    for (String threads : split("loadtest.threads", "20:200")) {
+                        String[] parts = threads.split(":");
+                        int core = Integer.parseInt(parts[0]);
+                        int max = parts.length > 1 ? Integer.parseInt(parts[1]) : core;
+                        for (String size : split("loadtest.sizes", "256,4096,65536")) {
+                            for (String concurrency : split("loadtest.concurrencies", "1,16,64")) {
+                                for (String rate : open ? split("loadtest.rates", "10000") : new String[]{"0"}) {
+                                    result.add(new LoadScenario(mode, Integer.parseInt(size), Integer.parseInt(concurrency),
+                                            Integer.parseInt(rate), serialization, compression, threadPool, core, max));
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 读取逗号分隔的系统属性
+     *
+     * @param key          键
+     * @param defaultValue 默认值
+     * @return 值数组
+     */
+    protected static String[] split(final String key, final String defaultValue) {
+        return System.getProperty(key, defaultValue).trim().split("\\s*,\\s*");
+    }
+
+    /**
+     * 执行场景，每个场景使用独立的端口和别名，避免相互干扰
+     *
+     * @param scenario 场景
+     * @return 结果
+     * @throws Exception 异常
+     */
+    public LoadResult run(final LoadScenario scenario) throws Exception {
+        String alias = "loadtest-" + port;
+
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.setHost("127.0.0.1");
+        serverConfig.setPort(port++);
+        serverConfig.setThreadPool(scenario.getThreadPool());
+        serverConfig.setCoreThreads(scenario.getCoreThreads());
+        serverConfig.setMaxThreads(scenario.getMaxThreads());
+
+        RegistryConfig registryConfig = new RegistryConfig("memory");
+
+        ProviderConfig<EchoService> providerConfig = new ProviderConfig<>();
+        providerConfig.setServerConfig(serverConfig);
+        providerConfig.setRegistry(registryConfig);
+        providerConfig.setInterfaceClazz(EchoService.class.getName());
+        providerConfig.setRef(new EchoServiceImpl());
+        providerConfig.setAlias(alias);
+        providerConfig.exportAndOpen().get();
+
+        ConsumerConfig<EchoService> consumerConfig = new ConsumerConfig<>();
+        consumerConfig.setRegistry(registryConfig);
+        consumerConfig.setInterfaceClazz(EchoService.class.getName());
+        consumerConfig.setAlias(alias);
+        consumerConfig.setTimeout(timeout);
+        consumerConfig.setSerialization(scenario.getSerialization());
+        if (!"none".equals(scenario.getCompression())) {
+            consumerConfig.setCompress(scenario.getCompression());
+        }
+        EchoService service = consumerConfig.refer().get();
+        try {
+            byte[] payload = new byte[scenario.getPayloadSize()];
+            new Random(0).nextBytes(payload);
+            Recorder recorder = new Recorder(MAX_LATENCY, 3);
+            AtomicLong errors = new AtomicLong();
+            //预热，丢弃预热期间的统计
+            execute(service, scenario, payload, recorder, errors, warmup);
+            recorder.getIntervalHistogram();
+            errors.set(0);
+            long start = System.nanoTime();
+            execute(service, scenario, payload, recorder, errors, duration);
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            Histogram histogram = recorder.getIntervalHistogram();
+            LoadResult result = new LoadResult(label, scenario, histogram, errors.get(), elapsed);
+            write(scenario.name(), result);
+            return result;
+        } finally {
+            consumerConfig.unrefer().get();
+            providerConfig.unexport().get();
+        }
+    }
+
+    /**
+     * 按照场景模式执行指定时长
+     *
+     * @param service  服务
+     * @param scenario 场景
+     * @param payload  负载
+     * @param recorder 延迟记录器
+     * @param errors   失败计数器
+     * @param seconds  时长
+     * @throws InterruptedException 中断异常
+     */
+    protected void execute(final EchoService service, final LoadScenario scenario, final byte[] payload,
+                           final Recorder recorder, final AtomicLong errors, final int seconds) throws InterruptedException {
+        if (seconds <= 0) {
+            return;
+        }
+        int threads = Math.max(1, scenario.getConcurrency());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        boolean open = LoadScenario.OPEN_LOOP.equals(scenario.getMode());
+        //开环模式下每个线程均分速率，并错开起始时间
+        long interval = open ? TimeUnit.SECONDS.toNanos(1) * threads / Math.max(1, scenario.getRate()) : 0;
+        //开环模式下等待在途请求完成
+        AtomicLong inflight = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            long offset = interval * i / threads;
+            executor.submit(() -> {
+                try {
+                    if (open) {
+                        openLoop(service, payload, recorder, errors, inflight, deadline, interval, offset);
+                    } else {
+                        closedLoop(service, payload, recorder, errors, deadline);
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        executor.shutdown();
+        long wait = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        while (inflight.get() > 0 && System.nanoTime() < wait) {
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * 闭环，同步调用，请求完成后立即发起下一次
+     */
+    protected void closedLoop(final EchoService service, final byte[] payload, final Recorder recorder,
+                              final AtomicLong errors, final long deadline) {
+        long start;
+        while ((start = System.nanoTime()) < deadline) {
+            try {
+                service.echo(payload);
+                recorder.recordValue(Math.min(System.nanoTime() - start, MAX_LATENCY));
+            } catch (Throwable e) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 开环，按照固定间隔异步发送，延迟从计划发送时间开始计算，避免协同遗漏
+     */
+    protected void openLoop(final EchoService service, final byte[] payload, final Recorder recorder,
+                            final AtomicLong errors, final AtomicLong inflight,
+                            final long deadline, final long interval, final long offset) {
+        long intended = System.nanoTime() + offset;
+        long now;
+        while (intended < deadline) {
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            final long begin = intended;
+            inflight.incrementAndGet();
+            try {
+                service.echoAsync(payload).whenComplete((v, e) -> {
+                    if (e == null) {
+                        recorder.recordValue(Math.min(System.nanoTime() - begin, MAX_LATENCY));
+                    } else {
+                        errors.incrementAndGet();
+                    }
+                    inflight.decrementAndGet();
+                });
+            } catch (Throwable e) {
+                errors.incrementAndGet();
+                inflight.decrementAndGet();
+            }
+            intended += interval;
+        }
+    }
+
+    /**
+     * 输出JSON文件
+     *
+     * @param name   名称
+     * @param result 结果
+     * @throws IOException IO异常
+     */
+    protected void write(final String name, final Object result) throws IOException {
+        if (!output.exists() && !output.mkdirs()) {
+            throw new IOException("Failed to create directory " + output.getAbsolutePath());
+        }
+        File file = new File(output, name + ".json");
+        Files.write(file.toPath(), JSON.toJSONString(result, SerializerFeature.PrettyFormat).getBytes(StandardCharsets.UTF_8));
+    }
+}
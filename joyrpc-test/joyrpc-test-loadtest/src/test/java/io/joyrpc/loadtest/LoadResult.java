@@ -0,0 +1,181 @@
+package io.joyrpc.loadtest;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 压测结果，延迟单位为微秒
+ */
+public class LoadResult {
+
+    /**
+     * 输出的百分位
+     */
+    protected static final double[] PERCENTILES = new double[]{50, 90, 99, 99.9, 99.99};
+
+    /**
+     * 标签，例如提交号
+     */
+    protected String label;
+    /**
+     * 场景
+     */
+    protected LoadScenario scenario;
+    /**
+     * 成功请求数
+     */
+    protected long requests;
+    /**
+     * 失败请求数
+     */
+    protected long errors;
+    /**
+     * 统计时长(毫秒)
+     */
+    protected long durationMillis;
+    /**
+     * 吞吐量(次/秒)
+     */
+    protected double throughput;
+    /**
+     * 延迟分布
+     */
+    protected Map<String, Object> latency;
+    /**
+     * 压缩后的HdrHistogram，Base64编码，可以用Histogram.decodeFromCompressedByteBuffer还原
+     */
+    protected String histogram;
+
+    public LoadResult() {
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param label          标签
+     * @param scenario       场景
+     * @param histogram      延迟直方图(纳秒)
+     * @param errors         失败请求数
+     * @param durationMillis 统计时长
+     */
+    public LoadResult(final String label, final LoadScenario scenario, final Histogram histogram,
+                      final long errors, final long durationMillis) {
+        this.label = label;
+        this.scenario = scenario;
+        this.requests = histogram.getTotalCount();
+        this.errors = errors;
+        this.durationMillis = durationMillis;
+        this.throughput = durationMillis <= 0 ? 0 : requests * 1000.0 / durationMillis;
+        this.latency = new LinkedHashMap<>();
+        latency.put("min", histogram.getMinValue() / 1000.0);
+        latency.put("mean", histogram.getMean() / 1000.0);
+        for (double percentile : PERCENTILES) {
+            String key = percentile == (long) percentile ? String.valueOf((long) percentile) : String.valueOf(percentile);
+            latency.put("p" + key, histogram.getValueAtPercentile(percentile) / 1000.0);
+        }
+        latency.put("max", histogram.getMaxValue() / 1000.0);
+        latency.put("stddev", histogram.getStdDeviation() / 1000.0);
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int size = histogram.encodeIntoCompressedByteBuffer(buffer);
+        byte[] bytes = new byte[size];
+        buffer.flip();
+        buffer.get(bytes);
+        this.histogram = Base64.getEncoder().encodeToString(bytes);
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(String label) {
+        this.label = label;
+    }
+
+    public LoadScenario getScenario() {
+        return scenario;
+    }
+
+    public void setScenario(LoadScenario scenario) {
+        this.scenario = scenario;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public void setRequests(long requests) {
+        this.requests = requests;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public void setErrors(long errors) {
+        this.errors = errors;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public double getThroughput() {
+        return throughput;
+    }
+
+    public void setThroughput(double throughput) {
+        this.throughput = throughput;
+    }
+
+    public Map<String, Object> getLatency() {
+        return latency;
+    }
+
+    public void setLatency(Map<String, Object> latency) {
+        this.latency = latency;
+    }
+
+    public String getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(String histogram) {
+        this.histogram = histogram;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: throughput=%.1f/s, errors=%d, p50=%sus, p99=%sus, p99.9=%sus, max=%sus",
+                scenario.name(), throughput, errors,
+                latency.get("p50"), latency.get("p99"), latency.get("p99.9"), latency.get("max"));
+    }
+}
@@ -0,0 +1,183 @@
+package io.joyrpc.loadtest;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * 压测场景，对应一次扫描组合
+ */
+public class LoadScenario {
+
+    /**
+     * 闭环模式，固定并发，请求完成后立即发起下一次
+     */
+    public static final String CLOSED_LOOP = "closed";
+    /**
+     * 开环模式，固定到达速率，延迟从计划发送时间开始计算
+     */
+    public static final String OPEN_LOOP = "open";
+
+    /**
+     * 模式
+     */
+    protected String mode;
+    /**
+     * 负载大小
+     */
+    protected int payloadSize;
+    /**
+     * 并发数，开环模式下为发送线程数
+     */
+    protected int concurrency;
+    /**
+     * 开环模式下的总到达速率(次/秒)
+     */
+    protected int rate;
+    /**
+     * 序列化
+     */
+    protected String serialization;
+    /**
+     * 压缩，none表示不压缩
+     */
+    protected String compression;
+    /**
+     * 业务线程池类型
+     */
+    protected String threadPool;
+    /**
+     * 业务线程池核心线程数
+     */
+    protected int coreThreads;
+    /**
+     * 业务线程池最大线程数
+     */
+    protected int maxThreads;
+
+    public LoadScenario() {
+    }
+
+    public LoadScenario(String mode, int payloadSize, int concurrency, int rate,
+                        String serialization, String compression,
+                        String threadPool, int coreThreads, int maxThreads) {
+        this.mode = mode;
+        this.payloadSize = payloadSize;
+        this.concurrency = concurrency;
+        this.rate = rate;
+        this.serialization = serialization;
+        this.compression = compression;
+        this.threadPool = threadPool;
+        this.coreThreads = coreThreads;
+        this.maxThreads = maxThreads;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public int getPayloadSize() {
+        return payloadSize;
+    }
+
+    public void setPayloadSize(int payloadSize) {
+        this.payloadSize = payloadSize;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public int getRate() {
+        return rate;
+    }
+
+    public void setRate(int rate) {
+        this.rate = rate;
+    }
+
+    public String getSerialization() {
+        return serialization;
+    }
+
+    public void setSerialization(String serialization) {
+        this.serialization = serialization;
+    }
+
+    public String getCompression() {
+        return compression;
+    }
+
+    public void setCompression(String compression) {
+        this.compression = compression;
+    }
+
+    public String getThreadPool() {
+        return threadPool;
+    }
+
+    public void setThreadPool(String threadPool) {
+        this.threadPool = threadPool;
+    }
+
+    public int getCoreThreads() {
+        return coreThreads;
+    }
+
+    public void setCoreThreads(int coreThreads) {
+        this.coreThreads = coreThreads;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    public void setMaxThreads(int maxThreads) {
+        this.maxThreads = maxThreads;
+    }
+
+    /**
+     * 场景名称，用作结果文件名
+     *
+     * @return 名称
+     */
+    public String name() {
+        return mode
+                + "-" + serialization
+                + "-" + compression
+                + "-" + threadPool + coreThreads + "_" + maxThreads
+                + "-s" + payloadSize
+                + "-c" + concurrency
+                + (OPEN_LOOP.equals(mode) ? "-r" + rate : "");
+    }
+
+    @Override
+    public String toString() {
+        return name();
+    }
+}
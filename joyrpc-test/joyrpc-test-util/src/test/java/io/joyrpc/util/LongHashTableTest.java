@@ -0,0 +1,81 @@
+package io.joyrpc.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LongHashTableTest {
+
+    @Test
+    public void testAddRemove() {
+        LongHashTable<Long> table = new LongHashTable<>(16, o -> o);
+        for (long i = 1; i <= 100; i++) {
+            table.add(i);
+        }
+        //超过负载自动扩容
+        Assert.assertEquals(100, table.size());
+        Assert.assertTrue(table.getCapacity() >= 128);
+        for (long i = 1; i <= 100; i++) {
+            Assert.assertEquals(Long.valueOf(i), table.get(i));
+        }
+        Assert.assertNull(table.get(101));
+        Assert.assertEquals(Long.valueOf(50), table.remove(50));
+        Assert.assertNull(table.remove(50));
+        Assert.assertEquals(99, table.size());
+        AtomicInteger counter = new AtomicInteger();
+        table.clear(o -> counter.incrementAndGet());
+        Assert.assertEquals(99, counter.get());
+        Assert.assertTrue(table.isEmpty());
+    }
+
+    @Test
+    public void testSpill() {
+        LongHashTable<Long> table = new LongHashTable<>(16, 16, o -> o);
+        for (long i = 1; i <= 100; i++) {
+            table.add(i);
+        }
+        //达到最大容量后溢出
+        Assert.assertEquals(16, table.getCapacity());
+        Assert.assertEquals(100, table.size());
+        for (long i = 1; i <= 100; i++) {
+            Assert.assertEquals(Long.valueOf(i), table.remove(i));
+        }
+        Assert.assertTrue(table.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentResize() throws InterruptedException {
+        LongHashTable<Long> table = new LongHashTable<>(16, o -> o);
+        AtomicLong id = new AtomicLong();
+        AtomicInteger misses = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                long key;
+                for (int j = 0; j < 20000; j++) {
+                    key = id.incrementAndGet();
+                    table.add(key);
+                    if (table.get(key) == null) {
+                        misses.incrementAndGet();
+                    }
+                    //保留部分在途数据，触发扩容
+                    if (j % 2 == 0 && table.remove(key) == null) {
+                        misses.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(0, misses.get());
+        Assert.assertEquals(40000, table.size());
+        AtomicInteger counter = new AtomicInteger();
+        table.clear(o -> counter.incrementAndGet());
+        Assert.assertEquals(40000, counter.get());
+        Assert.assertTrue(table.isEmpty());
+    }
+}
@@ -0,0 +1,64 @@
+package io.joyrpc.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class StripedTimerTest {
+
+    @Test
+    public void testPrecision() throws InterruptedException {
+        StripedTimer timer = new StripedTimer("test", TimeUnit.MILLISECONDS.toNanos(1), 16, 2, 2);
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+        long[] elapsed = new long[1];
+        //超过一圈的任务
+        timer.stripe().delay(50, () -> {
+            elapsed[0] = System.nanoTime() - start;
+            latch.countDown();
+        });
+        Assert.assertTrue(latch.await(5000, TimeUnit.MILLISECONDS));
+        long millis = TimeUnit.NANOSECONDS.toMillis(elapsed[0]);
+        //不能提前执行，上限放宽，避免机器繁忙时误报
+        Assert.assertTrue(millis >= 49);
+        Assert.assertTrue(millis < 2000);
+    }
+
+    @Test
+    public void testOrder() throws InterruptedException {
+        StripedTimer timer = new StripedTimer("test", TimeUnit.MILLISECONDS.toNanos(1), 16, 1, 1);
+        StripedTimer.Stripe stripe = timer.stripe();
+        CountDownLatch latch = new CountDownLatch(3);
+        List<Integer> orders = new CopyOnWriteArrayList<>();
+        //乱序添加，包括超过一圈的任务，按照到期时间先后执行
+        for (int delay : new int[]{40, 10, 25}) {
+            stripe.delay(delay, () -> {
+                orders.add(delay);
+                latch.countDown();
+            });
+        }
+        Assert.assertTrue(latch.await(5000, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(Arrays.asList(10, 25, 40), orders);
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        StripedTimer timer = new StripedTimer("test", TimeUnit.MILLISECONDS.toNanos(1), 16, 1, 1);
+        StripedTimer.Stripe stripe = timer.stripe();
+        AtomicBoolean executed = new AtomicBoolean();
+        Timer.Timeout timeout = stripe.delay(20, () -> executed.set(true));
+        Assert.assertEquals(1, stripe.size());
+        Assert.assertTrue(timeout.cancel());
+        Assert.assertTrue(timeout.isCancelled());
+        Assert.assertEquals(0, stripe.size());
+        Thread.sleep(50);
+        Assert.assertFalse(executed.get());
+        Assert.assertFalse(timeout.isExpired());
+    }
+}
@@ -0,0 +1,91 @@
+package io.joyrpc.util.benchmark;
+
+import io.joyrpc.util.LongHashTable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 待应答请求表性能测试，模拟单个连接上保持大量在途请求，每次操作插入一个新请求并删除最早的请求。<br/>
+ * 表使用FutureManager中的默认配置，在途请求超过默认容量时在准备阶段扩容，测试的是扩容后的稳定状态
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LongHashTableBenchmark {
+
+    /**
+     * 在途请求数
+     */
+    @Param({"1000", "10000", "20000"})
+    protected int inflight;
+
+    protected LongHashTable<Request> table;
+
+    protected Map<Long, Request> map;
+
+    protected AtomicLong tableId;
+
+    protected AtomicLong mapId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        //与FutureManager的配置保持一致，从默认容量开始扩容
+        table = new LongHashTable<>(Request::getId);
+        map = new ConcurrentHashMap<>();
+        tableId = new AtomicLong();
+        mapId = new AtomicLong();
+        for (int i = 0; i < inflight; i++) {
+            Request request = new Request(tableId.incrementAndGet());
+            table.add(request);
+            map.put(request.getId(), request);
+        }
+        mapId.set(tableId.get());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object table() {
+        long id = tableId.incrementAndGet();
+        table.add(new Request(id));
+        return table.remove(id - inflight);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object concurrentHashMap() {
+        long id = mapId.incrementAndGet();
+        map.computeIfAbsent(id, Request::new);
+        return map.remove(id - inflight);
+    }
+
+    protected static class Request {
+        protected final long id;
+
+        public Request(long id) {
+            this.id = id;
+        }
+
+        public long getId() {
+            return id;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(LongHashTableBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(opt).run();
+    }
+}